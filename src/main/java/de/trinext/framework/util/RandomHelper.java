@@ -1,18 +1,27 @@
 package de.trinext.framework.util;
 
+import java.io.IOException;
 import java.math.BigDecimal;
 import java.math.BigInteger;
+import java.nio.ByteBuffer;
 import java.nio.charset.Charset;
-import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.UUID;
 import java.util.concurrent.ThreadLocalRandom;
 import java.util.function.*;
+import java.util.random.RandomGenerator;
 import java.util.stream.*;
 
+import de.trinext.framework.util.function.*;
+import de.trinext.framework.util.random.*;
+
 /**
  * A helper that generates random values for tests.
  * As the implementation currently uses {@link ThreadLocalRandom} it is not suitable for cryptographic purposes.
+ * Use {@link #seeded(long)} for reproducible values.
  *
  * @author Dennis Woithe
+ * @see RandomSource
  */
 @SuppressWarnings({"unused", "WeakerAccess", "HardCodedStringLiteral", "ConstantExpression", "MagicCharacter", "BoundedWildcard"})
 public final class RandomHelper {
@@ -21,93 +30,209 @@ public final class RandomHelper {
         throw new AssertionError();
     }
 
-    @SuppressWarnings("SharedThreadLocalRandom")
-    private static final ThreadLocalRandom THREAD_LOCAL_RANDOM = ThreadLocalRandom.current();
+    private static final RandomSource SOURCE = RandomSource.threadLocal();
+
+    // ==== FACTORIES ======================================================== //
+
+    /**
+     * Creates a reproducible {@link RandomSource} using the {@link RandomSource#DEFAULT_ALGORITHM}.
+     * It offers the same functions as this helper.
+     */
+    public static RandomSource seeded(long seed) {
+        return RandomSource.seeded(seed);
+    }
+
+    /**
+     * Creates a reproducible {@link RandomSource} using the passed algorithm.
+     * It offers the same functions as this helper.
+     */
+    public static RandomSource seeded(long seed, RandomAlgorithm algorithm) {
+        return RandomSource.seeded(seed, algorithm);
+    }
 
     // ==== STATIC FUNCTIONS ================================================= //
 
     /** Generates n random bytes */
     public static Stream<Byte> randomBytes(long amount) {
-        return randomInts(amount).mapToObj(i -> ((Integer) i).byteValue());
+        return SOURCE.randomBytes(amount);
     }
 
     /** Generates n random shorts */
     public static Stream<Short> randomShorts(long amount) {
-        return randomInts(amount).mapToObj(i -> ((Integer) i).shortValue());
+        return SOURCE.randomShorts(amount);
     }
 
     /** Generates n random ints */
     public static IntStream randomInts(long amount) {
-        return THREAD_LOCAL_RANDOM.ints(amount);
+        return SOURCE.randomInts(amount);
     }
 
     /** Generates n random doubles */
     public static DoubleStream randomDoubles(long amount) {
-        return THREAD_LOCAL_RANDOM.doubles(amount);
+        return SOURCE.randomDoubles(amount);
+    }
+
+    /**
+     * Generates n random ints following the distribution.
+     *
+     * @see IntDistribution
+     */
+    public static IntStream randomInts(IntDistribution distribution, long amount) {
+        return SOURCE.randomInts(distribution, amount);
+    }
+
+    /**
+     * Generates n random doubles following the distribution.
+     *
+     * @see DoubleDistribution
+     */
+    public static DoubleStream randomDoubles(DoubleDistribution distribution, long amount) {
+        return SOURCE.randomDoubles(distribution, amount);
     }
 
     /** Generates n random floats */
     public static Stream<Float> randomFloats(long amount) {
-        return randomDoubles(amount).mapToObj(d -> ((Double) d).floatValue());
+        return SOURCE.randomFloats(amount);
     }
 
     /** Generates n random longs */
     public static LongStream randomLongs(long amount) {
-        return THREAD_LOCAL_RANDOM.longs(amount);
+        return SOURCE.randomLongs(amount);
+    }
+
+    /**
+     * Generates n random ints as a parallel stream.
+     * The stream is cut into chunks that are each drawn from their own generator,
+     * so the workers don't contend on a shared generator.
+     */
+    public static IntStream parallelRandomInts(long amount) {
+        return SOURCE.parallelRandomInts(amount);
+    }
+
+    /**
+     * Generates n random longs as a parallel stream.
+     *
+     * @see #parallelRandomInts(long)
+     */
+    public static LongStream parallelRandomLongs(long amount) {
+        return SOURCE.parallelRandomLongs(amount);
+    }
+
+    /**
+     * Generates n random doubles as a parallel stream.
+     *
+     * @see #parallelRandomInts(long)
+     */
+    public static DoubleStream parallelRandomDoubles(long amount) {
+        return SOURCE.parallelRandomDoubles(amount);
+    }
+
+    /**
+     * Generates n statistically independent generators, e.g. one per worker thread.
+     * Unlike {@link ThreadLocalRandom} the generators can be handed to other threads,
+     * as long as each is only used by one thread at a time.
+     */
+    public static Stream<RandomGenerator> independentGenerators(long amount) {
+        return SOURCE.independentGenerators(amount);
     }
 
     /** Generates n random {@link BigDecimal}s. */
     public static Stream<BigDecimal> randomBigDecs(long amount) {
-        return LongStream.range(0, amount).mapToObj(ignored -> randomBigDec());
+        return SOURCE.randomBigDecs(amount);
+    }
+
+    /**
+     * Generates n random {@link BigDecimal}s with at most {@code precision} digits and the passed scale.
+     *
+     * @see #randomBigDec(int, int)
+     */
+    public static Stream<BigDecimal> randomBigDecs(long amount, int precision, int scale) {
+        return SOURCE.randomBigDecs(amount, precision, scale);
+    }
+
+    /**
+     * Generates n random non-negative {@link BigInteger}s with at most {@code bitLength} bits.
+     *
+     * @see #randomBigInt(int)
+     */
+    public static Stream<BigInteger> randomBigInts(long amount, int bitLength) {
+        return SOURCE.randomBigInts(amount, bitLength);
     }
 
     /** Generates n random {@link String}s with the passed max length. */
     public static Stream<String> randomStrings(int maxWordLength, long amount) {
-        return THREAD_LOCAL_RANDOM
-                .ints(amount, 0, maxWordLength + 1)
-                .mapToObj(byte[]::new)
-                .peek(THREAD_LOCAL_RANDOM::nextBytes)
-                .map(String::new);
+        return SOURCE.randomStrings(maxWordLength, amount);
     }
 
+    /** Generates n random {@link String}s with exactly {@code wordLength} characters of the alphabet. */
+    public static Stream<String> randomStrings(RandomAlphabet alphabet, int wordLength, long amount) {
+        return SOURCE.randomStrings(alphabet, wordLength, amount);
+    }
+
+    /**
+     * Generates n random instances of the record or class.
+     *
+     * @see RandomObjectGenerator
+     */
+    public static <T> Stream<T> randomObjects(Class<T> cls, long amount) {
+        return RandomObjectGenerator.DEFAULT.randomObjects(cls, amount);
+    }
+
+    /** Generates n random version 4 {@link UUID}s. */
+    public static Stream<UUID> randomUuids(long amount) {
+        return SOURCE.randomUuids(amount);
+    }
+
+    // ==== CONSUMERS ======================================================== //
+
     /** Executes the consumer for the passed amount of random floats. */
     public static void runForRandomFloats(long amount, Consumer<Float> consumer) {
-        randomFloats(amount).forEach(consumer);
+        SOURCE.runForRandomFloats(amount, consumer);
     }
 
     /** Executes the consumer for the passed amount of random doubles. */
     public static void runForRandomDoubles(long amount, DoubleConsumer consumer) {
-        randomDoubles(amount).forEach(consumer);
+        SOURCE.runForRandomDoubles(amount, consumer);
     }
 
     /** Executes the consumer for the passed amount of random {@link BigInteger}s. */
     public static void runForRandomBigInts(long amount, Consumer<BigInteger> consumer) {
-        randomInts(amount).mapToObj(BigInteger::valueOf).forEach(consumer);
+        SOURCE.runForRandomBigInts(amount, consumer);
+    }
+
+    /** Executes the consumer for the passed amount of random non-negative {@link BigInteger}s with at most {@code bitLength} bits. */
+    public static void runForRandomBigInts(long amount, int bitLength, Consumer<BigInteger> consumer) {
+        SOURCE.runForRandomBigInts(amount, bitLength, consumer);
     }
 
     /** Executes the consumer for the passed amount of random bytes. */
     public static void runForRandomBytes(long amount, Consumer<Byte> consumer) {
-        randomBytes(amount).forEach(consumer);
+        SOURCE.runForRandomBytes(amount, consumer);
     }
 
     /** Executes the consumer for the passed amount of random shorts. */
     public static void runForRandomShorts(long amount, Consumer<Short> consumer) {
-        randomShorts(amount).forEach(consumer);
+        SOURCE.runForRandomShorts(amount, consumer);
     }
 
     /** Executes the consumer for the passed amount of random ints. */
     public static void runForRandomInts(long amount, IntConsumer consumer) {
-        randomInts(amount).forEach(consumer);
+        SOURCE.runForRandomInts(amount, consumer);
     }
 
     /** Executes the consumer for the passed amount of random longs. */
     public static void runForRandomLongs(long amount, LongConsumer consumer) {
-        randomLongs(amount).forEach(consumer);
+        SOURCE.runForRandomLongs(amount, consumer);
     }
 
     /** Executes the consumer for the passed amount of random {@link BigDecimal}s. */
     public static void runForRandomBigDecs(long amount, Consumer<BigDecimal> consumer) {
-        randomBigDecs(amount).forEach(consumer);
+        SOURCE.runForRandomBigDecs(amount, consumer);
+    }
+
+    /** Executes the consumer for the passed amount of random {@link BigDecimal}s with at most {@code precision} digits and the passed scale. */
+    public static void runForRandomBigDecs(long amount, int precision, int scale, Consumer<BigDecimal> consumer) {
+        SOURCE.runForRandomBigDecs(amount, precision, scale, consumer);
     }
 
     /**
@@ -116,103 +241,367 @@ public final class RandomHelper {
      * @param maxWordLength The max length of each {@link String}
      */
     public static void runForRandomStrings(int maxWordLength, long wordAmount, Consumer<String> test) {
-        randomStrings(maxWordLength, wordAmount).forEach(test);
+        SOURCE.runForRandomStrings(maxWordLength, wordAmount, test);
+    }
+
+    /**
+     * Executes the test for the passed amount of random words with exactly {@code wordLength} characters of the alphabet.
+     * All words are written into the same buffer, so the test must not keep a reference to the {@link CharSequence}.
+     */
+    public static void runForRandomCharSequences(RandomAlphabet alphabet, int wordLength, long wordAmount, Consumer<? super CharSequence> test) {
+        SOURCE.runForRandomCharSequences(alphabet, wordLength, wordAmount, test);
+    }
+
+    /** Executes the consumer for the passed amount of random bytes without boxing them. */
+    public static void runForRandomPrimitiveBytes(long amount, ByteConsumer consumer) {
+        SOURCE.runForRandomPrimitiveBytes(amount, consumer);
+    }
+
+    /** Executes the consumer for the passed amount of random shorts without boxing them. */
+    public static void runForRandomPrimitiveShorts(long amount, ShortConsumer consumer) {
+        SOURCE.runForRandomPrimitiveShorts(amount, consumer);
+    }
+
+    /** Executes the consumer for the passed amount of random floats without boxing them. */
+    public static void runForRandomPrimitiveFloats(long amount, FloatConsumer consumer) {
+        SOURCE.runForRandomPrimitiveFloats(amount, consumer);
     }
 
+    // ==== PARALLEL CONSUMERS =============================================== //
+
+    /**
+     * Executes the test for the passed amount of random inputs in parallel on the common {@link java.util.concurrent.ForkJoinPool}.
+     * As soon as the test throws for one input, all workers stop
+     * and a {@link PropertyFailure} with the run seed, the index and the input is thrown.
+     *
+     * @param input creates one input from the passed generator, must not use any other source of randomness
+     * @throws PropertyFailure if the test throws a {@link RuntimeException} or an {@link AssertionError} for one of the inputs.
+     * @see RandomSource#runParallel(long, Function, Consumer)
+     * @see RandomSource#reproduce(long, long, Function)
+     */
+    public static <T> void runParallel(long amount, Function<? super RandomGenerator, ? extends T> input, Consumer<? super T> test) {
+        SOURCE.runParallel(amount, input, test);
+    }
+
+    /** Executes the test for the passed amount of random ints in parallel. */
+    public static void runForRandomIntsParallel(long amount, IntConsumer test) {
+        SOURCE.runForRandomIntsParallel(amount, test);
+    }
+
+    /** Executes the test for the passed amount of random longs in parallel. */
+    public static void runForRandomLongsParallel(long amount, LongConsumer test) {
+        SOURCE.runForRandomLongsParallel(amount, test);
+    }
+
+    /** Executes the test for the passed amount of random doubles in parallel. */
+    public static void runForRandomDoublesParallel(long amount, DoubleConsumer test) {
+        SOURCE.runForRandomDoublesParallel(amount, test);
+    }
+
+    /**
+     * Executes the test for the passed amount of random {@link String}s in parallel.
+     *
+     * @param maxWordLength The max length of each {@link String}
+     */
+    public static void runForRandomStringsParallel(int maxWordLength, long wordAmount, Consumer<String> test) {
+        SOURCE.runForRandomStringsParallel(maxWordLength, wordAmount, test);
+    }
+
+    /** Executes the test for the passed amount of random words with exactly {@code wordLength} characters of the alphabet in parallel. */
+    public static void runForRandomStringsParallel(RandomAlphabet alphabet, int wordLength, long wordAmount, Consumer<String> test) {
+        SOURCE.runForRandomStringsParallel(alphabet, wordLength, wordAmount, test);
+    }
+
+    // ==== SINGLE VALUES ==================================================== //
+
     /** Generates one random byte */
     public static byte randomByte() {
-        //noinspection NumericCastThatLosesPrecision
-        return (byte) randomInt();
+        return SOURCE.randomByte();
     }
 
     /** Generates one random short */
     public static short randomShort() {
-        //noinspection NumericCastThatLosesPrecision
-        return (short) randomInt();
+        return SOURCE.randomShort();
     }
 
     /** Generates one random int */
     public static int randomInt() {
-        return THREAD_LOCAL_RANDOM.nextInt();
+        return SOURCE.randomInt();
     }
 
     /** Generates one random int between 0 (inclusive) and max (exclusive) */
     public static int randomInt(int max) {
-        return THREAD_LOCAL_RANDOM.nextInt(max);
+        return SOURCE.randomInt(max);
     }
 
     /** Generates one random int between min (inclusive) and max (exclusive) */
     public static int randomInt(int min, int max) {
-        return THREAD_LOCAL_RANDOM.nextInt(min, max);
+        return SOURCE.randomInt(min, max);
     }
 
     /** Generates one random long */
     public static long randomLong() {
-        return THREAD_LOCAL_RANDOM.nextLong();
+        return SOURCE.randomLong();
     }
 
     /** Generates one random float */
     public static float randomFloat() {
-        return THREAD_LOCAL_RANDOM.nextFloat();
+        return SOURCE.randomFloat();
     }
 
     /** Generates one random double */
     public static double randomDouble() {
-        return THREAD_LOCAL_RANDOM.nextDouble();
+        return SOURCE.randomDouble();
     }
 
     /** Generates one random {@link BigDecimal}. */
     public static BigDecimal randomBigDec() {
-        return new BigDecimal(randomLong()).multiply(BigDecimal.valueOf(randomDouble()));
+        return SOURCE.randomBigDec();
     }
 
     /** Generates one random {@link BigDecimal} bigger or equals to specified minimum. */
     public static BigDecimal randomBigDecBiggerThan(BigDecimal min) {
-        return min.add(randomBigDec().abs());
+        return SOURCE.randomBigDecBiggerThan(min);
     }
 
     /** Generates one random {@link BigDecimal} smaller or equals to specified maximum. */
     public static BigDecimal randomBigDecSmallerThan(BigDecimal max) {
-        return max.subtract(randomBigDec().abs());
+        return SOURCE.randomBigDecSmallerThan(max);
+    }
+
+    /**
+     * Generates one random {@link BigDecimal} with at most {@code precision} digits and the passed scale,
+     * e.g. {@code randomBigDec(10, 2)} for amounts between -99999999.99 and 99999999.99.
+     *
+     * @throws IllegalArgumentException if the precision is not positive.
+     */
+    public static BigDecimal randomBigDec(int precision, int scale) {
+        return SOURCE.randomBigDec(precision, scale);
+    }
+
+    /**
+     * Generates one random {@link BigDecimal} with the passed scale between min and max (both inclusive).
+     *
+     * @throws IllegalArgumentException if min is bigger than max or no value with the scale lies between them.
+     */
+    public static BigDecimal randomBigDec(BigDecimal min, BigDecimal max, int scale) {
+        return SOURCE.randomBigDec(min, max, scale);
+    }
+
+    /**
+     * Generates one random non-negative {@link BigInteger} with at most {@code bitLength} bits.
+     *
+     * @throws IllegalArgumentException if the bit length is negative.
+     */
+    public static BigInteger randomBigInt(int bitLength) {
+        return SOURCE.randomBigInt(bitLength);
     }
 
     /** Generates one random boolean */
     public static boolean randomBool() {
-        return THREAD_LOCAL_RANDOM.nextBoolean();
+        return SOURCE.randomBool();
     }
 
     /** Generates one random character */
     public static char randomChar() {
-        return (char) randomShort();
+        return SOURCE.randomChar();
     }
 
     /** Generates one random {@link String} with the passed max length. */
     public static String randomString(int maxWordLength, Charset charset) {
-        var bytes = new byte[maxWordLength];
-        THREAD_LOCAL_RANDOM.nextBytes(bytes);
-        return new String(bytes, charset);
+        return SOURCE.randomString(maxWordLength, charset);
     }
 
     /** Generates one random {@link String} with the passed max length. */
     public static String randomString(int maxWordLength) {
-        return randomString(maxWordLength, StandardCharsets.UTF_8);
+        return SOURCE.randomString(maxWordLength);
+    }
+
+    /**
+     * Generates one random instance of the record or class with all its fields populated.
+     *
+     * @see RandomObjectGenerator
+     */
+    public static <T> T randomObject(Class<T> cls) {
+        return SOURCE.randomObject(cls);
+    }
+
+    /** Generates one random {@link String} with exactly {@code wordLength} characters of the alphabet. */
+    public static String randomString(RandomAlphabet alphabet, int wordLength) {
+        return SOURCE.randomString(alphabet, wordLength);
     }
 
     /** Creates a random {@link String} with the passed max length that matches [A-Za-z]. */
     public static String randomWord(int maxWordLength) {
-        var chars = new char[maxWordLength];
-        for (var i = 0; i < maxWordLength; i++)
-            chars[i] = randomLetter();
-        return new String(chars);
+        return SOURCE.randomWord(maxWordLength);
     }
 
     /** Creates a random char that matches [A-Za-z]. */
-    @SuppressWarnings({"NumericCastThatLosesPrecision", "ConstantExpression", "HardCodedStringLiteral"})
     public static char randomLetter() {
-        return (char) (randomBool()
-                       ? THREAD_LOCAL_RANDOM.nextInt('a', 'z' + 1)
-                       : THREAD_LOCAL_RANDOM.nextInt('A', 'Z' + 1)
-        );
+        return SOURCE.randomLetter();
+    }
+
+    // ==== SAMPLING ========================================================= //
+
+    /**
+     * Generates n distinct random ints between origin (inclusive) and bound (exclusive) in random order.
+     *
+     * @throws IllegalArgumentException if the amount is negative, origin is not smaller than bound
+     *                                  or the range has less than {@code amount} values.
+     */
+    public static int[] randomDistinctInts(int amount, int origin, int bound) {
+        return SOURCE.randomDistinctInts(amount, origin, bound);
+    }
+
+    /**
+     * Generates n distinct random longs between origin (inclusive) and bound (exclusive) in random order.
+     *
+     * @throws IllegalArgumentException if the amount is negative, origin is not smaller than bound,
+     *                                  the range has less than {@code amount} values or more than {@link Long#MAX_VALUE},
+     *                                  or more than 2<sup>29</sup> values are drawn from a sparse range.
+     */
+    public static long[] randomDistinctLongs(int amount, long origin, long bound) {
+        return SOURCE.randomDistinctLongs(amount, origin, bound);
+    }
+
+    /**
+     * Creates a lazily evaluated random permutation of {@code [0, size)}.
+     *
+     * @throws IllegalArgumentException if the size is not positive.
+     */
+    public static RandomPermutation randomPermutation(long size) {
+        return SOURCE.randomPermutation(size);
+    }
+
+    /** Returns {@code [0, size)} in random order, e.g. as access pattern for a benchmark. */
+    public static int[] shuffledIndices(int size) {
+        return SOURCE.shuffledIndices(size);
+    }
+
+    /** Shuffles the whole array in place. */
+    public static void shuffle(int[] array) {
+        SOURCE.shuffle(array);
+    }
+
+    /** Shuffles {@code length} elements of the array starting at {@code offset} in place. */
+    public static void shuffle(int[] array, int offset, int length) {
+        SOURCE.shuffle(array, offset, length);
+    }
+
+    /** Shuffles the whole array in place. */
+    public static void shuffle(long[] array) {
+        SOURCE.shuffle(array);
+    }
+
+    /** Shuffles {@code length} elements of the array starting at {@code offset} in place. */
+    public static void shuffle(long[] array, int offset, int length) {
+        SOURCE.shuffle(array, offset, length);
+    }
+
+    /** Generates one random version 4 {@link UUID} without going through a {@link java.security.SecureRandom}. */
+    public static UUID randomUuid() {
+        return SOURCE.randomUuid();
+    }
+
+    /** Generates one time-ordered version 7 {@link UUID} that is greater than all previous ones in this JVM. */
+    public static UUID timeOrderedUuid() {
+        return SOURCE.timeOrderedUuid();
+    }
+
+    // ==== BULK FUNCTIONS =================================================== //
+
+    /**
+     * Fills the array with random version 4 UUIDs, each as a pair of its most and least significant bits.
+     *
+     * @throws IllegalArgumentException if the array length is odd.
+     */
+    public static void fillUuids(long[] pairs) {
+        SOURCE.fillUuids(pairs);
+    }
+
+    /**
+     * Fills the array with ascending version 7 UUIDs, each as a pair of its most and least significant bits.
+     *
+     * @throws IllegalArgumentException if the array length is odd.
+     */
+    public static void fillTimeOrderedUuids(long[] pairs) {
+        SOURCE.fillTimeOrderedUuids(pairs);
+    }
+
+    /** Fills the whole array with random bytes. */
+    public static void fill(byte[] bytes) {
+        SOURCE.fill(bytes);
+    }
+
+    /**
+     * Fills {@code length} elements of the array starting at {@code offset} with random bytes.
+     * Eight bytes are taken from each random long.
+     *
+     * @throws IndexOutOfBoundsException if the range is out of the array bounds.
+     */
+    public static void fill(byte[] bytes, int offset, int length) {
+        SOURCE.fill(bytes, offset, length);
+    }
+
+    /** Fills the whole array with random shorts. */
+    public static void fill(short[] shorts) {
+        SOURCE.fill(shorts);
+    }
+
+    /**
+     * Fills {@code length} elements of the array starting at {@code offset} with random shorts.
+     * Four shorts are taken from each random long.
+     *
+     * @throws IndexOutOfBoundsException if the range is out of the array bounds.
+     */
+    public static void fill(short[] shorts, int offset, int length) {
+        SOURCE.fill(shorts, offset, length);
+    }
+
+    /** Fills the whole array with random floats between 0 (inclusive) and 1 (exclusive). */
+    public static void fill(float[] floats) {
+        SOURCE.fill(floats);
+    }
+
+    /**
+     * Fills {@code length} elements of the array starting at {@code offset}
+     * with random floats between 0 (inclusive) and 1 (exclusive).
+     * Two floats are taken from each random long.
+     *
+     * @throws IndexOutOfBoundsException if the range is out of the array bounds.
+     */
+    public static void fill(float[] floats, int offset, int length) {
+        SOURCE.fill(floats, offset, length);
+    }
+
+    /**
+     * Fills the remaining bytes of the buffer with random bytes and advances its position to its limit.
+     * Works for heap and direct buffers alike.
+     *
+     * @throws java.nio.ReadOnlyBufferException if the buffer is read-only.
+     */
+    public static void fill(ByteBuffer buffer) {
+        SOURCE.fill(buffer);
+    }
+
+    /**
+     * Fills the remaining bytes of the buffer with random bytes in parallel and advances its position to its limit.
+     * Meant for large direct buffers, for small buffers use {@link #fill(ByteBuffer)}.
+     *
+     * @throws java.nio.ReadOnlyBufferException if the buffer is read-only.
+     */
+    public static void fillParallel(ByteBuffer buffer) {
+        SOURCE.fillParallel(buffer);
+    }
+
+    /**
+     * Creates or overwrites the file with {@code size} random bytes.
+     * The file is memory-mapped and filled in parallel without copying data through the heap.
+     *
+     * @throws IOException if the file can't be created or written.
+     */
+    public static void writeRandomFile(Path file, long size) throws IOException {
+        SOURCE.writeRandomFile(file, size);
     }
 
 }
\ No newline at end of file
@@ -16,6 +16,8 @@ import static java.security.MessageDigest.getInstance;
 public record AdvancedEncryptionStandard(Charset charset) {
 
     private static final String ALGORITHM = "AES";
+    /** Passed to the ciphers, so they don't fall back to the shared default {@link SecureRandom}. */
+    private static final SecureRandom RANDOM = SecureRandomSource.DEFAULT.asSecureRandom();
 
 
     /** Generate a 256-bit key using SHA-256 hashing. */
@@ -30,11 +32,16 @@ public record AdvancedEncryptionStandard(Charset charset) {
         }
     }
 
+    /** Generate a random 256-bit key from {@link SecureRandomSource#DEFAULT}. */
+    public Key generateRandomKey() {
+        return SecureRandomSource.DEFAULT.aesKey();
+    }
+
     /** Encrypt the plaintext using AES. */
     public String encrypt(String plainText, Key key) throws InvalidKeyException {
         checkArgs(plainText, key);
         var cipher = getCipherInstance();
-        cipher.init(Cipher.ENCRYPT_MODE, key);
+        cipher.init(Cipher.ENCRYPT_MODE, key, RANDOM);
         try {
             return Base64.getEncoder().encodeToString(cipher.doFinal(plainText.getBytes(charset)));
         } catch (IllegalBlockSizeException | BadPaddingException e) {
@@ -47,7 +54,7 @@ public record AdvancedEncryptionStandard(Charset charset) {
         checkArgs(encryptedText, key);
         var cipher = getCipherInstance();
         try {
-            cipher.init(Cipher.DECRYPT_MODE, key);
+            cipher.init(Cipher.DECRYPT_MODE, key, RANDOM);
             var decryptedText = cipher.doFinal(Base64.getDecoder().decode(encryptedText));
             return new String(decryptedText, charset);
         } catch (IllegalBlockSizeException | BadPaddingException e) {
@@ -0,0 +1,347 @@
+package de.trinext.framework.util.encryption;
+
+import javax.crypto.SecretKey;
+import javax.crypto.spec.SecretKeySpec;
+import java.io.Serial;
+import java.nio.ByteBuffer;
+import java.security.DrbgParameters;
+import java.security.DrbgParameters.Capability;
+import java.security.NoSuchAlgorithmException;
+import java.security.SecureRandom;
+import java.security.SecureRandomParameters;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Objects;
+import java.util.concurrent.*;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A cryptographically strong source of random bytes for keys, nonces and IVs that scales with the number of threads.
+ * <p>
+ * A single {@link SecureRandom} serializes all of its callers.
+ * This source spreads the threads over several stripes, each with its own DRBG and a buffered block of its output,
+ * so most requests are a copy out of the block under an uncontended lock.
+ * Served bytes are wiped from the block. All DRBGs are reseeded from the system entropy source in the background,
+ * which also drops the buffered bytes.
+ * <pre>{@code
+ * var key = SecureRandomSource.DEFAULT.aesKey();
+ * var nonce = SecureRandomSource.DEFAULT.nonce();
+ * }</pre>
+ * Instances are thread-safe.
+ *
+ * @author Dennis Woithe
+ */
+@SuppressWarnings({"unused", "WeakerAccess", "HardCodedStringLiteral"})
+public final class SecureRandomSource implements AutoCloseable {
+
+    /** Length of a nonce for AES-GCM and ChaCha20-Poly1305 in bytes. */
+    public static final int NONCE_LENGTH = 12;
+    /** Length of an IV for AES-CBC and AES-CTR in bytes, which is the AES block size. */
+    public static final int IV_LENGTH = 16;
+    /** Length of an AES-256 key in bytes. */
+    public static final int AES_KEY_LENGTH = 32;
+
+    private static final int DEFAULT_BLOCK_SIZE = 4096;
+    private static final Duration DEFAULT_RESEED_INTERVAL = Duration.ofMinutes(10);
+    private static final int SECURITY_STRENGTH = 256;
+
+    private static final ScheduledExecutorService RESEEDER = Executors.newSingleThreadScheduledExecutor(task -> {
+        var thread = new Thread(task, "secure-random-reseeder");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    /** The source shared by the whole JVM, with one stripe per available processor. It can't be closed. */
+    public static final SecureRandomSource DEFAULT = create(Runtime.getRuntime().availableProcessors(), DEFAULT_BLOCK_SIZE, DEFAULT_RESEED_INTERVAL);
+
+    private final Stripe[] stripes;
+    private final int mask;
+    private final ScheduledFuture<?> reseeding;
+    private final SecureRandom view;
+
+    private SecureRandomSource(int stripeCount, int blockSize, Duration reseedInterval) {
+        stripes = new Stripe[stripeCount];
+        for (var i = 0; i < stripeCount; i++)
+            stripes[i] = new Stripe(blockSize);
+        mask = stripeCount - 1;
+        view = new View(this);
+        var millis = reseedInterval.toMillis();
+        reseeding = RESEEDER.scheduleWithFixedDelay(this::reseed, millis, millis, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Creates a source with at least {@code stripes} stripes.
+     * Prefer {@link #DEFAULT}, as every source holds its own DRBGs and buffers until it is closed.
+     *
+     * @param stripes        the number of stripes, rounded up to the next power of two
+     * @param blockSize      the number of bytes each stripe buffers
+     * @param reseedInterval the time between two reseeds of all DRBGs
+     * @throws IllegalArgumentException if stripes or block size are not positive or the interval is shorter than one millisecond.
+     */
+    public static SecureRandomSource create(int stripes, int blockSize, Duration reseedInterval) {
+        if (stripes <= 0 || stripes > 1 << 16)
+            throw new IllegalArgumentException("Stripes must be between 1 and 65536: " + stripes);
+        if (blockSize <= 0)
+            throw new IllegalArgumentException("Block size must be positive: " + blockSize);
+        if (Objects.requireNonNull(reseedInterval, "Reseed interval must not be null").toMillis() <= 0)
+            throw new IllegalArgumentException("Reseed interval must be at least one millisecond: " + reseedInterval);
+        var stripeCount = Integer.highestOneBit(stripes) == stripes ? stripes : Integer.highestOneBit(stripes) << 1;
+        return new SecureRandomSource(stripeCount, blockSize, reseedInterval);
+    }
+
+    // ==== BYTES ============================================================ //
+
+    /** Fills the whole array with random bytes. */
+    public void nextBytes(byte[] bytes) {
+        nextBytes(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Fills {@code length} elements of the array starting at {@code offset} with random bytes.
+     *
+     * @throws IndexOutOfBoundsException if the range is out of the array bounds.
+     */
+    public void nextBytes(byte[] bytes, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+        stripe().copyTo(bytes, offset, length);
+    }
+
+    /** Returns {@code length} random bytes. */
+    public byte[] nextBytes(int length) {
+        var bytes = new byte[length];
+        nextBytes(bytes, 0, length);
+        return bytes;
+    }
+
+    // ==== NONCES, IVS AND KEYS ============================================= //
+
+    /** Returns a random nonce of {@value #NONCE_LENGTH} bytes for AES-GCM or ChaCha20-Poly1305. */
+    public byte[] nonce() {
+        return nextBytes(NONCE_LENGTH);
+    }
+
+    /** Returns a random IV of {@value #IV_LENGTH} bytes for AES-CBC or AES-CTR. */
+    public byte[] iv() {
+        return nextBytes(IV_LENGTH);
+    }
+
+    /**
+     * Returns {@code count} random nonces of {@code length} bytes each.
+     * All of them are drawn in one request, so the stripe is only locked once.
+     */
+    public byte[][] nonces(int count, int length) {
+        if (count < 0 || length < 0)
+            throw new IllegalArgumentException("Count and length must not be negative");
+        var all = nextBytes(Math.multiplyExact(count, length));
+        var nonces = new byte[count][];
+        for (var i = 0; i < count; i++)
+            nonces[i] = Arrays.copyOfRange(all, i * length, (i + 1) * length);
+        Arrays.fill(all, (byte) 0);
+        return nonces;
+    }
+
+    /** Returns a random AES-256 key. */
+    public SecretKey aesKey() {
+        return secretKey("AES", AES_KEY_LENGTH);
+    }
+
+    /** Returns a random key of {@code length} bytes for the passed algorithm, e.g. {@code "HmacSHA256"}. */
+    public SecretKey secretKey(String algorithm, int length) {
+        var bytes = nextBytes(length);
+        try {
+            return new SecretKeySpec(bytes, algorithm);
+        } finally {
+            // SecretKeySpec keeps a copy
+            Arrays.fill(bytes, (byte) 0);
+        }
+    }
+
+    /**
+     * Returns {@code count} random keys of {@code length} bytes each for the passed algorithm.
+     * All of them are drawn in one request, so the stripe is only locked once.
+     */
+    public SecretKey[] secretKeys(String algorithm, int count, int length) {
+        var keys = new SecretKey[count];
+        var bytes = nonces(count, length);
+        for (var i = 0; i < count; i++) {
+            keys[i] = new SecretKeySpec(bytes[i], algorithm);
+            Arrays.fill(bytes[i], (byte) 0);
+        }
+        return keys;
+    }
+
+    /**
+     * A {@link SecureRandom} view of this source, e.g. for {@link javax.crypto.Cipher#init(int, java.security.Key, SecureRandom)}
+     * or {@link javax.crypto.KeyGenerator#init(SecureRandom)}. Unlike a regular {@link SecureRandom} it doesn't synchronize.
+     */
+    public SecureRandom asSecureRandom() {
+        return view;
+    }
+
+    // ==== LIFECYCLE ======================================================== //
+
+    /** Reseeds all DRBGs from the system entropy source now and drops the buffered bytes. */
+    public void reseed() {
+        for (var stripe : stripes)
+            stripe.reseed();
+    }
+
+    /**
+     * Stops the background reseeding.
+     *
+     * @throws UnsupportedOperationException if this is {@link #DEFAULT}.
+     */
+    @Override
+    public void close() {
+        if (this == DEFAULT)
+            throw new UnsupportedOperationException("The default source can't be closed");
+        reseeding.cancel(false);
+    }
+
+    // ==== INTERNALS ======================================================== //
+
+    /** The stripe of the current thread, spread by the thread id. */
+    private Stripe stripe() {
+        //noinspection NumericCastThatLosesPrecision
+        return stripes[(int) (Thread.currentThread().threadId() * 0x9E3779B97F4A7C15L >>> 32) & mask];
+    }
+
+    private static SecureRandom newDrbg() {
+        try {
+            return SecureRandom.getInstance("DRBG", DrbgParameters.instantiation(SECURITY_STRENGTH, Capability.RESEED_ONLY, null));
+        } catch (NoSuchAlgorithmException e) {
+            throw new AssertionError(e);
+        }
+    }
+
+    /** One DRBG and the unused rest of its last output. */
+    private static final class Stripe {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final SecureRandom drbg = newDrbg();
+        private final byte[] block;
+        /** Index of the first unused byte in the block. */
+        private int position;
+
+        Stripe(int blockSize) {
+            block = new byte[blockSize];
+            position = blockSize;
+        }
+
+        void copyTo(byte[] bytes, int offset, int length) {
+            lock.lock();
+            try {
+                while (length > 0) {
+                    if (position == block.length) {
+                        drbg.nextBytes(block);
+                        position = 0;
+                    }
+                    var count = Math.min(length, block.length - position);
+                    System.arraycopy(block, position, bytes, offset, count);
+                    Arrays.fill(block, position, position + count, (byte) 0);
+                    position += count;
+                    offset += count;
+                    length -= count;
+                }
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        void reseed() {
+            drbg.reseed();
+            dropBlock();
+        }
+
+        void reseed(SecureRandomParameters params) {
+            drbg.reseed(params);
+            dropBlock();
+        }
+
+        private void dropBlock() {
+            lock.lock();
+            try {
+                Arrays.fill(block, position, block.length, (byte) 0);
+                position = block.length;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+    }
+
+    /** Serves {@link SecureRandom#nextBytes(byte[])} from the stripes instead of a synchronized SPI. */
+    private static final class View extends SecureRandom {
+
+        @Serial
+        private static final long serialVersionUID = 1L;
+
+        private final transient SecureRandomSource source;
+
+        View(SecureRandomSource source) {
+            // The provider of the DRBGs, so callers that inspect it see a real one
+            super(null, source.stripes[0].drbg.getProvider());
+            this.source = source;
+        }
+
+        @Override
+        public void nextBytes(byte[] bytes) {
+            source.nextBytes(bytes);
+        }
+
+        /** Bypasses the block, as the parameters apply to this very request. */
+        @Override
+        public void nextBytes(byte[] bytes, SecureRandomParameters params) {
+            Objects.requireNonNull(params, "Params must not be null");
+            source.stripe().drbg.nextBytes(bytes, params);
+        }
+
+        @Override
+        public byte[] generateSeed(int numBytes) {
+            return source.stripe().drbg.generateSeed(numBytes);
+        }
+
+        @Override
+        public void setSeed(byte[] seed) {
+            // Supplements the seed of every DRBG, like SecureRandom#setSeed(byte[]) does
+            for (var stripe : source.stripes)
+                stripe.drbg.setSeed(seed);
+        }
+
+        @Override
+        public void setSeed(long seed) {
+            // Called by the constructor of Random before the source is set
+            if (source != null)
+                setSeed(ByteBuffer.allocate(Long.BYTES).putLong(seed).array());
+        }
+
+        @Override
+        public void reseed() {
+            source.reseed();
+        }
+
+        @Override
+        public void reseed(SecureRandomParameters params) {
+            Objects.requireNonNull(params, "Params must not be null");
+            for (var stripe : source.stripes)
+                stripe.reseed(params);
+        }
+
+        @Override
+        public SecureRandomParameters getParameters() {
+            return source.stripes[0].drbg.getParameters();
+        }
+
+        @Override
+        public String getAlgorithm() {
+            return "DRBG";
+        }
+
+        @Override
+        public String toString() {
+            return "SecureRandomSource with " + source.stripes.length + " stripes";
+        }
+
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,17 @@
+package de.trinext.framework.util.function;
+
+import java.util.function.Consumer;
+
+/**
+ * Primitive specialization of {@link Consumer} for {@code byte} values.
+ * Avoids boxing each value into a {@link Byte}.
+ *
+ * @author Dennis Woithe
+ */
+@FunctionalInterface
+public interface ByteConsumer {
+
+    /** Performs this operation on the given value. */
+    void accept(byte value);
+
+}
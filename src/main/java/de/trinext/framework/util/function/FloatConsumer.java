@@ -0,0 +1,17 @@
+package de.trinext.framework.util.function;
+
+import java.util.function.Consumer;
+
+/**
+ * Primitive specialization of {@link Consumer} for {@code float} values.
+ * Avoids boxing each value into a {@link Float}.
+ *
+ * @author Dennis Woithe
+ */
+@FunctionalInterface
+public interface FloatConsumer {
+
+    /** Performs this operation on the given value. */
+    void accept(float value);
+
+}
@@ -0,0 +1,17 @@
+package de.trinext.framework.util.function;
+
+import java.util.function.Consumer;
+
+/**
+ * Primitive specialization of {@link Consumer} for {@code short} values.
+ * Avoids boxing each value into a {@link Short}.
+ *
+ * @author Dennis Woithe
+ */
+@FunctionalInterface
+public interface ShortConsumer {
+
+    /** Performs this operation on the given value. */
+    void accept(short value);
+
+}
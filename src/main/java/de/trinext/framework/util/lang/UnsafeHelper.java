@@ -1,5 +1,7 @@
 package de.trinext.framework.util.lang;
 
+import java.lang.reflect.Field;
+
 import de.trinext.framework.util.internal.annotations.EvilShitFuckery;
 import sun.misc.Unsafe;
 
@@ -31,4 +33,13 @@ public interface UnsafeHelper {
         }
     }
 
+    /**
+     * Returns the offset of the field within its instances, as taken by the {@code put} and {@code get} methods of {@link Unsafe}.
+     * Unlike {@link java.lang.invoke.VarHandle}s, which replace it, the offset allows writing final fields.
+     */
+    @SuppressWarnings("deprecation")
+    static long objectFieldOffset(Field field) {
+        return getUnsafe().objectFieldOffset(field);
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,271 @@
+package de.trinext.framework.util.net;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.Map;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limits the exchanges in flight per host to a limit that adapts to the capacity of the server.
+ * <p>
+ * The limit grows by one per round trip while the latency stays close to the lowest one observed
+ * and is cut by 10% when the smoothed latency exceeds it by the tolerance, an exchange fails with an {@link IOException}
+ * or the server answers {@code 429 Too Many Requests} or {@code 503 Service Unavailable}.
+ * It's cut at most once per round trip, so the responses of one overloaded window count once.
+ * The lowest latency slowly follows the observed ones, so a server that got slower permanently is not starved.
+ * <p>
+ * A request over the limit is rejected with a {@link RejectedExecutionException} right away,
+ * unless {@link #withQueue(int, Duration)} lets it wait for a free slot.
+ * <pre>{@code
+ * var backend = ConcurrencyLimiter.perHost(20, 200).withQueue(100, Duration.ofMillis(200));
+ * HttpBuilder.forUrl("https://backend.example.com/search")
+ *     .withMethod(HttpMethod.GET)
+ *     .expectBody(BodyHandlers.ofString())
+ *     .withConcurrencyLimit(backend)
+ *     .sendAsync();
+ * }</pre>
+ * Instances are thread-safe and meant to be shared by all requests to the limited servers.
+ *
+ * @author Dennis Woithe
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class ConcurrencyLimiter {
+
+    /** The factor the limit is multiplied with on overload. */
+    private static final double BACKOFF_RATIO = 0.9;
+    /** The weight of a new latency in the smoothed one, like the smoothed RTT of TCP. */
+    private static final double SMOOTHING = 1.0 / 8;
+    /** The weight of a higher latency in the lowest one, so it adapts within a few hundred exchanges. */
+    private static final double BASELINE_DRIFT = 1.0 / 256;
+
+    private final int initialLimit;
+    private final int maxLimit;
+    private final double latencyTolerance;
+    private final int maxQueued;
+    private final long maxWaitNanos;
+    private final Map<String, Host> hosts = new ConcurrentHashMap<>();
+
+    private ConcurrencyLimiter(int initialLimit, int maxLimit, double latencyTolerance, int maxQueued, long maxWaitNanos) {
+        this.initialLimit = initialLimit;
+        this.maxLimit = maxLimit;
+        this.latencyTolerance = latencyTolerance;
+        this.maxQueued = maxQueued;
+        this.maxWaitNanos = maxWaitNanos;
+    }
+
+    /**
+     * Starts every host at the initial limit, which adapts between one and the max limit.
+     *
+     * @throws IllegalArgumentException if the initial limit is not positive or greater than the max limit.
+     */
+    public static ConcurrencyLimiter perHost(int initialLimit, int maxLimit) {
+        if (initialLimit <= 0)
+            throw new IllegalArgumentException("Initial limit must be positive: " + initialLimit);
+        if (maxLimit < initialLimit)
+            throw new IllegalArgumentException("Max limit must not be less than the initial limit: " + maxLimit);
+        return new ConcurrencyLimiter(initialLimit, maxLimit, 2, 0, 0);
+    }
+
+    /**
+     * Returns a new limiter that only cuts the limit when the smoothed latency exceeds the lowest one by the factor,
+     * 2 by default. It doesn't share the limits of this limiter.
+     *
+     * @throws IllegalArgumentException if the factor is not greater than 1.
+     */
+    public ConcurrencyLimiter withLatencyTolerance(double factor) {
+        if (!(factor > 1))
+            throw new IllegalArgumentException("Latency tolerance must be greater than 1: " + factor);
+        return new ConcurrencyLimiter(initialLimit, maxLimit, factor, maxQueued, maxWaitNanos);
+    }
+
+    /**
+     * Returns a new limiter that lets up to {@code maxQueued} requests per host wait up to {@code maxWait} for a free slot,
+     * in the order they arrived. It doesn't share the limits of this limiter.
+     *
+     * @throws IllegalArgumentException if the queue size or the duration is negative.
+     */
+    public ConcurrencyLimiter withQueue(int maxQueued, Duration maxWait) {
+        if (maxQueued < 0)
+            throw new IllegalArgumentException("Max queued must not be negative: " + maxQueued);
+        if (maxWait.isNegative())
+            throw new IllegalArgumentException("Max wait must not be negative: " + maxWait);
+        return new ConcurrencyLimiter(initialLimit, maxLimit, latencyTolerance, maxQueued, maxWait.toNanos());
+    }
+
+    /** The current limit of the host, given as authority like {@code example.com:8080}. */
+    public int limit(String host) {
+        var state = hosts.get(host);
+        return state == null ? initialLimit : state.limit();
+    }
+
+    /** The exchanges in flight to the host, given as authority like {@code example.com:8080}. */
+    public int inFlight(String host) {
+        var state = hosts.get(host);
+        return state == null ? 0 : state.inFlight();
+    }
+
+    /**
+     * Completes with a permit for the request once its host is below the limit.
+     * Fails with a {@link RejectedExecutionException} if the queue is full or the max wait elapsed.
+     */
+    CompletableFuture<Permit> acquire(HttpRequest request) {
+        var host = String.valueOf(request.uri().getAuthority());
+        var state = hosts.get(host);
+        if (state == null)
+            state = hosts.computeIfAbsent(host, ignored -> new Host(initialLimit));
+        return state.acquire(host);
+    }
+
+    /** The state of one host. */
+    private final class Host {
+
+        private final ReentrantLock lock = new ReentrantLock();
+        private final ArrayDeque<CompletableFuture<Permit>> waiting = new ArrayDeque<>();
+        private double limit;
+        private int inFlight;
+        private double smoothedNanos = -1;
+        private double baselineNanos = -1;
+        private long lastDecrease;
+
+        Host(int initialLimit) {
+            limit = initialLimit;
+            // Long enough ago to allow the first decrease right away
+            lastDecrease = System.nanoTime() - TimeUnit.DAYS.toNanos(1);
+        }
+
+        int limit() {
+            lock.lock();
+            try {
+                return (int) limit;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        int inFlight() {
+            lock.lock();
+            try {
+                return inFlight;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        CompletableFuture<Permit> acquire(String host) {
+            CompletableFuture<Permit> waiter;
+            lock.lock();
+            try {
+                if (inFlight < (int) limit && waiting.isEmpty()) {
+                    inFlight++;
+                    return CompletableFuture.completedFuture(new Permit(this));
+                }
+                if (waiting.size() >= maxQueued)
+                    return CompletableFuture.failedFuture(new RejectedExecutionException("Concurrency limit of " + host + " reached: " + (int) limit));
+                waiter = new CompletableFuture<>();
+                waiting.add(waiter);
+            } finally {
+                lock.unlock();
+            }
+            CompletableFuture.delayedExecutor(maxWaitNanos, TimeUnit.NANOSECONDS).execute(() -> {
+                lock.lock();
+                try {
+                    if (!waiting.remove(waiter))
+                        return;
+                } finally {
+                    lock.unlock();
+                }
+                waiter.completeExceptionally(new RejectedExecutionException("No free slot for " + host + " within " + Duration.ofNanos(maxWaitNanos)));
+            });
+            return waiter;
+        }
+
+        /** Frees the slot of a permit and adapts the limit, unless the latency is negative because the exchange was cancelled. */
+        void release(long latencyNanos, boolean overloaded) {
+            lock.lock();
+            try {
+                inFlight--;
+                if (latencyNanos >= 0)
+                    adapt(latencyNanos, overloaded);
+            } finally {
+                lock.unlock();
+            }
+            grant();
+        }
+
+        private void adapt(long latencyNanos, boolean overloaded) {
+            if (baselineNanos < 0) {
+                baselineNanos = latencyNanos;
+                smoothedNanos = latencyNanos;
+            } else {
+                smoothedNanos += (latencyNanos - smoothedNanos) * SMOOTHING;
+                baselineNanos = latencyNanos < baselineNanos ? latencyNanos : baselineNanos + (latencyNanos - baselineNanos) * BASELINE_DRIFT;
+            }
+            var now = System.nanoTime();
+            if (overloaded || smoothedNanos > baselineNanos * latencyTolerance) {
+                if (now - lastDecrease >= smoothedNanos) {
+                    limit = Math.max(1, limit * BACKOFF_RATIO);
+                    lastDecrease = now;
+                }
+            } else if (inFlight + 1 >= limit / 2)
+                // Only grow while the limit is actually used
+                limit = Math.min(maxLimit, limit + 1 / limit);
+        }
+
+        /** Hands free slots to the waiting requests, skipping the ones that timed out or were cancelled meanwhile. */
+        private void grant() {
+            while (true) {
+                CompletableFuture<Permit> waiter;
+                lock.lock();
+                try {
+                    if (inFlight >= (int) limit || waiting.isEmpty())
+                        return;
+                    waiter = waiting.poll();
+                    inFlight++;
+                } finally {
+                    lock.unlock();
+                }
+                var permit = new Permit(this);
+                if (!waiter.complete(permit))
+                    permit.cancel();
+            }
+        }
+
+    }
+
+    /** A slot for one exchange, which must be released exactly once. */
+    static final class Permit {
+
+        private final Host host;
+        private final long start = System.nanoTime();
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Permit(Host host) {
+            this.host = host;
+        }
+
+        /** Frees the slot after the exchange completed with the response or failed. */
+        void release(HttpResponse<?> response, Throwable failure) {
+            if (failure instanceof CancellationException) {
+                cancel();
+                return;
+            }
+            var overloaded = failure instanceof IOException
+                             || response != null && (response.statusCode() == 429 || response.statusCode() == 503);
+            if (released.compareAndSet(false, true))
+                host.release(System.nanoTime() - start, overloaded);
+        }
+
+        /** Frees the slot without affecting the limit, because the exchange didn't happen or was cancelled. */
+        void cancel() {
+            if (released.compareAndSet(false, true))
+                host.release(-1, false);
+        }
+
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,312 @@
+package de.trinext.framework.util.net;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.http.HttpClient.Version;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.net.http.HttpResponse.ResponseInfo;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.*;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow.Subscription;
+import java.util.zip.CRC32;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+import java.util.zip.ZipException;
+
+/**
+ * Decompresses {@code gzip} and {@code deflate} encoded bodies while they arrive and passes the plain bytes to another {@link BodyHandler}.
+ * <p>
+ * The {@link java.net.http.HttpClient} neither asks for compressed bodies nor decompresses them.
+ * {@link #withAcceptEncoding(HttpRequest)} asks for them and this handler decompresses them chunk by chunk,
+ * so the compressed body is never buffered as a whole. Bodies with any other encoding are passed on unchanged.
+ * The wrapped handler sees the response without {@code Content-Encoding} and {@code Content-Length}, as they describe the compressed body.
+ * <pre>{@code
+ * var request = DecompressingBodyHandler.withAcceptEncoding(HttpRequest.newBuilder(uri).build());
+ * var body = client.send(request, DecompressingBodyHandler.of(BodyHandlers.ofString())).body();
+ * }</pre>
+ *
+ * @param <T> the type of the body
+ * @author Dennis Woithe
+ * @see HttpBuilder.HttpBuilderRequestWithBody#withDecompression()
+ */
+@SuppressWarnings({"unused", "WeakerAccess", "HardCodedStringLiteral"})
+public final class DecompressingBodyHandler<T> implements BodyHandler<T> {
+
+    /** The encodings this handler decompresses, as value of {@code Accept-Encoding}. */
+    public static final String ACCEPT_ENCODING = "gzip, deflate";
+
+    /** Size of the arrays the decompressed bytes are written to. */
+    private static final int CHUNK_SIZE = 16 * 1024;
+    /** Gzip headers longer than this are rejected, they only grow that big by a name or comment. */
+    private static final int MAX_HEADER_LENGTH = 64 * 1024;
+
+    private final BodyHandler<T> downstream;
+
+    private DecompressingBodyHandler(BodyHandler<T> downstream) {
+        this.downstream = downstream;
+    }
+
+    /** Wraps the handler, so it receives the decompressed body. */
+    public static <T> DecompressingBodyHandler<T> of(BodyHandler<T> handler) {
+        return new DecompressingBodyHandler<>(Objects.requireNonNull(handler, "BodyHandler must not be null"));
+    }
+
+    /** Returns a copy of the request that accepts the encodings of this handler, unless it already sets {@code Accept-Encoding}. */
+    public static HttpRequest withAcceptEncoding(HttpRequest request) {
+        var name = HttpRequestHeaderField.ACCEPT_ENCODING.getFieldName();
+        if (request.headers().firstValue(name).isPresent())
+            return request;
+        return HttpRequest.newBuilder(request, (key, value) -> true).header(name, ACCEPT_ENCODING).build();
+    }
+
+    @Override
+    public BodySubscriber<T> apply(ResponseInfo responseInfo) {
+        var encoding = responseInfo.headers().firstValue(HttpResponseHeaderField.CONTENT_ENCODING.getFieldName())
+                .map(value -> value.trim().toLowerCase(Locale.ROOT))
+                .orElse("");
+        return switch (encoding) {
+            case "gzip", "x-gzip" -> new DecompressingSubscriber<>(downstream.apply(decoded(responseInfo)), true);
+            case "deflate" -> new DecompressingSubscriber<>(downstream.apply(decoded(responseInfo)), false);
+            default -> downstream.apply(responseInfo);
+        };
+    }
+
+    /** The response info without the headers of the compressed body. */
+    private static ResponseInfo decoded(ResponseInfo info) {
+        var headers = HttpHeaders.of(info.headers().map(), (name, value) ->
+                !name.equalsIgnoreCase(HttpResponseHeaderField.CONTENT_ENCODING.getFieldName())
+                && !name.equalsIgnoreCase(HttpResponseHeaderField.CONTENT_LENGTH.getFieldName()));
+        return new DecodedInfo(info.statusCode(), headers, info.version());
+    }
+
+    private record DecodedInfo(int statusCode, HttpHeaders headers, Version version) implements ResponseInfo { }
+
+    /**
+     * Inflates the received buffers and passes the output on.
+     * A gzip body may consist of several members, each with its own header and trailer.
+     */
+    private static final class DecompressingSubscriber<T> implements BodySubscriber<T> {
+
+        private enum State { HEADER, BODY, TRAILER }
+
+        private final BodySubscriber<T> downstream;
+        private final boolean gzip;
+        private final CRC32 crc = new CRC32();
+        private Inflater inflater;
+        private Subscription subscription;
+        private State state;
+        /** Collects a gzip header or trailer until it's complete. */
+        private byte[] pending = new byte[32];
+        private int pendingLength;
+        /** Whether any compressed byte arrived, an empty body is passed on as empty. */
+        private boolean received;
+        private boolean failed;
+
+        DecompressingSubscriber(BodySubscriber<T> downstream, boolean gzip) {
+            this.downstream = downstream;
+            this.gzip = gzip;
+            state = gzip ? State.HEADER : State.BODY;
+        }
+
+        @Override
+        public CompletionStage<T> getBody() {
+            return downstream.getBody();
+        }
+
+        @Override
+        public void onSubscribe(Subscription upstream) {
+            subscription = upstream;
+            downstream.onSubscribe(upstream);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> buffers) {
+            if (failed)
+                return;
+            var output = new ArrayList<ByteBuffer>();
+            try {
+                for (var buffer : buffers)
+                    decode(buffer, output);
+            } catch (IOException e) {
+                fail(e);
+                return;
+            }
+            if (output.isEmpty())
+                // The item that consumed the demand of the downstream produced nothing
+                subscription.request(1);
+            else
+                downstream.onNext(output);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (inflater != null)
+                inflater.end();
+            if (!failed)
+                downstream.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            if (failed)
+                return;
+            var complete = !received || (gzip ? state == State.HEADER && pendingLength == 0 : inflater != null && inflater.finished());
+            if (inflater != null)
+                inflater.end();
+            if (complete)
+                downstream.onComplete();
+            else
+                downstream.onError(new EOFException("Compressed body ended unexpectedly"));
+        }
+
+        private void fail(IOException exception) {
+            failed = true;
+            subscription.cancel();
+            if (inflater != null)
+                inflater.end();
+            downstream.onError(exception);
+        }
+
+        private void decode(ByteBuffer input, List<ByteBuffer> output) throws IOException {
+            while (input.hasRemaining()) {
+                received = true;
+                switch (state) {
+                    case HEADER -> {
+                        collect(input);
+                        var length = gzipHeaderLength();
+                        if (length < 0) {
+                            if (pendingLength > MAX_HEADER_LENGTH)
+                                throw new ZipException("Gzip header is too long");
+                            continue;
+                        }
+                        // Bytes collected after the header belong to the body
+                        var rest = ByteBuffer.wrap(Arrays.copyOfRange(pending, length, pendingLength));
+                        pendingLength = 0;
+                        startInflater(true);
+                        decode(rest, output);
+                    }
+                    case BODY -> {
+                        if (inflater == null)
+                            startInflater(isZlibHeader(input.get(input.position())));
+                        inflate(input, output);
+                    }
+                    case TRAILER -> {
+                        collect(input, Integer.BYTES * 2 - pendingLength);
+                        if (pendingLength == Integer.BYTES * 2)
+                            checkTrailer();
+                    }
+                }
+            }
+        }
+
+        private void startInflater(boolean wrapped) {
+            if (inflater == null)
+                inflater = new Inflater(gzip || !wrapped);
+            else
+                inflater.reset();
+            crc.reset();
+            state = State.BODY;
+        }
+
+        /** Inflates all of the input or up to the end of the compressed data. */
+        private void inflate(ByteBuffer input, List<ByteBuffer> output) throws IOException {
+            inflater.setInput(input);
+            var chunk = new byte[CHUNK_SIZE];
+            var length = 0;
+            try {
+                while (!inflater.finished()) {
+                    var count = inflater.inflate(chunk, length, chunk.length - length);
+                    if (count == 0) {
+                        if (inflater.needsDictionary())
+                            throw new ZipException("Deflate streams with preset dictionary are not supported");
+                        if (inflater.needsInput())
+                            break;
+                    }
+                    crc.update(chunk, length, count);
+                    length += count;
+                    if (length == chunk.length) {
+                        output.add(ByteBuffer.wrap(chunk));
+                        chunk = new byte[CHUNK_SIZE];
+                        length = 0;
+                    }
+                }
+            } catch (DataFormatException e) {
+                throw new ZipException(e.getMessage());
+            }
+            if (length > 0)
+                output.add(ByteBuffer.wrap(chunk, 0, length));
+            if (inflater.finished()) {
+                if (gzip)
+                    state = State.TRAILER;
+                else if (input.hasRemaining())
+                    throw new ZipException("Unexpected bytes after the deflate stream");
+            }
+        }
+
+        private void checkTrailer() throws ZipException {
+            var trailer = ByteBuffer.wrap(pending, 0, Integer.BYTES * 2).order(ByteOrder.LITTLE_ENDIAN);
+            if (Integer.toUnsignedLong(trailer.getInt()) != crc.getValue())
+                throw new ZipException("Gzip CRC mismatch");
+            if (trailer.getInt() != (int) inflater.getBytesWritten())
+                throw new ZipException("Gzip size mismatch");
+            pendingLength = 0;
+            // Another member may follow
+            state = State.HEADER;
+        }
+
+        private void collect(ByteBuffer input) {
+            collect(input, input.remaining());
+        }
+
+        private void collect(ByteBuffer input, int max) {
+            var count = Math.min(max, input.remaining());
+            if (pendingLength + count > pending.length)
+                pending = Arrays.copyOf(pending, Math.max(pending.length * 2, pendingLength + count));
+            input.get(pending, pendingLength, count);
+            pendingLength += count;
+        }
+
+        /**
+         * The length of the gzip header at the start of the collected bytes or -1 if it's incomplete.
+         * See RFC 1952, section 2.3.
+         */
+        private int gzipHeaderLength() throws ZipException {
+            if (pendingLength < 10)
+                return -1;
+            if ((pending[0] & 0xFF) != 0x1F || (pending[1] & 0xFF) != 0x8B)
+                throw new ZipException("Not in gzip format");
+            if (pending[2] != 8)
+                throw new ZipException("Unsupported gzip compression method: " + pending[2]);
+            var flags = pending[3];
+            var position = 10;
+            if ((flags & 4) != 0) {
+                if (pendingLength < position + 2)
+                    return -1;
+                position += 2 + ((pending[position] & 0xFF) | (pending[position + 1] & 0xFF) << 8);
+            }
+            for (var flag : new int[]{8, 16}) {
+                if ((flags & flag) == 0)
+                    continue;
+                while (position < pendingLength && pending[position] != 0)
+                    position++;
+                if (position++ >= pendingLength)
+                    return -1;
+            }
+            if ((flags & 2) != 0)
+                position += 2;
+            return position <= pendingLength ? position : -1;
+        }
+
+        /** Whether a deflate body starts with a zlib header, some servers send raw deflate data instead. */
+        private static boolean isZlibHeader(byte first) {
+            return (first & 0x0F) == 8 && (first & 0xFF) >>> 4 <= 7;
+        }
+
+    }
+
+}
\ No newline at end of file
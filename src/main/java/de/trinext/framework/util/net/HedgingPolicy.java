@@ -0,0 +1,100 @@
+package de.trinext.framework.util.net;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides when an idempotent request is sent a second time while the first one is still running.
+ * Whichever response arrives first is used, the other exchange is cancelled.
+ * This cuts the latency of the slowest requests for a few percent more load.
+ * <p>
+ * With {@link #atPercentile(double, Duration)} the delay follows the latencies observed per host,
+ * so with {@code 0.95} only the slowest 5% of the requests are hedged.
+ * Instances are thread-safe and meant to be shared by all requests to the same servers.
+ *
+ * @author Dennis Woithe
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class HedgingPolicy {
+
+    /** Latencies kept per host. */
+    private static final int WINDOW_SIZE = 256;
+    /** The percentile is recomputed after this many new latencies. */
+    private static final int RECOMPUTE_INTERVAL = 32;
+
+    private final double percentile;
+    private final long initialDelayNanos;
+    private final Map<String, LatencyWindow> windows = new ConcurrentHashMap<>();
+
+    private HedgingPolicy(double percentile, long initialDelayNanos) {
+        this.percentile = percentile;
+        this.initialDelayNanos = initialDelayNanos;
+    }
+
+    /**
+     * Hedges every request that didn't complete after the fixed delay.
+     *
+     * @throws IllegalArgumentException if the delay is negative.
+     */
+    public static HedgingPolicy after(Duration delay) {
+        if (delay.isNegative())
+            throw new IllegalArgumentException("Delay must not be negative: " + delay);
+        return new HedgingPolicy(Double.NaN, delay.toNanos());
+    }
+
+    /**
+     * Hedges every request that takes longer than the passed percentile of the last latencies of its host,
+     * e.g. {@code 0.95} for the p95. Until enough latencies are observed, the initial delay is used.
+     *
+     * @throws IllegalArgumentException if the percentile is not in (0, 1) or the initial delay is negative.
+     */
+    public static HedgingPolicy atPercentile(double percentile, Duration initialDelay) {
+        if (!(percentile > 0 && percentile < 1))
+            throw new IllegalArgumentException("Percentile must be in (0, 1): " + percentile);
+        if (initialDelay.isNegative())
+            throw new IllegalArgumentException("Initial delay must not be negative: " + initialDelay);
+        return new HedgingPolicy(percentile, initialDelay.toNanos());
+    }
+
+    /** The current delay before a request to the host is hedged. */
+    public Duration delayFor(String host) {
+        if (Double.isNaN(percentile))
+            return Duration.ofNanos(initialDelayNanos);
+        var window = windows.get(host);
+        var delay = window == null ? -1 : window.percentileNanos;
+        return Duration.ofNanos(delay < 0 ? initialDelayNanos : delay);
+    }
+
+    /** Records the latency of a successful request to the host, measured from the start of its first exchange. */
+    void record(String host, long latencyNanos) {
+        if (!Double.isNaN(percentile))
+            windows.computeIfAbsent(host, ignored -> new LatencyWindow()).record(latencyNanos, percentile);
+    }
+
+    /**
+     * The last latencies of one host in a ring buffer.
+     * Concurrent writers may overwrite each other's latencies, which is fine for an estimate.
+     */
+    private static final class LatencyWindow {
+
+        private final long[] latencies = new long[WINDOW_SIZE];
+        private final AtomicLong count = new AtomicLong();
+        /** -1 until the window was filled once. */
+        private volatile long percentileNanos = -1;
+
+        void record(long latencyNanos, double percentile) {
+            var index = count.getAndIncrement();
+            latencies[(int) (index % WINDOW_SIZE)] = latencyNanos;
+            if (index + 1 >= WINDOW_SIZE && (index + 1) % RECOMPUTE_INTERVAL == 0) {
+                var sorted = latencies.clone();
+                Arrays.sort(sorted);
+                percentileNanos = sorted[(int) Math.ceil(percentile * WINDOW_SIZE) - 1];
+            }
+        }
+
+    }
+
+}
\ No newline at end of file
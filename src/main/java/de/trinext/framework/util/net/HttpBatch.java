@@ -0,0 +1,106 @@
+package de.trinext.framework.util.net;
+
+import java.net.http.HttpRequest;
+import java.util.*;
+import java.util.concurrent.*;
+import java.util.stream.Stream;
+
+import de.trinext.framework.util.net.HttpBuilder.HttpBuilderRequestWithBody;
+
+/**
+ * Sends many prepared requests concurrently, each on its own virtual thread,
+ * with at most a fixed number of requests in flight per host.
+ * The results are streamed back in the order the requests complete:
+ * <pre>{@code
+ * var batch = HttpBatch.withMaxInFlightPerHost(32);
+ * batch.execute(ids.stream()
+ *                 .map(id -> HttpBuilder.forUrl("https://api.example.com/items/" + id)
+ *                         .withMethod(HttpMethod.GET)
+ *                         .expectBody(BodyHandlers.ofString()))
+ *                 .toList())
+ *         .forEach(result -> ...);
+ * }</pre>
+ * The limit is shared by all batches executed on the same instance. Instances are thread-safe.
+ *
+ * @author Dennis Woithe
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class HttpBatch {
+
+    private static final ThreadFactory VIRTUAL_THREADS = Thread.ofVirtual().name("http-batch-", 0).factory();
+
+    private final int maxInFlightPerHost;
+    private final Map<String, Semaphore> inFlight = new ConcurrentHashMap<>();
+
+    private HttpBatch(int maxInFlightPerHost) {
+        this.maxInFlightPerHost = maxInFlightPerHost;
+    }
+
+    /**
+     * Creates a batch executor that sends at most {@code maxInFlightPerHost} requests to the same host at once.
+     *
+     * @throws IllegalArgumentException if the limit is not positive.
+     */
+    public static HttpBatch withMaxInFlightPerHost(int maxInFlightPerHost) {
+        if (maxInFlightPerHost <= 0)
+            throw new IllegalArgumentException("Max in-flight requests per host must be positive: " + maxInFlightPerHost);
+        return new HttpBatch(maxInFlightPerHost);
+    }
+
+    /**
+     * Starts sending all requests and returns their results in completion order.
+     * The requests are sent even if the stream isn't consumed.
+     * Taking the next result blocks until one more request has completed.
+     */
+    public <T> Stream<Result<T>> execute(Collection<? extends HttpBuilderRequestWithBody<T>> requests) {
+        var results = new LinkedBlockingQueue<Result<T>>();
+        for (var request : requests)
+            VIRTUAL_THREADS.newThread(() -> results.add(execute(request))).start();
+        return Stream.generate(() -> take(results)).limit(requests.size());
+    }
+
+    private <T> Result<T> execute(HttpBuilderRequestWithBody<T> request) {
+        var host = inFlight.computeIfAbsent(request.request().uri().getAuthority(), ignored -> new Semaphore(maxInFlightPerHost));
+        try {
+            host.acquire();
+            try {
+                return new Result<>(request.request(), request.bodyOf(request.exchange()), null);
+            } finally {
+                host.release();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return new Result<>(request.request(), null, e);
+        } catch (@SuppressWarnings("OverlyBroadCatchBlock") Throwable t) {
+            // Errors too, as the consumer waits for a result of every request
+            return new Result<>(request.request(), null, t);
+        }
+    }
+
+    private static <T> Result<T> take(BlockingQueue<Result<T>> results) {
+        try {
+            return results.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new CancellationException("Interrupted while waiting for the next result");
+        }
+    }
+
+    /**
+     * The outcome of one request of a batch.
+     *
+     * @param request The sent request.
+     * @param body    The body, or null if the request failed.
+     * @param failure The exception of the client, the one registered by {@link HttpBuilderRequestWithBody#throwIfCode}
+     *                or an error thrown while sending, or null.
+     */
+    public record Result<T>(HttpRequest request, T body, Throwable failure) {
+
+        /** Whether a response was received and no exception was registered for its status code. */
+        public boolean isSuccess() {
+            return failure == null;
+        }
+
+    }
+
+}
\ No newline at end of file
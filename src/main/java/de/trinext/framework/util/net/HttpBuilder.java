@@ -1,12 +1,15 @@
 package de.trinext.framework.util.net;
 
+import java.io.IOException;
 import java.net.URI;
 import java.net.http.*;
-import java.net.http.HttpClient.Redirect;
 import java.net.http.HttpRequest.*;
 import java.net.http.HttpResponse.BodyHandler;
-import java.time.Duration;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.nio.ByteBuffer;
 import java.util.*;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.function.Function;
 import java.util.function.Supplier;
 
@@ -34,13 +37,26 @@ import java.util.function.Supplier;
 @SuppressWarnings({"unused", "WeakerAccess", "PublicInnerClass"})
 public final class HttpBuilder {
 
-    public static final HttpClient DEFAULT_CLIENT = HttpClient.newBuilder()
-            .followRedirects(Redirect.ALWAYS)
-            .connectTimeout(Duration.ofSeconds(10))
-            .build();
+    /**
+     * The client for all hosts without a registered profile in {@link HttpClientRegistry#DEFAULT}.
+     *
+     * @see HttpClientRegistry.Profile#DEFAULT
+     */
+    public static final HttpClient DEFAULT_CLIENT = HttpClientRegistry.Profile.DEFAULT.newClient();
+
+    /** Observes the requests that don't set an instrumentation of their own, or null. */
+    private static volatile HttpInstrumentation defaultInstrumentation;
 
     private HttpBuilder() { }
 
+    /**
+     * Sets the instrumentation of all requests that don't set one with {@link HttpBuilderRequestWithBody#withInstrumentation}.
+     * Pass null to remove it.
+     */
+    public static void setDefaultInstrumentation(HttpInstrumentation instrumentation) {
+        defaultInstrumentation = instrumentation;
+    }
+
     /**
      * Set the {@link URI} used for the request. For example:
      * <pre>{@code
@@ -52,7 +68,9 @@ public final class HttpBuilder {
     }
 
     /**
-     * Set the {@link URI} used for the request. For example:
+     * Set the {@link URI} used for the request.
+     * The client and the request timeout are the ones registered for its host in {@link HttpClientRegistry#DEFAULT}.
+     * For example:
      * <pre>{@code
      * HttpBuilder.forUrl(new UrlQueryBuilder("https://www.example.com", "/status")
      *        .param("personal", true)
@@ -152,6 +170,7 @@ public final class HttpBuilder {
          * Adds the headers to the {@link Builder} and returns a {@link HttpBuilderRequest}.
          */
         private HttpBuilderRequest addHeadersTo(Builder builder) {
+            HttpClientRegistry.DEFAULT.profileFor(myUrl).requestTimeout().ifPresent(builder::timeout);
             myHeaders.forEach(builder::header);
             return new HttpBuilderRequest(builder.build());
         }
@@ -178,20 +197,47 @@ public final class HttpBuilder {
 
     public static class HttpBuilderRequestWithBody<T> {
 
-        private HttpClient client = DEFAULT_CLIENT;
+        private HttpClient client;
         private final HttpRequest request;
         private final BodyHandler<T> bodyHandler;
 
-        private final Map<Integer, Function<HttpResponse<T>, ? extends RuntimeException>> codeExceptions = new HashMap<>();
+        private Map<Integer, Function<HttpResponse<T>, ? extends RuntimeException>> codeExceptions = new HashMap<>();
+        /** Whether the code exceptions are the immutable ones of a template, which are copied before they are changed. */
+        private boolean sharedCodeExceptions;
+
+        private RetryPolicy retryPolicy;
+        private HedgingPolicy hedgingPolicy;
+        private HttpResponseCache cache;
+        private RequestCoalescer coalescer;
+        private boolean decompress;
+        private HttpInstrumentation instrumentation;
+        private RateLimiter rateLimiter;
+        private ConcurrencyLimiter concurrencyLimiter;
 
         public HttpBuilderRequestWithBody(HttpRequest request, BodyHandler<T> bodyHandler) {
             this.request = Objects.requireNonNull(request, "HttpRequest must not be null");
             this.bodyHandler = Objects.requireNonNull(bodyHandler, "BodyHandler must not be null");
         }
 
+        /** Creates a request with all settings of the passed one, sharing its code exceptions as an immutable map. */
+        HttpBuilderRequestWithBody(HttpRequest request, HttpBuilderRequestWithBody<T> settings) {
+            this(request, settings.bodyHandler);
+            client = settings.client;
+            codeExceptions = settings.sharedCodeExceptions ? settings.codeExceptions : Map.copyOf(settings.codeExceptions);
+            sharedCodeExceptions = true;
+            retryPolicy = settings.retryPolicy;
+            hedgingPolicy = settings.hedgingPolicy;
+            cache = settings.cache;
+            coalescer = settings.coalescer;
+            decompress = settings.decompress;
+            instrumentation = settings.instrumentation;
+            rateLimiter = settings.rateLimiter;
+            concurrencyLimiter = settings.concurrencyLimiter;
+        }
 
         /**
-         * Sets the {@link HttpClient} used for the request. If not set, {@link #DEFAULT_CLIENT} is used.
+         * Sets the {@link HttpClient} used for the request.
+         * If not set, the client registered for the host in {@link HttpClientRegistry#DEFAULT} is used.
          */
         public HttpBuilderRequestWithBody<T> setClient(HttpClient httpClient) {
             client = Objects.requireNonNull(httpClient, "HttpClient must not be null");
@@ -209,26 +255,451 @@ public final class HttpBuilder {
          * Throws the given exception if the response code matches.
          */
         public HttpBuilderRequestWithBody<T> throwIfCode(int code, Function<HttpResponse<T>, ? extends RuntimeException> function) {
+            if (sharedCodeExceptions) {
+                codeExceptions = new HashMap<>(codeExceptions);
+                sharedCodeExceptions = false;
+            }
             codeExceptions.put(code, function);
             return this;
         }
 
+        /**
+         * Sends the request again if it fails as specified by the policy.
+         * A response whose status code is retried doesn't reach {@link #throwIfCode} unless it's the last attempt.
+         */
+        public HttpBuilderRequestWithBody<T> withRetry(RetryPolicy policy) {
+            retryPolicy = Objects.requireNonNull(policy, "RetryPolicy must not be null");
+            return this;
+        }
+
+        /**
+         * Sends an idempotent request a second time if it didn't complete after the delay of the policy
+         * and uses whichever response arrives first. Requests with non-idempotent methods are never hedged.
+         */
+        public HttpBuilderRequestWithBody<T> withHedging(HedgingPolicy policy) {
+            hedgingPolicy = Objects.requireNonNull(policy, "HedgingPolicy must not be null");
+            return this;
+        }
+
+        /**
+         * Answers GET requests from the cache while the cached response is fresh and revalidates it afterward.
+         * Retries and hedging only apply to the requests that actually go over the network.
+         */
+        public HttpBuilderRequestWithBody<T> withCache(HttpResponseCache responseCache) {
+            cache = Objects.requireNonNull(responseCache, "HttpResponseCache must not be null");
+            return this;
+        }
+
+        /**
+         * Lets this request share the exchange of an identical request that is in flight.
+         * The body handler is part of the identity, so identical requests must use the same handler instance.
+         *
+         * @see RequestCoalescer
+         */
+        public HttpBuilderRequestWithBody<T> withCoalescing(RequestCoalescer requestCoalescer) {
+            coalescer = Objects.requireNonNull(requestCoalescer, "RequestCoalescer must not be null");
+            return this;
+        }
+
+        /**
+         * Asks for a gzip or deflate compressed body and decompresses it while it arrives,
+         * so the body handler receives the plain bytes.
+         *
+         * @see DecompressingBodyHandler
+         */
+        public HttpBuilderRequestWithBody<T> withDecompression() {
+            decompress = true;
+            return this;
+        }
+
+        /**
+         * Reports every exchange of this request to the instrumentation instead of the default one.
+         *
+         * @see HttpMetrics
+         */
+        public HttpBuilderRequestWithBody<T> withInstrumentation(HttpInstrumentation observer) {
+            instrumentation = Objects.requireNonNull(observer, "HttpInstrumentation must not be null");
+            return this;
+        }
+
+        /**
+         * Waits for the rate limiter before every exchange over the network, including retries and hedged requests,
+         * and pauses the limiter when the server answers {@code 429 Too Many Requests}.
+         * If the limiter rejects the request, it fails with a {@link RejectedExecutionException}.
+         *
+         * @see RateLimiter
+         */
+        public HttpBuilderRequestWithBody<T> withRateLimit(RateLimiter limiter) {
+            rateLimiter = Objects.requireNonNull(limiter, "RateLimiter must not be null");
+            return this;
+        }
+
+        /**
+         * Holds a slot of the limiter during every exchange over the network, including retries and hedged requests.
+         * If the limiter rejects the request, it fails with a {@link RejectedExecutionException}.
+         *
+         * @see ConcurrencyLimiter
+         */
+        public HttpBuilderRequestWithBody<T> withConcurrencyLimit(ConcurrencyLimiter limiter) {
+            concurrencyLimiter = Objects.requireNonNull(limiter, "ConcurrencyLimiter must not be null");
+            return this;
+        }
+
+        /**
+         * Freezes the URI, headers, client, body handler and all settings of this request into a template,
+         * which stamps out requests that only differ in path, method and body.
+         * Later changes to this request don't affect the template.
+         *
+         * @see HttpRequestTemplate
+         */
+        public HttpRequestTemplate<T> toTemplate() {
+            return new HttpRequestTemplate<>(new HttpBuilderRequestWithBody<>(request, this));
+        }
+
         /**
          * Sends the request and tries to return the body.
          */
         public Optional<T> send() {
             HttpResponse<T> response;
             try {
-                var myClient = client == null ? DEFAULT_CLIENT : client;
-                response = myClient.send(request, bodyHandler);
+                response = exchange();
             } catch (@SuppressWarnings("OverlyBroadCatchBlock") Exception e) {
                 return Optional.empty();
             }
-            if (codeExceptions.containsKey(response.statusCode()))
-                throw codeExceptions.get(response.statusCode()).apply(response);
-            return Optional.ofNullable(response.body());
+            return Optional.ofNullable(bodyOf(response));
+        }
+
+        /**
+         * Sends the request without blocking the calling thread and completes with the body.
+         * Unlike {@link #send()} no failure is swallowed: the future completes exceptionally
+         * with the exception of the {@link HttpClient} or the one registered by {@link #throwIfCode}.
+         * <pre>{@code
+         * var futures = urls.stream()
+         *         .map(url -> HttpBuilder.forUrl(url).withMethod(HttpMethod.GET).expectBody(BodyHandlers.ofString()).sendAsync())
+         *         .toList();
+         * }</pre>
+         */
+        public CompletableFuture<T> sendAsync() {
+            return exchangeAsync().thenApply(this::bodyOf);
+        }
+
+        /** The request that is sent. */
+        HttpRequest request() {
+            return request;
         }
 
+        /**
+         * Sends the request on the calling thread without swallowing any failure.
+         */
+        HttpResponse<T> exchange() throws IOException, InterruptedException {
+            if (retryPolicy == null && hedgingPolicy == null && cache == null && coalescer == null && rateLimiter == null
+                && concurrencyLimiter == null && instrumentation() == null)
+                return decompress
+                       ? client().send(DecompressingBodyHandler.withAcceptEncoding(request), DecompressingBodyHandler.of(bodyHandler))
+                       : client().send(request, bodyHandler);
+            var exchange = exchangeAsync();
+            try {
+                return exchange.get();
+            } catch (ExecutionException e) {
+                throw rethrow(e.getCause());
+            } catch (InterruptedException e) {
+                exchange.cancel(true);
+                throw e;
+            }
+        }
+
+        /**
+         * Sends the request with all configured policies and completes with the final response.
+         */
+        CompletableFuture<HttpResponse<T>> exchangeAsync() {
+            if (coalescer == null)
+                return cachedAsync(request, bodyHandler);
+            return coalescer.exchange(request, bodyHandler, this::cachedAsync);
+        }
+
+        /** Answers the request from the cache if there is one, otherwise sends it over the network. */
+        private CompletableFuture<HttpResponse<T>> cachedAsync(HttpRequest request, BodyHandler<T> bodyHandler) {
+            if (cache == null)
+                return networkAsync(request, bodyHandler);
+            return cache.exchange(request, bodyHandler, this::networkAsync);
+        }
+
+        /** Sends the request over the network with the retry and hedging policies. */
+        private CompletableFuture<HttpResponse<T>> networkAsync(HttpRequest request, BodyHandler<T> bodyHandler) {
+            var sent = decompress ? DecompressingBodyHandler.withAcceptEncoding(request) : request;
+            var handler = decompress ? DecompressingBodyHandler.of(bodyHandler) : bodyHandler;
+            if (retryPolicy == null)
+                return hedgedAsync(sent, handler);
+            retryPolicy.onRequest();
+            var result = new CompletableFuture<HttpResponse<T>>();
+            attemptAsync(sent, handler, 1, result);
+            return result;
+        }
+
+        /**
+         * Sends the attempt with the passed number and retries it, if the policy says so, until the result completes.
+         * Cancelling the result cancels the attempt in flight and the scheduled retry.
+         */
+        private void attemptAsync(HttpRequest request, BodyHandler<T> bodyHandler, int attempt, CompletableFuture<HttpResponse<T>> result) {
+            // Cancelled while waiting for the retry
+            if (result.isDone())
+                return;
+            var exchange = hedgedAsync(request, bodyHandler);
+            result.whenComplete((response, failure) -> exchange.cancel(true));
+            exchange.whenComplete((response, failure) -> {
+                var cause = failure == null ? null : unwrap(failure);
+                // Cancelled while the attempt was in flight
+                if (result.isDone()) {
+                    discard(response);
+                    return;
+                }
+                if (retryPolicy.shouldRetry(request, attempt, response, cause)) {
+                    var delay = retryPolicy.delayAfter(attempt, response).toNanos();
+                    discard(response);
+                    CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS).execute(() -> attemptAsync(request, bodyHandler, attempt + 1, result));
+                } else if (cause != null)
+                    result.completeExceptionally(cause);
+                else if (!result.complete(response))
+                    discard(response);
+            });
+        }
+
+        /**
+         * Sends the request and, if hedging applies, a second one after the delay of the policy.
+         * Completes with the first response or the failure of the last exchange and cancels the others.
+         */
+        private CompletableFuture<HttpResponse<T>> hedgedAsync(HttpRequest request, BodyHandler<T> bodyHandler) {
+            if (hedgingPolicy == null || !HttpMethod.isIdempotent(request.method()))
+                return transportAsync(request, bodyHandler);
+            var host = request.uri().getAuthority();
+            var result = new CompletableFuture<HttpResponse<T>>();
+            var exchanges = new CopyOnWriteArrayList<CompletableFuture<HttpResponse<T>>>();
+            var pending = new AtomicInteger(1);
+            // The latency the caller sees, even if the hedge wins, so the recorded percentiles don't shrink
+            var begin = System.nanoTime();
+            Runnable start = () -> {
+                var exchange = transportAsync(request, bodyHandler);
+                exchanges.add(exchange);
+                // Started after the others were cancelled
+                if (result.isDone())
+                    exchange.cancel(true);
+                exchange.whenComplete((response, failure) -> {
+                    if (failure == null) {
+                        if (result.complete(response))
+                            hedgingPolicy.record(host, System.nanoTime() - begin);
+                        else
+                            discard(response);
+                    } else if (pending.decrementAndGet() == 0)
+                        result.completeExceptionally(unwrap(failure));
+                });
+            };
+            start.run();
+            var delay = hedgingPolicy.delayFor(host).toNanos();
+            CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS).execute(() -> {
+                if (!result.isDone()) {
+                    pending.incrementAndGet();
+                    start.run();
+                }
+            });
+            // The winner is already done, so this only cancels the losers
+            result.whenComplete((response, failure) -> exchanges.forEach(exchange -> exchange.cancel(true)));
+            return result;
+        }
+
+        /** Sends one exchange over the network once the rate limiter has a token and the concurrency limiter a slot for it. */
+        private CompletableFuture<HttpResponse<T>> transportAsync(HttpRequest request, BodyHandler<T> bodyHandler) {
+            if (rateLimiter == null && concurrencyLimiter == null)
+                return observedAsync(request, bodyHandler);
+            var delay = 0L;
+            try {
+                if (rateLimiter != null)
+                    delay = rateLimiter.reserve(request);
+            } catch (RejectedExecutionException e) {
+                return CompletableFuture.failedFuture(e);
+            }
+            var result = new CompletableFuture<HttpResponse<T>>();
+            Runnable start = () -> {
+                // Cancelled while waiting for the token
+                if (result.isDone())
+                    return;
+                if (concurrencyLimiter == null) {
+                    limitedAsync(request, bodyHandler, result, null);
+                    return;
+                }
+                var slot = concurrencyLimiter.acquire(request);
+                result.whenComplete((response, failure) -> slot.cancel(true));
+                slot.whenComplete((permit, failure) -> {
+                    if (failure == null)
+                        limitedAsync(request, bodyHandler, result, permit);
+                    else
+                        result.completeExceptionally(unwrap(failure));
+                });
+            };
+            if (delay == 0)
+                start.run();
+            else
+                CompletableFuture.delayedExecutor(delay, TimeUnit.NANOSECONDS).execute(start);
+            return result;
+        }
+
+        /** Sends the exchange, completes the result with it and releases the permit of the concurrency limiter, if any. */
+        private void limitedAsync(HttpRequest request, BodyHandler<T> bodyHandler, CompletableFuture<HttpResponse<T>> result, ConcurrencyLimiter.Permit permit) {
+            // Cancelled while waiting for the slot
+            if (result.isDone()) {
+                if (permit != null)
+                    permit.cancel();
+                return;
+            }
+            CompletableFuture<HttpResponse<T>> exchange;
+            try {
+                exchange = observedAsync(request, bodyHandler);
+            } catch (RuntimeException e) {
+                if (permit != null)
+                    permit.cancel();
+                result.completeExceptionally(e);
+                return;
+            }
+            result.whenComplete((response, failure) -> exchange.cancel(true));
+            exchange.whenComplete((response, failure) -> {
+                var cause = failure == null ? null : unwrap(failure);
+                if (permit != null)
+                    permit.release(response, cause);
+                if (cause == null) {
+                    if (rateLimiter != null)
+                        rateLimiter.onResponse(request, response);
+                    result.complete(response);
+                } else
+                    result.completeExceptionally(cause);
+            });
+        }
+
+        /** Sends one exchange over the network and reports it to the instrumentation. */
+        private CompletableFuture<HttpResponse<T>> observedAsync(HttpRequest request, BodyHandler<T> bodyHandler) {
+            var observer = instrumentation();
+            if (observer == null)
+                return client().sendAsync(request, bodyHandler);
+            observer.onStart(request);
+            var start = System.nanoTime();
+            CompletableFuture<HttpResponse<T>> exchange;
+            try {
+                exchange = client().sendAsync(request, info -> new CountingSubscriber<>(bodyHandler.apply(info), request, observer));
+            } catch (RuntimeException e) {
+                observer.onFailure(request, e, System.nanoTime() - start);
+                throw e;
+            }
+            exchange.whenComplete((response, failure) -> {
+                if (failure == null)
+                    observer.onComplete(request, response, System.nanoTime() - start);
+                else
+                    observer.onFailure(request, failure, System.nanoTime() - start);
+            });
+            return exchange;
+        }
+
+        private HttpInstrumentation instrumentation() {
+            return instrumentation == null ? defaultInstrumentation : instrumentation;
+        }
+
+        private HttpClient client() {
+            return client == null ? HttpClientRegistry.DEFAULT.clientFor(request.uri()) : client;
+        }
+
+        /**
+         * Throws the exception registered for the status code of the response or returns its body.
+         */
+        T bodyOf(HttpResponse<T> response) {
+            var exceptionFunction = codeExceptions.get(response.statusCode());
+            if (exceptionFunction != null)
+                throw exceptionFunction.apply(response);
+            return response.body();
+        }
+
+    }
+
+    /** Reports the received bytes of a body to the instrumentation. */
+    private record CountingSubscriber<T>(BodySubscriber<T> downstream, HttpRequest request, HttpInstrumentation observer) implements BodySubscriber<T> {
+
+        @Override
+        public CompletionStage<T> getBody() {
+            return downstream.getBody();
+        }
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            downstream.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> buffers) {
+            var bytes = 0L;
+            for (var buffer : buffers)
+                bytes += buffer.remaining();
+            observer.onBytesReceived(request, bytes);
+            downstream.onNext(buffers);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            downstream.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            downstream.onComplete();
+        }
+
+    }
+
+    /**
+     * Releases the connection of a response that is dropped, e.g. for a retry.
+     * Bodies that are read lazily, like an {@link java.io.InputStream} or a {@link Flow.Publisher}, hold it until they are closed.
+     */
+    static void discard(HttpResponse<?> response) {
+        if (response == null)
+            return;
+        var body = response.body();
+        if (body instanceof AutoCloseable closeable) {
+            try {
+                closeable.close();
+            } catch (@SuppressWarnings("OverlyBroadCatchBlock") Exception ignored) {
+                // The response is dropped anyway
+            }
+        } else if (body instanceof Flow.Publisher<?> publisher)
+            publisher.subscribe(new Flow.Subscriber<Object>() {
+                @Override
+                public void onSubscribe(Flow.Subscription subscription) {
+                    subscription.cancel();
+                }
+
+                @Override
+                public void onNext(Object item) { }
+
+                @Override
+                public void onError(Throwable throwable) { }
+
+                @Override
+                public void onComplete() { }
+            });
+    }
+
+    /** Removes the wrappers of {@link CompletableFuture} from a failure. */
+    static Throwable unwrap(Throwable failure) {
+        var cause = failure;
+        while ((cause instanceof CompletionException || cause instanceof ExecutionException) && cause.getCause() != null)
+            cause = cause.getCause();
+        return cause;
+    }
+
+    /** Rethrows the failure of an asynchronous exchange as it would have been thrown by {@link HttpClient#send}. */
+    static IOException rethrow(Throwable failure) {
+        var cause = unwrap(failure);
+        if (cause instanceof IOException ioException)
+            return ioException;
+        if (cause instanceof RuntimeException runtimeException)
+            throw runtimeException;
+        if (cause instanceof Error error)
+            throw error;
+        return new IOException(cause);
     }
 
 }
\ No newline at end of file
@@ -0,0 +1,179 @@
+package de.trinext.framework.util.net;
+
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpClient.Redirect;
+import java.net.http.HttpClient.Version;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Hands out one {@link HttpClient} per {@link Profile}, so all requests to a host reuse the connections of the same client.
+ * <p>
+ * Hosts without a registered profile use the default profile.
+ * {@link HttpBuilder#forUrl(URI)} looks up the client and the request timeout in {@link #DEFAULT},
+ * so registering a host there at startup is enough to configure every request to it:
+ * <pre>{@code
+ * var internal = HttpClientRegistry.Profile.DEFAULT
+ *     .withConnectTimeout(Duration.ofSeconds(1))
+ *     .withRequestTimeout(Duration.ofSeconds(5));
+ * HttpClientRegistry.DEFAULT
+ *     .register("orders.internal", internal)
+ *     .register("stock.internal", internal)
+ *     .prewarm(URI.create("https://orders.internal"), URI.create("https://stock.internal"))
+ *     .join();
+ * }</pre>
+ * Instances are thread-safe.
+ *
+ * @author Dennis Woithe
+ */
+@SuppressWarnings({"unused", "WeakerAccess", "HardCodedStringLiteral"})
+public final class HttpClientRegistry {
+
+    /** The registry used by {@link HttpBuilder}, whose default profile uses {@link HttpBuilder#DEFAULT_CLIENT}. */
+    public static final HttpClientRegistry DEFAULT = new HttpClientRegistry(Profile.DEFAULT);
+
+    private final Profile defaultProfile;
+    private final Map<String, Profile> profiles = new ConcurrentHashMap<>();
+    /** Keyed by identity, as profiles don't implement {@code equals}. */
+    private final Map<Profile, HttpClient> clients = new ConcurrentHashMap<>();
+
+    private HttpClientRegistry(Profile defaultProfile) {
+        this.defaultProfile = defaultProfile;
+    }
+
+    /** Creates a registry whose unregistered hosts use the passed profile. */
+    public static HttpClientRegistry withDefaultProfile(Profile profile) {
+        return new HttpClientRegistry(Objects.requireNonNull(profile, "Profile must not be null"));
+    }
+
+    /**
+     * Uses the profile for all requests to the host, which is compared ignoring case and without port.
+     * Hosts registered with the same profile share one client.
+     *
+     * @throws IllegalArgumentException if the host is null or blank.
+     */
+    public HttpClientRegistry register(String host, Profile profile) {
+        if (host == null || host.isBlank())
+            throw new IllegalArgumentException("Host must not be null or blank");
+        profiles.put(host.toLowerCase(Locale.ROOT), Objects.requireNonNull(profile, "Profile must not be null"));
+        return this;
+    }
+
+    /** The profile registered for the host of the {@link URI} or the default profile. */
+    public Profile profileFor(URI uri) {
+        var host = uri.getHost();
+        return host == null ? defaultProfile : profiles.getOrDefault(host.toLowerCase(Locale.ROOT), defaultProfile);
+    }
+
+    /** The client for the host of the {@link URI}, which is created on first use. */
+    public HttpClient clientFor(URI uri) {
+        var profile = profileFor(uri);
+        if (this == DEFAULT && profile == Profile.DEFAULT)
+            return HttpBuilder.DEFAULT_CLIENT;
+        return clients.computeIfAbsent(profile, Profile::newClient);
+    }
+
+    /**
+     * Opens connections to the origins ahead of the first real request by sending a HEAD request to each of them.
+     * With HTTP/2 the connection is kept and multiplexed by all later requests to the origin.
+     * The future completes when all origins answered or failed, failures are ignored.
+     */
+    public CompletableFuture<Void> prewarm(URI... origins) {
+        var futures = new CompletableFuture<?>[origins.length];
+        for (var i = 0; i < origins.length; i++) {
+            var request = HttpRequest.newBuilder(origins[i]).method(HttpMethod.HEAD.name(), HttpRequest.BodyPublishers.noBody());
+            profileFor(origins[i]).requestTimeout().ifPresent(request::timeout);
+            futures[i] = clientFor(origins[i]).sendAsync(request.build(), BodyHandlers.discarding())
+                    .exceptionally(ignored -> null);
+        }
+        return CompletableFuture.allOf(futures);
+    }
+
+    /**
+     * The settings of a client and the requests sent with it.
+     * By default, it prefers HTTP/2, follows all redirects, connects within 10 seconds, has no request timeout
+     * and runs the client's tasks on virtual threads.
+     * Instances are immutable, the {@code with} methods return a modified copy.
+     */
+    public static final class Profile {
+
+        /** Runs the tasks of all clients created by profiles, which mostly wait on the network. */
+        private static final ExecutorService EXECUTOR = Executors.newVirtualThreadPerTaskExecutor();
+
+        public static final Profile DEFAULT = new Profile(Version.HTTP_2, Redirect.ALWAYS, Duration.ofSeconds(10), null);
+
+        private final Version version;
+        private final Redirect redirect;
+        private final Duration connectTimeout;
+        private final Duration requestTimeout;
+
+        private Profile(Version version, Redirect redirect, Duration connectTimeout, Duration requestTimeout) {
+            this.version = version;
+            this.redirect = redirect;
+            this.connectTimeout = connectTimeout;
+            this.requestTimeout = requestTimeout;
+        }
+
+        /** Sets the preferred HTTP version, the client falls back to HTTP/1.1 if the server doesn't support HTTP/2. */
+        public Profile withVersion(Version preferredVersion) {
+            return new Profile(Objects.requireNonNull(preferredVersion, "Version must not be null"), redirect, connectTimeout, requestTimeout);
+        }
+
+        public Profile withRedirect(Redirect redirectPolicy) {
+            return new Profile(version, Objects.requireNonNull(redirectPolicy, "Redirect must not be null"), connectTimeout, requestTimeout);
+        }
+
+        /**
+         * @throws IllegalArgumentException if the timeout is not positive.
+         */
+        public Profile withConnectTimeout(Duration timeout) {
+            return new Profile(version, redirect, requirePositive(timeout), requestTimeout);
+        }
+
+        /**
+         * Sets the time until a request fails if no response headers arrived.
+         *
+         * @throws IllegalArgumentException if the timeout is not positive.
+         */
+        public Profile withRequestTimeout(Duration timeout) {
+            return new Profile(version, redirect, connectTimeout, requirePositive(timeout));
+        }
+
+        public Version version() {
+            return version;
+        }
+
+        public Duration connectTimeout() {
+            return connectTimeout;
+        }
+
+        public Optional<Duration> requestTimeout() {
+            return Optional.ofNullable(requestTimeout);
+        }
+
+        /** Creates a new client with the settings of this profile. */
+        public HttpClient newClient() {
+            return HttpClient.newBuilder()
+                    .version(version)
+                    .followRedirects(redirect)
+                    .connectTimeout(connectTimeout)
+                    .executor(EXECUTOR)
+                    .build();
+        }
+
+        private static Duration requirePositive(Duration timeout) {
+            if (Objects.requireNonNull(timeout, "Timeout must not be null").isNegative() || timeout.isZero())
+                throw new IllegalArgumentException("Timeout must be positive: " + timeout);
+            return timeout;
+        }
+
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,458 @@
+package de.trinext.framework.util.net;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.net.http.HttpResponse.BodySubscribers;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow.Subscription;
+
+/**
+ * Downloads a resource to a file in several {@code Range} requests at once, which uses more of the bandwidth
+ * than a single connection if the server limits the speed per connection or the latency is high.
+ * <p>
+ * A {@code HEAD} request probes the {@code Content-Length} and whether the server {@code Accept-Ranges}.
+ * If it does, the file is preallocated and split into segments that are fetched concurrently,
+ * each writing its received buffers straight into the file at its offset.
+ * Otherwise, the resource is downloaded in a single request.
+ * <p>
+ * The progress of each segment is recorded next to the file in {@code <file>.download}.
+ * If a download fails, running it again resumes every segment where it stopped,
+ * as long as the {@code ETag} or {@code Last-Modified} of the resource didn't change.
+ * The record is deleted once the download is complete.
+ * <pre>{@code
+ * HttpDownload.of(URI.create("https://repo.example.com/artifact.tar"), Path.of("artifact.tar"))
+ *     .withSegments(8)
+ *     .start()
+ *     .join();
+ * }</pre>
+ *
+ * @author Dennis Woithe
+ */
+@SuppressWarnings({"unused", "WeakerAccess", "HardCodedStringLiteral"})
+public final class HttpDownload {
+
+    private static final int DEFAULT_SEGMENTS = 4;
+    private static final long DEFAULT_MIN_SEGMENT_SIZE = 8L << 20;
+    /** The progress of a segment is recorded after at least this many bytes. */
+    private static final long PROGRESS_INTERVAL = 1L << 20;
+    private static final String PROGRESS_SUFFIX = ".download";
+
+    private final URI uri;
+    private final Path target;
+    private final Map<String, String> headers = new LinkedHashMap<>();
+    private HttpClient client;
+    private int segments = DEFAULT_SEGMENTS;
+    private long minSegmentSize = DEFAULT_MIN_SEGMENT_SIZE;
+
+    private HttpDownload(URI uri, Path target) {
+        this.uri = uri;
+        this.target = target;
+    }
+
+    /** Prepares the download of the resource to the file. */
+    public static HttpDownload of(URI uri, Path target) {
+        return new HttpDownload(
+                Objects.requireNonNull(uri, "Uri must not be null"),
+                Objects.requireNonNull(target, "Target must not be null")
+        );
+    }
+
+    /**
+     * Sets the max number of concurrent range requests, 4 by default.
+     *
+     * @throws IllegalArgumentException if the number is not positive.
+     */
+    public HttpDownload withSegments(int maxSegments) {
+        if (maxSegments <= 0)
+            throw new IllegalArgumentException("Segments must be positive: " + maxSegments);
+        segments = maxSegments;
+        return this;
+    }
+
+    /**
+     * Sets the min size of a segment, 8 MiB by default, so small files are not split into tiny requests.
+     *
+     * @throws IllegalArgumentException if the size is not positive.
+     */
+    public HttpDownload withMinSegmentSize(long bytes) {
+        if (bytes <= 0)
+            throw new IllegalArgumentException("Min segment size must be positive: " + bytes);
+        minSegmentSize = bytes;
+        return this;
+    }
+
+    /**
+     * Adds a header to all requests of the download, e.g. {@code Authorization}.
+     *
+     * @throws IllegalArgumentException if the key or value is null or blank.
+     */
+    public HttpDownload withHeader(String key, String value) {
+        if (key == null || key.isBlank())
+            throw new IllegalArgumentException("Header key must not be null or blank");
+        if (value == null || value.isBlank())
+            throw new IllegalArgumentException("Header value for \"" + key + "\" must not be null or blank");
+        headers.put(key, value);
+        return this;
+    }
+
+    /** Sets the client, by default the one registered for the host in {@link HttpClientRegistry#DEFAULT}. */
+    public HttpDownload withClient(HttpClient httpClient) {
+        client = Objects.requireNonNull(httpClient, "HttpClient must not be null");
+        return this;
+    }
+
+    /**
+     * Starts the download and completes with the file once all bytes are written.
+     * Fails with an {@link IOException} if a response has an unexpected status or the resource changed while downloading.
+     */
+    public CompletableFuture<Path> start() {
+        var probe = request().method(HttpMethod.HEAD.name(), BodyPublishers.noBody()).build();
+        return client().sendAsync(probe, BodyHandlers.discarding()).thenCompose(response -> {
+            var length = response.headers().firstValueAsLong(HttpResponseHeaderField.CONTENT_LENGTH.getFieldName()).orElse(-1);
+            var ranges = response.headers().firstValue(HttpResponseHeaderField.ACCEPT_RANGES.getFieldName())
+                    .map(value -> value.toLowerCase(Locale.ROOT).contains("bytes"))
+                    .orElse(false);
+            if (response.statusCode() / 100 != 2 || length <= 0 || !ranges)
+                return whole();
+            var validator = response.headers().firstValue(HttpResponseHeaderField.ETAG.getFieldName())
+                    .filter(etag -> !etag.startsWith("W/"))
+                    .or(() -> response.headers().firstValue(HttpResponseHeaderField.LAST_MODIFIED.getFieldName()))
+                    .orElse("");
+            return segmented(length, validator);
+        });
+    }
+
+    // ==== INTERNALS ======================================================== //
+
+    private HttpClient client() {
+        return client == null ? HttpClientRegistry.DEFAULT.clientFor(uri) : client;
+    }
+
+    private HttpRequest.Builder request() {
+        var builder = HttpRequest.newBuilder(uri);
+        HttpClientRegistry.DEFAULT.profileFor(uri).requestTimeout().ifPresent(builder::timeout);
+        headers.forEach(builder::header);
+        return builder;
+    }
+
+    /** Downloads the resource in one request, used if the server doesn't support ranges. */
+    private CompletableFuture<Path> whole() {
+        // Only a successful body replaces the target, not an error page
+        BodyHandler<Path> handler = info -> info.statusCode() / 100 == 2 ? BodySubscribers.ofFile(target) : new DiscardingSubscriber<>();
+        return client().sendAsync(request().GET().build(), handler).thenCompose(response ->
+                response.statusCode() / 100 == 2
+                ? CompletableFuture.completedFuture(target)
+                : CompletableFuture.failedFuture(new IOException("Download of " + uri + " failed with status " + response.statusCode())));
+    }
+
+    private CompletableFuture<Path> segmented(long length, String validator) {
+        var count = (int) Math.min(segments, Math.max(1, (length + minSegmentSize - 1) / minSegmentSize));
+        Progress progress;
+        try {
+            progress = Progress.open(progressFile(), length, count, validator);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        FileChannel file;
+        try {
+            file = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            if (file.size() != length) {
+                // A new download, or the file doesn't belong to the recorded progress
+                file.truncate(0);
+                file.write(ByteBuffer.wrap(new byte[1]), length - 1);
+                progress.reset();
+            }
+        } catch (IOException e) {
+            try {
+                progress.close();
+            } catch (IOException suppressed) {
+                e.addSuppressed(suppressed);
+            }
+            return CompletableFuture.failedFuture(e);
+        }
+        var downloads = new CompletableFuture<?>[progress.segments()];
+        for (var segment = 0; segment < downloads.length; segment++)
+            downloads[segment] = segment(file, progress, segment, validator);
+        return CompletableFuture.allOf(downloads).handle((ignored, failure) -> {
+            try (file; progress) {
+                if (failure != null)
+                    throw HttpBuilder.rethrow(failure);
+                file.force(false);
+                progress.delete();
+                return target;
+            } catch (IOException e) {
+                throw new CompletionException(e);
+            }
+        });
+    }
+
+    /** Downloads the rest of the segment, if there is any. */
+    private CompletableFuture<Void> segment(FileChannel file, Progress progress, int segment, String validator) {
+        long from;
+        try {
+            from = progress.position(segment);
+        } catch (IOException e) {
+            return CompletableFuture.failedFuture(e);
+        }
+        var to = progress.end(segment);
+        if (from >= to)
+            return CompletableFuture.completedFuture(null);
+        var request = request().GET().header(HttpRequestHeaderField.RANGE.getFieldName(), "bytes=" + from + "-" + (to - 1));
+        if (!validator.isEmpty())
+            request.header(HttpRequestHeaderField.IF_RANGE.getFieldName(), validator);
+        // Any other response is cancelled, e.g. the whole resource if it changed
+        BodyHandler<Long> handler = info -> isRange(info.statusCode(), info.headers(), from, to, progress.length())
+                                            ? new SegmentSubscriber(file, progress, segment, from, to)
+                                            : new DiscardingSubscriber<>();
+        return client().sendAsync(request.build(), handler).thenCompose(response -> {
+            if (isRange(response.statusCode(), response.headers(), from, to, progress.length()))
+                return CompletableFuture.<Void>completedFuture(null);
+            var message = switch (response.statusCode()) {
+                case 200 -> "Resource " + uri + " changed during the download";
+                case 206 -> "Range request to " + uri + " for bytes " + from + "-" + (to - 1) + " was answered with "
+                            + response.headers().firstValue(HttpResponseHeaderField.CONTENT_RANGE.getFieldName()).orElse("no range");
+                default -> "Range request to " + uri + " failed with status " + response.statusCode();
+            };
+            return CompletableFuture.<Void>failedFuture(new IOException(message));
+        });
+    }
+
+    /** Whether the response is a {@code 206 Partial Content} of exactly the requested bytes. */
+    private static boolean isRange(int statusCode, HttpHeaders headers, long from, long to, long length) {
+        if (statusCode != 206)
+            return false;
+        var range = headers.firstValue(HttpResponseHeaderField.CONTENT_RANGE.getFieldName()).orElse("").trim();
+        var expected = "bytes " + from + "-" + (to - 1) + "/";
+        return range.equals(expected + length) || range.equals(expected + "*");
+    }
+
+    private Path progressFile() {
+        return target.resolveSibling(target.getFileName() + PROGRESS_SUFFIX);
+    }
+
+    /** Writes the received buffers of one segment into the file at their offset. */
+    private static final class SegmentSubscriber implements BodySubscriber<Long> {
+
+        private final FileChannel file;
+        private final Progress progress;
+        private final int segment;
+        private final long end;
+        private final CompletableFuture<Long> written = new CompletableFuture<>();
+        private Subscription subscription;
+        private long position;
+        private long recorded;
+
+        SegmentSubscriber(FileChannel file, Progress progress, int segment, long start, long end) {
+            this.file = file;
+            this.progress = progress;
+            this.segment = segment;
+            this.end = end;
+            position = start;
+            recorded = start;
+        }
+
+        @Override
+        public CompletionStage<Long> getBody() {
+            return written;
+        }
+
+        @Override
+        public void onSubscribe(Subscription segmentSubscription) {
+            subscription = segmentSubscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> buffers) {
+            try {
+                for (var buffer : buffers) {
+                    if (position + buffer.remaining() > end)
+                        throw new IOException("Segment exceeds its range");
+                    while (buffer.hasRemaining())
+                        position += file.write(buffer, position);
+                }
+                if (position - recorded >= PROGRESS_INTERVAL) {
+                    progress.record(segment, position);
+                    recorded = position;
+                }
+            } catch (IOException e) {
+                subscription.cancel();
+                written.completeExceptionally(e);
+                return;
+            }
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            try {
+                progress.record(segment, position);
+            } catch (IOException e) {
+                throwable.addSuppressed(e);
+            }
+            written.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            try {
+                progress.record(segment, position);
+                if (position != end)
+                    throw new IOException("Segment ended " + (end - position) + " bytes early");
+                written.complete(position);
+            } catch (IOException e) {
+                written.completeExceptionally(e);
+            }
+        }
+
+    }
+
+    /** Cancels the body right away, so an unexpected response isn't downloaded. */
+    private static final class DiscardingSubscriber<T> implements BodySubscriber<T> {
+
+        @Override
+        public CompletionStage<T> getBody() {
+            return CompletableFuture.completedFuture(null);
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            subscription.cancel();
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> item) { }
+
+        @Override
+        public void onError(Throwable throwable) { }
+
+        @Override
+        public void onComplete() { }
+
+    }
+
+    /**
+     * The record of a download: its length, validator and the next position of each segment.
+     * Every position is written in place, so segments record their progress without coordination.
+     */
+    private static final class Progress implements AutoCloseable {
+
+        private static final long MAGIC = 0x446F776E6C6F6164L;
+
+        private final Path path;
+        private final FileChannel channel;
+        private final long length;
+        private final int segments;
+        private final int headerSize;
+
+        private Progress(Path path, FileChannel channel, long length, int segments, int headerSize) {
+            this.path = path;
+            this.channel = channel;
+            this.length = length;
+            this.segments = segments;
+            this.headerSize = headerSize;
+        }
+
+        /** Opens the existing record if it matches the resource, otherwise starts a new one. */
+        static Progress open(Path path, long length, int segments, String validator) throws IOException {
+            var validatorBytes = validator.getBytes(StandardCharsets.UTF_8);
+            var headerSize = Long.BYTES * 2 + Integer.BYTES * 2 + validatorBytes.length;
+            var channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            try {
+                var existing = readSegments(channel, length, validatorBytes);
+                if (existing > 0 && !validator.isEmpty())
+                    return new Progress(path, channel, length, existing, headerSize);
+                var header = ByteBuffer.allocate(headerSize)
+                        .putLong(MAGIC).putLong(length).putInt(segments)
+                        .putInt(validatorBytes.length).put(validatorBytes)
+                        .flip();
+                channel.truncate(0);
+                channel.write(header, 0);
+                var progress = new Progress(path, channel, length, segments, headerSize);
+                progress.reset();
+                return progress;
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        /** The number of segments of a matching record or 0. */
+        private static int readSegments(FileChannel channel, long length, byte[] validator) throws IOException {
+            var header = ByteBuffer.allocate(Long.BYTES * 2 + Integer.BYTES * 2 + validator.length);
+            if (channel.read(header, 0) != header.capacity())
+                return 0;
+            header.flip();
+            if (header.getLong() != MAGIC || header.getLong() != length)
+                return 0;
+            var segments = header.getInt();
+            if (header.getInt() != validator.length || !header.slice().equals(ByteBuffer.wrap(validator)))
+                return 0;
+            return channel.size() == header.capacity() + (long) segments * Long.BYTES ? segments : 0;
+        }
+
+        long length() {
+            return length;
+        }
+
+        int segments() {
+            return segments;
+        }
+
+        /** The first byte of the segment, segments are equally sized except the last one. */
+        long start(int segment) {
+            return length / segments * segment;
+        }
+
+        /** The end of the segment, exclusive. */
+        long end(int segment) {
+            return segment == segments - 1 ? length : start(segment + 1);
+        }
+
+        /** The position the segment continues at. */
+        long position(int segment) throws IOException {
+            var position = ByteBuffer.allocate(Long.BYTES);
+            channel.read(position, headerSize + (long) segment * Long.BYTES);
+            var value = position.flip().getLong();
+            return value < start(segment) || value > end(segment) ? start(segment) : value;
+        }
+
+        void record(int segment, long position) throws IOException {
+            channel.write(ByteBuffer.allocate(Long.BYTES).putLong(position).flip(), headerSize + (long) segment * Long.BYTES);
+        }
+
+        /** Sets all segments back to their start. */
+        void reset() throws IOException {
+            for (var segment = 0; segment < segments; segment++)
+                record(segment, start(segment));
+        }
+
+        void delete() throws IOException {
+            channel.close();
+            Files.deleteIfExists(path);
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,34 @@
+package de.trinext.framework.util.net;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+
+/**
+ * Observes every exchange {@link HttpBuilder} sends over the network, e.g. to record metrics or traces.
+ * <p>
+ * Each attempt of a retried request and each hedged duplicate is an exchange of its own,
+ * while responses served by an {@link HttpResponseCache} or shared by a {@link RequestCoalescer} are not observed.
+ * For every {@link #onStart} exactly one of {@link #onComplete} and {@link #onFailure} follows,
+ * a cancelled exchange fails with a {@link java.util.concurrent.CancellationException}.
+ * The methods are called on the threads of the client and must not block.
+ *
+ * @author Dennis Woithe
+ * @see HttpMetrics
+ * @see HttpBuilder#setDefaultInstrumentation(HttpInstrumentation)
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public interface HttpInstrumentation {
+
+    /** The exchange is about to be sent. */
+    default void onStart(HttpRequest request) { }
+
+    /** Bytes of the response body arrived, before they are decompressed. */
+    default void onBytesReceived(HttpRequest request, long bytes) { }
+
+    /** The response was received completely after the passed number of nanoseconds. */
+    default void onComplete(HttpRequest request, HttpResponse<?> response, long latencyNanos) { }
+
+    /** The exchange failed after the passed number of nanoseconds. */
+    default void onFailure(HttpRequest request, Throwable failure, long latencyNanos) { }
+
+}
\ No newline at end of file
@@ -5,6 +5,26 @@ package de.trinext.framework.util.net;
  */
 public enum HttpMethod {
 
-    GET, POST, PUT, DELETE, HEAD, OPTIONS, TRACE, PATCH
+    GET, POST, PUT, DELETE, HEAD, OPTIONS, TRACE, PATCH;
+
+    /**
+     * Whether sending the request several times has the same effect as sending it once,
+     * so it may be retried or hedged safely (RFC 9110, section 9.2.2).
+     */
+    public boolean isIdempotent() {
+        return this != POST && this != PATCH;
+    }
+
+    /**
+     * Whether the method of the request is idempotent. Unknown methods are not.
+     *
+     * @see #isIdempotent()
+     */
+    public static boolean isIdempotent(String method) {
+        for (var value : values())
+            if (value.name().equals(method))
+                return value.isIdempotent();
+        return false;
+    }
 
 }
\ No newline at end of file
@@ -0,0 +1,169 @@
+package de.trinext.framework.util.net;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * Records latency histograms, status codes, exceptions, transferred bytes and in-flight exchanges per route.
+ * <p>
+ * A route is the host of a request by default. {@link #byRoute(Function)} names routes differently,
+ * e.g. by method and path template, which must not contain ids, as every route keeps its own histogram.
+ * Recording doesn't allocate once a route, status code and exception type were seen.
+ * <pre>{@code
+ * var metrics = HttpMetrics.byHost();
+ * HttpBuilder.setDefaultInstrumentation(metrics);
+ * ...
+ * metrics.snapshot().forEach((host, route) -> log.info(host + ": " + route.latency() + ", errors " + route.exceptions()));
+ * }</pre>
+ * Instances are thread-safe.
+ *
+ * @author Dennis Woithe
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class HttpMetrics implements HttpInstrumentation {
+
+    /** Status codes are counted up to this one, higher ones are counted as 0. */
+    private static final int MAX_STATUS_CODE = 599;
+
+    private final Function<? super HttpRequest, String> routeNaming;
+    private final Map<String, Route> routes = new ConcurrentHashMap<>();
+
+    private HttpMetrics(Function<? super HttpRequest, String> routeNaming) {
+        this.routeNaming = routeNaming;
+    }
+
+    /** Records the exchanges per host. */
+    public static HttpMetrics byHost() {
+        return new HttpMetrics(request -> String.valueOf(request.uri().getHost()));
+    }
+
+    /** Records the exchanges per route, as named by the function. */
+    public static HttpMetrics byRoute(Function<? super HttpRequest, String> routeNaming) {
+        return new HttpMetrics(Objects.requireNonNull(routeNaming, "Route naming must not be null"));
+    }
+
+    @Override
+    public void onStart(HttpRequest request) {
+        var route = route(request);
+        route.inFlight.increment();
+        var body = request.bodyPublisher();
+        if (body.isPresent() && body.get().contentLength() > 0)
+            route.bytesSent.add(body.get().contentLength());
+    }
+
+    @Override
+    public void onBytesReceived(HttpRequest request, long bytes) {
+        route(request).bytesReceived.add(bytes);
+    }
+
+    @Override
+    public void onComplete(HttpRequest request, HttpResponse<?> response, long latencyNanos) {
+        var route = route(request);
+        route.inFlight.decrement();
+        route.latency.record(latencyNanos);
+        var status = response.statusCode();
+        route.statusCodes.incrementAndGet(status < 0 || status > MAX_STATUS_CODE ? 0 : status);
+    }
+
+    @Override
+    public void onFailure(HttpRequest request, Throwable failure, long latencyNanos) {
+        var route = route(request);
+        route.inFlight.decrement();
+        route.exceptions.computeIfAbsent(HttpBuilder.unwrap(failure).getClass().getName(), ignored -> new LongAdder()).increment();
+    }
+
+    /** The current values of all routes, by route name. */
+    public Map<String, Snapshot> snapshot() {
+        var snapshots = new TreeMap<String, Snapshot>();
+        routes.forEach((name, route) -> snapshots.put(name, route.snapshot()));
+        return snapshots;
+    }
+
+    /**
+     * Sets the values of all routes back to zero, except the exchanges in flight,
+     * so the ones that complete afterward are counted as if they started after the reset.
+     */
+    public void reset() {
+        routes.values().forEach(Route::reset);
+    }
+
+    private Route route(HttpRequest request) {
+        var name = routeNaming.apply(request);
+        var route = routes.get(name);
+        return route != null ? route : routes.computeIfAbsent(name, ignored -> new Route());
+    }
+
+    /**
+     * The values of one route.
+     *
+     * @param latency       the latencies of the completed exchanges
+     * @param statusCodes   the number of responses by status code
+     * @param exceptions    the number of failed exchanges by exception class name
+     * @param bytesSent     the bytes of request bodies with a known length
+     * @param bytesReceived the bytes of response bodies as received
+     * @param inFlight      the exchanges started but not yet completed
+     */
+    public record Snapshot(
+            LatencyHistogram.Snapshot latency, Map<Integer, Long> statusCodes, Map<String, Long> exceptions,
+            long bytesSent, long bytesReceived, long inFlight
+    ) {
+
+        /** The number of exchanges that completed or failed. */
+        public long count() {
+            return latency.count() + exceptions.values().stream().mapToLong(Long::longValue).sum();
+        }
+
+        /** The fraction of the exchanges that failed or got a 5xx response, 0 if there were none. */
+        public double errorRate() {
+            var count = count();
+            if (count == 0)
+                return 0;
+            var errors = exceptions.values().stream().mapToLong(Long::longValue).sum()
+                         + statusCodes.entrySet().stream().filter(entry -> entry.getKey() >= 500).mapToLong(Map.Entry::getValue).sum();
+            return (double) errors / count;
+        }
+
+    }
+
+    private static final class Route {
+
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private final AtomicLongArray statusCodes = new AtomicLongArray(MAX_STATUS_CODE + 1);
+        private final Map<String, LongAdder> exceptions = new ConcurrentHashMap<>();
+        private final LongAdder bytesSent = new LongAdder();
+        private final LongAdder bytesReceived = new LongAdder();
+        private final LongAdder inFlight = new LongAdder();
+
+        /** Keeps the exchanges in flight, which are still decremented when they complete. */
+        void reset() {
+            latency.reset();
+            for (var code = 0; code <= MAX_STATUS_CODE; code++)
+                statusCodes.set(code, 0);
+            exceptions.clear();
+            bytesSent.reset();
+            bytesReceived.reset();
+        }
+
+        Snapshot snapshot() {
+            var codes = new TreeMap<Integer, Long>();
+            for (var code = 0; code <= MAX_STATUS_CODE; code++) {
+                var count = statusCodes.get(code);
+                if (count > 0)
+                    codes.put(code, count);
+            }
+            var failures = new TreeMap<String, Long>();
+            exceptions.forEach((type, count) -> failures.put(type, count.sum()));
+            return new Snapshot(
+                    latency.snapshot(), Collections.unmodifiableMap(codes), Collections.unmodifiableMap(failures),
+                    bytesSent.sum(), bytesReceived.sum(), inFlight.sum()
+            );
+        }
+
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,136 @@
+package de.trinext.framework.util.net;
+
+import java.net.URI;
+import java.net.http.HttpClient.Version;
+import java.net.http.HttpRequest;
+import java.net.http.HttpRequest.BodyPublisher;
+import java.net.http.HttpRequest.BodyPublishers;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+import de.trinext.framework.util.net.HttpBuilder.HttpBuilderRequestWithBody;
+
+/**
+ * A prepared request from which requests to the same service are stamped out.
+ * <p>
+ * The base URI, headers, client, body handler, status code exceptions and policies are validated once.
+ * Each stamped request only resolves its path against the base URI and copies the prepared headers in one call,
+ * so the per-call work of {@link HttpBuilder} is skipped on hot paths.
+ * <pre>{@code
+ * var api = HttpBuilder.forUrl("https://api.example.com/v1/")
+ *     .addHeader("Accept", "application/json")
+ *     .addHeader("Authorization", "Bearer " + token)
+ *     .withMethod(HttpMethod.GET)
+ *     .expectBody(BodyHandlers.ofString())
+ *     .throwIfCode(404, () -> new NoSuchElementException())
+ *     .toTemplate();
+ *
+ * var item = api.send("items/42");
+ * var created = api.newRequest(HttpMethod.POST, "items", BodyPublishers.ofString(json)).sendAsync();
+ * }</pre>
+ * Paths are resolved like links against the base URI, so {@code "items"} is appended to a base ending with a slash,
+ * while {@code "/items"} replaces the whole path. Each stamped request can be changed further without affecting the template.
+ * Instances are immutable and thread-safe.
+ *
+ * @param <T> the type of the body
+ * @author Dennis Woithe
+ * @see HttpBuilderRequestWithBody#toTemplate()
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class HttpRequestTemplate<T> {
+
+    private final HttpBuilderRequestWithBody<T> settings;
+    private final URI baseUri;
+    private final String method;
+    private final BodyPublisher bodyPublisher;
+    /** Alternating names and values, as taken by {@link HttpRequest.Builder#headers(String...)}. */
+    private final String[] headers;
+    private final Duration timeout;
+    private final Version version;
+    private final boolean expectContinue;
+
+    HttpRequestTemplate(HttpBuilderRequestWithBody<T> settings) {
+        this.settings = settings;
+        var prototype = settings.request();
+        baseUri = prototype.uri();
+        method = prototype.method();
+        bodyPublisher = prototype.bodyPublisher().orElseGet(BodyPublishers::noBody);
+        var nameValues = new ArrayList<String>();
+        prototype.headers().map().forEach((name, values) -> values.forEach(value -> {
+            nameValues.add(name);
+            nameValues.add(value);
+        }));
+        headers = nameValues.toArray(String[]::new);
+        timeout = prototype.timeout().orElse(null);
+        version = prototype.version().orElse(null);
+        expectContinue = prototype.expectContinue();
+    }
+
+    /** The URI paths are resolved against. */
+    public URI baseUri() {
+        return baseUri;
+    }
+
+    /** A request to the path with the method and body of the template. */
+    public HttpBuilderRequestWithBody<T> newRequest(String path) {
+        return newRequest(method, resolve(path), bodyPublisher);
+    }
+
+    /** A request to the path with the method and no body. */
+    public HttpBuilderRequestWithBody<T> newRequest(HttpMethod httpMethod, String path) {
+        return newRequest(httpMethod, path, BodyPublishers.noBody());
+    }
+
+    /** A request to the path with the method and the body. */
+    public HttpBuilderRequestWithBody<T> newRequest(HttpMethod httpMethod, String path, BodyPublisher body) {
+        return newRequest(httpMethod, resolve(path), body);
+    }
+
+    /**
+     * A request to the {@link URI} with the method and the body.
+     * A relative URI is resolved against the base URI, e.g. one built by {@link UrlQueryBuilder}.
+     */
+    public HttpBuilderRequestWithBody<T> newRequest(HttpMethod httpMethod, URI uri, BodyPublisher body) {
+        Objects.requireNonNull(httpMethod, "HttpMethod must not be null");
+        return newRequest(httpMethod.name(), baseUri.resolve(Objects.requireNonNull(uri, "Uri must not be null")), body);
+    }
+
+    /**
+     * Sends a request to the path with the method and body of the template and tries to return the body.
+     *
+     * @see HttpBuilderRequestWithBody#send()
+     */
+    public Optional<T> send(String path) {
+        return newRequest(path).send();
+    }
+
+    /**
+     * Sends a request to the path with the method and body of the template without blocking.
+     *
+     * @see HttpBuilderRequestWithBody#sendAsync()
+     */
+    public CompletableFuture<T> sendAsync(String path) {
+        return newRequest(path).sendAsync();
+    }
+
+    private URI resolve(String path) {
+        return baseUri.resolve(Objects.requireNonNull(path, "Path must not be null"));
+    }
+
+    private HttpBuilderRequestWithBody<T> newRequest(String httpMethod, URI uri, BodyPublisher body) {
+        var builder = HttpRequest.newBuilder(uri)
+                .method(httpMethod, Objects.requireNonNull(body, "BodyPublisher must not be null"))
+                .expectContinue(expectContinue);
+        if (headers.length > 0)
+            builder.headers(headers);
+        if (timeout != null)
+            builder.timeout(timeout);
+        if (version != null)
+            builder.version(version);
+        return new HttpBuilderRequestWithBody<>(builder.build(), settings);
+    }
+
+}
\ No newline at end of file
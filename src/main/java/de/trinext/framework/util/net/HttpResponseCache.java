@@ -0,0 +1,441 @@
+package de.trinext.framework.util.net;
+
+import java.net.URI;
+import java.net.http.HttpClient.Version;
+import java.net.http.HttpHeaders;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.net.http.HttpResponse.BodySubscribers;
+import java.net.http.HttpResponse.ResponseInfo;
+import java.nio.ByteBuffer;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow.Subscription;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+import java.util.function.Consumer;
+import javax.net.ssl.SSLSession;
+
+/**
+ * An in-memory cache for the responses of GET requests, bounded by the total size of the cached bodies.
+ * <p>
+ * Responses with status 200 are cached, unless they are marked {@code no-store} or {@code private}.
+ * As the cache is shared by all callers, a response to a request with {@code Authorization} is only cached
+ * if it's marked {@code public}, {@code s-maxage} or {@code must-revalidate}.
+ * Responses that are neither fresh nor have a validator are not cached, as they could never be served.
+ * A cached response is served without a request while it's fresh according to its {@code max-age} or {@code Expires}.
+ * After that, or if it's marked {@code no-cache}, it's revalidated with {@code If-None-Match} and {@code If-Modified-Since}.
+ * A {@code 304 Not Modified} refreshes the entry and is answered with the cached body.
+ * Responses without freshness information but with an {@code ETag} or {@code Last-Modified} are always revalidated.
+ * <p>
+ * The cache stores the raw bytes of a body and decodes them with the {@link BodyHandler} of each request,
+ * so requests with different body types share one entry. The least recently used entries are evicted first.
+ * <pre>{@code
+ * var cache = HttpResponseCache.withMaxBytes(64 << 20);
+ * HttpBuilder.forUrl("https://api.example.com/config")
+ *     .withMethod(HttpMethod.GET)
+ *     .expectBody(BodyHandlers.ofString())
+ *     .withCache(cache)
+ *     .send();
+ * }</pre>
+ * Instances are thread-safe.
+ *
+ * @author Dennis Woithe
+ */
+@SuppressWarnings({"unused", "WeakerAccess", "HardCodedStringLiteral"})
+public final class HttpResponseCache {
+
+    /** Estimated bytes of an entry besides its body. */
+    private static final int ENTRY_OVERHEAD = 512;
+    /** An entry may take at most this fraction of the whole cache. */
+    private static final int MAX_ENTRY_FRACTION = 8;
+
+    private final long maxBytes;
+    private final long maxEntryBytes;
+    private final ReentrantLock lock = new ReentrantLock();
+    /** In access order, so the first entry is the least recently used one. */
+    private final LinkedHashMap<URI, Entry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long bytes;
+
+    private HttpResponseCache(long maxBytes) {
+        this.maxBytes = maxBytes;
+        maxEntryBytes = maxBytes / MAX_ENTRY_FRACTION;
+    }
+
+    /**
+     * Creates a cache that holds at most {@code maxBytes} of bodies.
+     * A single body may take at most an eighth of it, bigger ones aren't cached.
+     *
+     * @throws IllegalArgumentException if the size is not positive.
+     */
+    public static HttpResponseCache withMaxBytes(long maxBytes) {
+        if (maxBytes <= 0)
+            throw new IllegalArgumentException("Max bytes must be positive: " + maxBytes);
+        return new HttpResponseCache(maxBytes);
+    }
+
+    /** Removes the entry of the {@link URI}. */
+    public void invalidate(URI uri) {
+        lock.lock();
+        try {
+            var removed = entries.remove(uri);
+            if (removed != null)
+                bytes -= removed.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Removes all entries. */
+    public void clear() {
+        lock.lock();
+        try {
+            entries.clear();
+            bytes = 0;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** The number of cached responses. */
+    public int size() {
+        lock.lock();
+        try {
+            return entries.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** The estimated number of bytes taken by the cached responses. */
+    public long bytes() {
+        lock.lock();
+        try {
+            return bytes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    // ==== EXCHANGE ========================================================= //
+
+    /**
+     * Answers the request from the cache, revalidates the cached response or sends it over the network.
+     *
+     * @param network sends a request with a body handler, e.g. with retries
+     */
+    <T> CompletableFuture<HttpResponse<T>> exchange(
+            HttpRequest request, BodyHandler<T> handler,
+            BiFunction<HttpRequest, BodyHandler<T>, CompletableFuture<HttpResponse<T>>> network
+    ) {
+        if (!"GET".equals(request.method()) || hasDirective(request.headers(), "no-store"))
+            return network.apply(request, handler);
+        var entry = lookup(request);
+        if (entry == null)
+            return network.apply(request, storing(request, handler));
+        if (entry.isFresh() && !hasDirective(request.headers(), "no-cache"))
+            return entry.replay(request, handler);
+        if (!entry.hasValidators())
+            return network.apply(request, storing(request, handler));
+        var conditional = HttpRequest.newBuilder(request, (name, value) -> true);
+        entry.etag.ifPresent(etag -> conditional.header(HttpRequestHeaderField.IF_NONE_MATCH.getFieldName(), etag));
+        entry.lastModified.ifPresent(date -> conditional.header(HttpRequestHeaderField.IF_MODIFIED_SINCE.getFieldName(), date));
+        BodyHandler<T> revalidating = info -> info.statusCode() == 304
+                                              ? BodySubscribers.replacing(null)
+                                              : storing(request, handler).apply(info);
+        return network.apply(conditional.build(), revalidating).thenCompose(response -> {
+            if (response.statusCode() != 304)
+                return CompletableFuture.completedFuture(response);
+            var refreshed = entry.refresh(response.headers());
+            put(request.uri(), refreshed);
+            return refreshed.replay(request, handler);
+        });
+    }
+
+    private Entry lookup(HttpRequest request) {
+        lock.lock();
+        try {
+            var entry = entries.get(request.uri());
+            return entry != null && entry.matches(request) ? entry : null;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void put(URI uri, Entry entry) {
+        lock.lock();
+        try {
+            var previous = entries.put(uri, entry);
+            bytes += entry.size() - (previous == null ? 0 : previous.size());
+            for (var iterator = entries.values().iterator(); bytes > maxBytes && iterator.hasNext(); ) {
+                bytes -= iterator.next().size();
+                iterator.remove();
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /** Wraps the handler, so a cacheable body is copied into the cache while the handler consumes it. */
+    private <T> BodyHandler<T> storing(HttpRequest request, BodyHandler<T> handler) {
+        return info -> {
+            var downstream = handler.apply(info);
+            if (!isStorable(request, info))
+                return downstream;
+            return new StoringSubscriber<>(downstream, body -> put(request.uri(), Entry.of(request, info, body)), maxEntryBytes);
+        };
+    }
+
+    // ==== INTERNALS ======================================================== //
+
+    /** Whether a shared cache may store the response and could ever serve it. */
+    private static boolean isStorable(HttpRequest request, ResponseInfo info) {
+        var headers = info.headers();
+        if (info.statusCode() != 200 || hasDirective(headers, "no-store") || hasDirective(headers, "private"))
+            return false;
+        // The response may be meant for the credentials of this caller only
+        if (request.headers().firstValue(HttpRequestHeaderField.AUTHORIZATION.getFieldName()).isPresent()
+            && !hasDirective(headers, "public") && !hasDirective(headers, "s-maxage") && !hasDirective(headers, "must-revalidate"))
+            return false;
+        return !Entry.freshness(headers).isZero()
+               || headers.firstValue(HttpResponseHeaderField.ETAG.getFieldName()).isPresent()
+               || headers.firstValue(HttpResponseHeaderField.LAST_MODIFIED.getFieldName()).isPresent();
+    }
+
+    private static boolean hasDirective(HttpHeaders headers, String directive) {
+        return directive(headers, directive).isPresent();
+    }
+
+    /** Returns the value of a {@code Cache-Control} directive, or an empty string if it has none. */
+    private static Optional<String> directive(HttpHeaders headers, String directive) {
+        for (var header : headers.allValues(HttpResponseHeaderField.CACHE_CONTROL.getFieldName()))
+            for (var part : header.split(",")) {
+                var trimmed = part.trim();
+                var equals = trimmed.indexOf('=');
+                var name = equals < 0 ? trimmed : trimmed.substring(0, equals).trim();
+                if (name.equalsIgnoreCase(directive))
+                    return Optional.of(equals < 0 ? "" : trimmed.substring(equals + 1).trim().replace("\"", ""));
+            }
+        return Optional.empty();
+    }
+
+    private static OptionalLong parseSeconds(String value) {
+        try {
+            return OptionalLong.of(Long.parseLong(value));
+        } catch (NumberFormatException e) {
+            return OptionalLong.empty();
+        }
+    }
+
+    private static Optional<ZonedDateTime> parseDate(String value) {
+        try {
+            return Optional.of(ZonedDateTime.parse(value, DateTimeFormatter.RFC_1123_DATE_TIME));
+        } catch (DateTimeParseException e) {
+            return Optional.empty();
+        }
+    }
+
+    /** A cached response. Immutable, a revalidation replaces it. */
+    private static final class Entry {
+
+        private final HttpHeaders headers;
+        private final Version version;
+        private final byte[] body;
+        /** Values of the request headers named by {@code Vary}. */
+        private final Map<String, List<String>> varying;
+        private final long expiresAtNanos;
+        private final Optional<String> etag;
+        private final Optional<String> lastModified;
+
+        private Entry(HttpHeaders headers, Version version, byte[] body, Map<String, List<String>> varying) {
+            this.headers = headers;
+            this.version = version;
+            this.body = body;
+            this.varying = varying;
+            expiresAtNanos = System.nanoTime() + freshness(headers).toNanos();
+            etag = headers.firstValue(HttpResponseHeaderField.ETAG.getFieldName());
+            lastModified = headers.firstValue(HttpResponseHeaderField.LAST_MODIFIED.getFieldName());
+        }
+
+        static Entry of(HttpRequest request, ResponseInfo info, byte[] body) {
+            var varying = new HashMap<String, List<String>>();
+            for (var vary : info.headers().allValues(HttpResponseHeaderField.VARY.getFieldName()))
+                for (var name : vary.split(","))
+                    varying.put(name.trim(), request.headers().allValues(name.trim()));
+            return new Entry(info.headers(), info.version(), body, varying);
+        }
+
+        /** How long the response is fresh after it was received: {@code max-age} or {@code Expires}, minus {@code Age}. */
+        private static Duration freshness(HttpHeaders headers) {
+            if (hasDirective(headers, "no-cache"))
+                return Duration.ZERO;
+            var age = headers.firstValue(HttpResponseHeaderField.AGE.getFieldName()).map(HttpResponseCache::parseSeconds).orElse(OptionalLong.empty()).orElse(0);
+            var maxAge = directive(headers, "max-age").map(HttpResponseCache::parseSeconds).orElse(OptionalLong.empty());
+            if (maxAge.isPresent())
+                return Duration.ofSeconds(Math.max(0, maxAge.getAsLong() - age));
+            var expires = headers.firstValue(HttpResponseHeaderField.EXPIRES.getFieldName()).flatMap(HttpResponseCache::parseDate);
+            var date = headers.firstValue(HttpResponseHeaderField.DATE.getFieldName()).flatMap(HttpResponseCache::parseDate).orElseGet(ZonedDateTime::now);
+            return expires.map(time -> Duration.between(date, time)).filter(duration -> !duration.isNegative()).orElse(Duration.ZERO);
+        }
+
+        boolean matches(HttpRequest request) {
+            if (varying.containsKey("*"))
+                return false;
+            for (var vary : varying.entrySet())
+                if (!request.headers().allValues(vary.getKey()).equals(vary.getValue()))
+                    return false;
+            return true;
+        }
+
+        boolean isFresh() {
+            return System.nanoTime() - expiresAtNanos < 0;
+        }
+
+        boolean hasValidators() {
+            return etag.isPresent() || lastModified.isPresent();
+        }
+
+        long size() {
+            return body.length + ENTRY_OVERHEAD;
+        }
+
+        /** Merges the headers of a 304 response into the cached ones and restarts the freshness. */
+        Entry refresh(HttpHeaders notModified) {
+            var merged = new TreeMap<String, List<String>>(String.CASE_INSENSITIVE_ORDER);
+            merged.putAll(headers.map());
+            merged.putAll(notModified.map());
+            return new Entry(HttpHeaders.of(merged, (name, value) -> true), version, body, varying);
+        }
+
+        /** Decodes the cached body with the handler of the request. */
+        <T> CompletableFuture<HttpResponse<T>> replay(HttpRequest request, BodyHandler<T> handler) {
+            var subscriber = handler.apply(new CachedInfo(headers, version));
+            subscriber.onSubscribe(new Subscription() {
+                private boolean done;
+
+                @Override
+                public synchronized void request(long n) {
+                    if (done || n <= 0)
+                        return;
+                    done = true;
+                    if (body.length > 0)
+                        subscriber.onNext(List.of(ByteBuffer.wrap(body).asReadOnlyBuffer()));
+                    subscriber.onComplete();
+                }
+
+                @Override
+                public synchronized void cancel() {
+                    done = true;
+                }
+            });
+            return subscriber.getBody().toCompletableFuture()
+                    .thenApply(decoded -> new CachedResponse<>(request, headers, version, decoded));
+        }
+
+    }
+
+    private record CachedInfo(HttpHeaders headers, Version version) implements ResponseInfo {
+
+        @Override
+        public int statusCode() {
+            return 200;
+        }
+
+    }
+
+    /** A response served from the cache. */
+    private record CachedResponse<T>(HttpRequest request, HttpHeaders headers, Version version, T body) implements HttpResponse<T> {
+
+        @Override
+        public int statusCode() {
+            return 200;
+        }
+
+        @Override
+        public Optional<HttpResponse<T>> previousResponse() {
+            return Optional.empty();
+        }
+
+        @Override
+        public Optional<SSLSession> sslSession() {
+            return Optional.empty();
+        }
+
+        @Override
+        public URI uri() {
+            return request.uri();
+        }
+
+    }
+
+    /** Passes the body on to the downstream subscriber and collects a copy of it, unless it gets too big. */
+    private static final class StoringSubscriber<T> implements BodySubscriber<T> {
+
+        private final BodySubscriber<T> downstream;
+        private final Consumer<byte[]> store;
+        private final long maxBytes;
+        private final List<byte[]> chunks = new ArrayList<>();
+        private long collected;
+
+        StoringSubscriber(BodySubscriber<T> downstream, Consumer<byte[]> store, long maxBytes) {
+            this.downstream = downstream;
+            this.store = store;
+            this.maxBytes = maxBytes;
+        }
+
+        @Override
+        public CompletionStage<T> getBody() {
+            return downstream.getBody();
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            downstream.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> buffers) {
+            if (collected <= maxBytes)
+                for (var buffer : buffers) {
+                    collected += buffer.remaining();
+                    if (collected > maxBytes) {
+                        chunks.clear();
+                        break;
+                    }
+                    var chunk = new byte[buffer.remaining()];
+                    buffer.duplicate().get(chunk);
+                    chunks.add(chunk);
+                }
+            downstream.onNext(buffers);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            chunks.clear();
+            downstream.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            if (collected <= maxBytes) {
+                var body = new byte[(int) collected];
+                var offset = 0;
+                for (var chunk : chunks) {
+                    System.arraycopy(chunk, 0, body, offset, chunk.length);
+                    offset += chunk.length;
+                }
+                store.accept(body);
+            }
+            downstream.onComplete();
+        }
+
+    }
+
+}
\ No newline at end of file
@@ -6,5 +6,27 @@ package de.trinext.framework.util.net;
 public enum HttpResponseHeaderField {
 
     // TODO: Implement https://en.wikipedia.org/wiki/List_of_HTTP_header_fields#Response_fields
+    ACCEPT_RANGES("Accept-Ranges"),
+    AGE("Age"),
+    CACHE_CONTROL("Cache-Control"),
+    CONTENT_ENCODING("Content-Encoding"),
+    CONTENT_LENGTH("Content-Length"),
+    CONTENT_RANGE("Content-Range"),
+    CONTENT_TYPE("Content-Type"),
+    DATE("Date"),
+    ETAG("ETag"),
+    EXPIRES("Expires"),
+    LAST_MODIFIED("Last-Modified"),
+    RETRY_AFTER("Retry-After"),
+    VARY("Vary");
 
+    private final String fieldName;
+
+    HttpResponseHeaderField(String fieldName) {
+        this.fieldName = fieldName;
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
 }
\ No newline at end of file
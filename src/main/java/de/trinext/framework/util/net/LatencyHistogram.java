@@ -0,0 +1,146 @@
+package de.trinext.framework.util.net;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * A histogram of latencies in nanoseconds with buckets of logarithmically growing width, like an HDR histogram.
+ * <p>
+ * Every power of two is split into 64 buckets, so a percentile is off by at most 1.6% of its value
+ * for any latency from one nanosecond to centuries. Recording is lock-free and doesn't allocate,
+ * it increments one counter of a fixed array. A {@link Snapshot} copies the counters for percentiles.
+ * Instances are thread-safe.
+ *
+ * @author Dennis Woithe
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class LatencyHistogram {
+
+    /** Bits of a value that select the bucket within its power of two. */
+    private static final int SUB_BUCKET_BITS = 6;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    /** Values below this have a bucket of their own. */
+    private static final int LINEAR_LIMIT = SUB_BUCKETS << 1;
+    private static final int BUCKETS = LINEAR_LIMIT + (Long.SIZE - 2 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder total = new LongAdder();
+    private final LongAdder sum = new LongAdder();
+    private final AtomicLong max = new AtomicLong();
+
+    /** Creates an empty histogram. */
+    public LatencyHistogram() { }
+
+    /** Records a latency, negative ones count as zero. */
+    public void record(long nanos) {
+        var value = Math.max(0, nanos);
+        counts.incrementAndGet(indexOf(value));
+        total.increment();
+        sum.add(value);
+        if (value > max.get())
+            max.accumulateAndGet(value, Math::max);
+    }
+
+    /** The number of recorded latencies. */
+    public long count() {
+        return total.sum();
+    }
+
+    /**
+     * Copies the current counts. Latencies recorded while copying may be missing in some of the values.
+     */
+    public Snapshot snapshot() {
+        var copy = new long[BUCKETS];
+        var count = 0L;
+        for (var i = 0; i < BUCKETS; i++) {
+            copy[i] = counts.get(i);
+            count += copy[i];
+        }
+        return new Snapshot(copy, count, sum.sum(), max.get());
+    }
+
+    /** Removes all recorded latencies. */
+    public void reset() {
+        for (var i = 0; i < BUCKETS; i++)
+            counts.set(i, 0);
+        total.reset();
+        sum.reset();
+        max.set(0);
+    }
+
+    private static int indexOf(long value) {
+        if (value < LINEAR_LIMIT)
+            return (int) value;
+        // Shift, so the value keeps SUB_BUCKET_BITS + 1 significant bits, the highest of which is always set
+        var shift = Long.SIZE - 1 - Long.numberOfLeadingZeros(value) - SUB_BUCKET_BITS;
+        return LINEAR_LIMIT + (shift - 1) * SUB_BUCKETS + (int) (value >>> shift) - SUB_BUCKETS;
+    }
+
+    /** The highest value counted in the bucket, so percentiles are never reported too low. */
+    private static long valueOf(int index) {
+        if (index < LINEAR_LIMIT)
+            return index;
+        var shift = (index - LINEAR_LIMIT) / SUB_BUCKETS + 1;
+        var lowest = (long) ((index - LINEAR_LIMIT) % SUB_BUCKETS + SUB_BUCKETS) << shift;
+        return lowest + (1L << shift) - 1;
+    }
+
+    /** The latencies of a histogram at one point in time. */
+    public static final class Snapshot {
+
+        private final long[] counts;
+        private final long count;
+        private final long sum;
+        private final long max;
+
+        private Snapshot(long[] counts, long count, long sum, long max) {
+            this.counts = counts;
+            this.count = count;
+            this.sum = sum;
+            this.max = max;
+        }
+
+        public long count() {
+            return count;
+        }
+
+        public Duration max() {
+            return Duration.ofNanos(max);
+        }
+
+        public Duration mean() {
+            return Duration.ofNanos(count == 0 ? 0 : sum / count);
+        }
+
+        /**
+         * The latency that the passed fraction of all latencies doesn't exceed, e.g. {@code 0.99} for the p99.
+         * Returns zero if nothing was recorded.
+         *
+         * @throws IllegalArgumentException if the percentile is not in (0, 1].
+         */
+        public Duration valueAtPercentile(double percentile) {
+            if (!(percentile > 0 && percentile <= 1))
+                throw new IllegalArgumentException("Percentile must be in (0, 1]: " + percentile);
+            if (count == 0)
+                return Duration.ZERO;
+            var rank = (long) Math.ceil(percentile * count);
+            var seen = 0L;
+            for (var i = 0; i < counts.length; i++) {
+                seen += counts[i];
+                if (seen >= rank)
+                    return Duration.ofNanos(Math.min(valueOf(i), max));
+            }
+            return Duration.ofNanos(max);
+        }
+
+        @Override
+        public String toString() {
+            return "count=" + count + ", mean=" + mean() + ", p50=" + valueAtPercentile(0.5)
+                   + ", p99=" + valueAtPercentile(0.99) + ", max=" + max();
+        }
+
+    }
+
+}
\ No newline at end of file
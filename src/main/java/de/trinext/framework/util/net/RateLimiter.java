@@ -0,0 +1,159 @@
+package de.trinext.framework.util.net;
+
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Function;
+
+/**
+ * Limits the rate of requests per host, or for all requests, to stay within the quota of a server.
+ * <p>
+ * Each key has a token bucket with {@code burst} tokens that refills at {@code permitsPerSecond},
+ * implemented as generic cell rate algorithm: a single timestamp per key that is advanced by compare-and-set,
+ * so taking a token is lock-free. A request that finds the bucket empty reserves the next token and waits for it.
+ * Blocked threads sleep and asynchronous requests are scheduled, nothing spins.
+ * A {@code 429 Too Many Requests} or {@code 503 Service Unavailable} response pauses the whole key
+ * for its {@code Retry-After}, or one interval if it has none.
+ * <pre>{@code
+ * var partnerQuota = RateLimiter.perHost(50, 10).withMaxWait(Duration.ofSeconds(5));
+ * HttpBuilder.forUrl("https://partner.example.com/orders")
+ *     .withMethod(HttpMethod.GET)
+ *     .expectBody(BodyHandlers.ofString())
+ *     .withRateLimit(partnerQuota)
+ *     .send();
+ * }</pre>
+ * Instances are thread-safe and meant to be shared by all requests to the limited servers.
+ *
+ * @author Dennis Woithe
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class RateLimiter {
+
+    private final Function<? super HttpRequest, String> keys;
+    /** The time between two tokens. */
+    private final long intervalNanos;
+    /** How far the next token may be ahead of now, which allows bursts. */
+    private final long toleranceNanos;
+    private final long maxWaitNanos;
+    /** The theoretical arrival time per key: the time the bucket is full again plus the tolerance. */
+    private final Map<String, AtomicLong> arrivals = new ConcurrentHashMap<>();
+
+    private RateLimiter(Function<? super HttpRequest, String> keys, long intervalNanos, long toleranceNanos, long maxWaitNanos) {
+        this.keys = keys;
+        this.intervalNanos = intervalNanos;
+        this.toleranceNanos = toleranceNanos;
+        this.maxWaitNanos = maxWaitNanos;
+    }
+
+    /**
+     * Allows {@code permitsPerSecond} requests per host, with bursts of up to {@code burst} requests.
+     *
+     * @throws IllegalArgumentException if the rate or burst is not positive.
+     */
+    public static RateLimiter perHost(double permitsPerSecond, int burst) {
+        return create(request -> String.valueOf(request.uri().getAuthority()), permitsPerSecond, burst);
+    }
+
+    /**
+     * Allows {@code permitsPerSecond} requests in total, with bursts of up to {@code burst} requests,
+     * e.g. for a template whose quota spans several hosts.
+     *
+     * @throws IllegalArgumentException if the rate or burst is not positive.
+     */
+    public static RateLimiter shared(double permitsPerSecond, int burst) {
+        return create(request -> "", permitsPerSecond, burst);
+    }
+
+    private static RateLimiter create(Function<? super HttpRequest, String> keys, double permitsPerSecond, int burst) {
+        if (!(permitsPerSecond > 0) || Double.isInfinite(permitsPerSecond))
+            throw new IllegalArgumentException("Permits per second must be positive: " + permitsPerSecond);
+        if (burst <= 0)
+            throw new IllegalArgumentException("Burst must be positive: " + burst);
+        var interval = Math.max(1, Math.round(TimeUnit.SECONDS.toNanos(1) / permitsPerSecond));
+        return new RateLimiter(keys, interval, Math.multiplyExact(interval, burst - 1L), Long.MAX_VALUE);
+    }
+
+    /**
+     * Returns a new limiter with the same rate that rejects a request instead of waiting longer than {@code maxWait}.
+     * It doesn't share the buckets of this limiter.
+     *
+     * @throws IllegalArgumentException if the duration is negative.
+     */
+    public RateLimiter withMaxWait(Duration maxWait) {
+        if (maxWait.isNegative())
+            throw new IllegalArgumentException("Max wait must not be negative: " + maxWait);
+        return new RateLimiter(keys, intervalNanos, toleranceNanos, maxWait.toNanos());
+    }
+
+    /**
+     * Takes a token for the request, sleeping until it's available.
+     *
+     * @throws RejectedExecutionException if the wait would exceed the max wait.
+     * @throws InterruptedException       if the thread is interrupted while sleeping, the token is lost then.
+     */
+    public void acquire(HttpRequest request) throws InterruptedException {
+        var delay = reserve(request);
+        if (delay > 0)
+            TimeUnit.NANOSECONDS.sleep(delay);
+    }
+
+    /** Takes a token for the request if one is available right now. */
+    public boolean tryAcquire(HttpRequest request) {
+        var bucket = bucket(request);
+        var now = System.nanoTime();
+        long arrival;
+        do {
+            arrival = bucket.get();
+            if (arrival - toleranceNanos - now > 0)
+                return false;
+        } while (!bucket.compareAndSet(arrival, Math.max(arrival - now, 0) + now + intervalNanos));
+        return true;
+    }
+
+    /**
+     * Reserves the next token for the request and returns the nanoseconds until it's available.
+     *
+     * @throws RejectedExecutionException if the wait would exceed the max wait.
+     */
+    long reserve(HttpRequest request) {
+        var bucket = bucket(request);
+        var now = System.nanoTime();
+        long arrival;
+        long delay;
+        do {
+            arrival = bucket.get();
+            delay = Math.max(0, arrival - toleranceNanos - now);
+            if (delay > maxWaitNanos)
+                throw new RejectedExecutionException("Rate limit of " + keys.apply(request) + " exceeded, next request in " + Duration.ofNanos(delay));
+        } while (!bucket.compareAndSet(arrival, Math.max(arrival - now, 0) + now + intervalNanos));
+        return delay;
+    }
+
+    /** Pauses the key of the request if the server answered that it's overloaded. */
+    void onResponse(HttpRequest request, HttpResponse<?> response) {
+        if (response.statusCode() != 429 && response.statusCode() != 503)
+            return;
+        var retryAfter = response.headers().firstValue(HttpResponseHeaderField.RETRY_AFTER.getFieldName())
+                .map(RetryPolicy::parseRetryAfter)
+                .filter(duration -> !duration.isNegative())
+                .map(Duration::toNanos)
+                .orElse(intervalNanos);
+        if (retryAfter == 0)
+            return;
+        var paused = System.nanoTime() + retryAfter + toleranceNanos;
+        bucket(request).accumulateAndGet(paused, (arrival, pause) -> arrival - pause < 0 ? pause : arrival);
+    }
+
+    private AtomicLong bucket(HttpRequest request) {
+        var key = keys.apply(request);
+        var bucket = arrivals.get(key);
+        // A new bucket is full
+        return bucket != null ? bucket : arrivals.computeIfAbsent(key, ignored -> new AtomicLong(System.nanoTime()));
+    }
+
+}
\ No newline at end of file
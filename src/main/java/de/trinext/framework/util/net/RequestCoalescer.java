@@ -0,0 +1,77 @@
+package de.trinext.framework.util.net;
+
+import java.net.URI;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpResponse.BodyHandler;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.BiFunction;
+
+/**
+ * Lets concurrent identical requests share one exchange, so a burst of threads asking for the same resource
+ * causes a single request to the server, e.g. right after a cached response expired.
+ * <p>
+ * Requests are identical if they have the same method, {@link URI}, headers and {@link BodyHandler} instance,
+ * so the callers have to share the handler, e.g. in a constant. Only GET and HEAD requests are coalesced,
+ * as the bodies of other requests can't be compared. Every caller gets the same response and the same body object,
+ * so the handler should produce immutable bodies like strings or parsed objects, not streams.
+ * <pre>{@code
+ * var coalescer = new RequestCoalescer();
+ * HttpBuilder.forUrl("https://api.example.com/config")
+ *     .withMethod(HttpMethod.GET)
+ *     .expectBody(CONFIG_HANDLER)
+ *     .withCoalescing(coalescer)
+ *     .send();
+ * }</pre>
+ * A request is only shared while it's in flight, a request started after the response arrived is sent again.
+ * Instances are thread-safe and meant to be shared by all requests to the same servers.
+ *
+ * @author Dennis Woithe
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class RequestCoalescer {
+
+    private final Map<Key, CompletableFuture<? extends HttpResponse<?>>> inFlight = new ConcurrentHashMap<>();
+
+    /** Creates a coalescer without requests in flight. */
+    public RequestCoalescer() { }
+
+    /** The number of distinct requests that are currently in flight. */
+    public int inFlight() {
+        return inFlight.size();
+    }
+
+    /**
+     * Joins the identical request that is in flight or sends this one with the network function.
+     * Each caller gets its own future, so cancelling it doesn't cancel the shared exchange.
+     */
+    <T> CompletableFuture<HttpResponse<T>> exchange(
+            HttpRequest request, BodyHandler<T> handler,
+            BiFunction<HttpRequest, BodyHandler<T>, CompletableFuture<HttpResponse<T>>> network
+    ) {
+        if (!"GET".equals(request.method()) && !"HEAD".equals(request.method()))
+            return network.apply(request, handler);
+        var key = new Key(request.method(), request.uri(), request.headers().map(), handler);
+        var shared = new CompletableFuture<HttpResponse<T>>();
+        @SuppressWarnings("unchecked")
+        var existing = (CompletableFuture<HttpResponse<T>>) inFlight.putIfAbsent(key, shared);
+        if (existing != null)
+            return existing.copy();
+        // Removed before it completes, so late callers never join a finished exchange
+        network.apply(request, handler).whenComplete((response, failure) -> {
+            inFlight.remove(key, shared);
+            if (failure == null)
+                shared.complete(response);
+            else
+                shared.completeExceptionally(HttpBuilder.unwrap(failure));
+        });
+        return shared.copy();
+    }
+
+    /** The handler is compared by identity, as handlers don't implement {@code equals}. */
+    private record Key(String method, URI uri, Map<String, List<String>> headers, BodyHandler<?> handler) { }
+
+}
\ No newline at end of file
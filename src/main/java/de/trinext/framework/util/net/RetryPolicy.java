@@ -0,0 +1,231 @@
+package de.trinext.framework.util.net;
+
+import java.io.IOException;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.time.Duration;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decides whether and when a failed request is sent again.
+ * <p>
+ * A request is retried if its response has one of the retryable status codes or the client threw one of the retryable exceptions,
+ * as long as there are attempts left, the method is idempotent and the {@link Budget} allows it.
+ * The delay before each retry grows exponentially and is fully jittered, so clients that failed together don't retry together.
+ * A {@code Retry-After} header of the response replaces the computed delay.
+ * <pre>{@code
+ * HttpBuilder.forUrl("https://api.example.com/items")
+ *     .withMethod(HttpMethod.GET)
+ *     .expectBody(BodyHandlers.ofString())
+ *     .withRetry(RetryPolicy.maxAttempts(4).withBackoff(Duration.ofMillis(50), Duration.ofSeconds(2)))
+ *     .send();
+ * }</pre>
+ * Instances are immutable and thread-safe, the {@code with} methods return a modified copy.
+ *
+ * @author Dennis Woithe
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class RetryPolicy {
+
+    /** Gateway errors and rate limiting, which are usually temporary. */
+    private static final Set<Integer> DEFAULT_STATUS_CODES = Set.of(429, 502, 503, 504);
+    private static final Duration DEFAULT_BASE_DELAY = Duration.ofMillis(100);
+    private static final Duration DEFAULT_MAX_DELAY = Duration.ofSeconds(10);
+
+    private final int maxAttempts;
+    private final long baseDelayNanos;
+    private final long maxDelayNanos;
+    private final Set<Integer> statusCodes;
+    private final List<Class<? extends Exception>> exceptionTypes;
+    private final boolean nonIdempotent;
+    private final Budget budget;
+
+    private RetryPolicy(
+            int maxAttempts, long baseDelayNanos, long maxDelayNanos,
+            Set<Integer> statusCodes, List<Class<? extends Exception>> exceptionTypes,
+            boolean nonIdempotent, Budget budget
+    ) {
+        this.maxAttempts = maxAttempts;
+        this.baseDelayNanos = baseDelayNanos;
+        this.maxDelayNanos = maxDelayNanos;
+        this.statusCodes = statusCodes;
+        this.exceptionTypes = exceptionTypes;
+        this.nonIdempotent = nonIdempotent;
+        this.budget = budget;
+    }
+
+    /**
+     * Sends a request at most {@code maxAttempts} times, so {@code 1} never retries.
+     * By default, it retries on {@link IOException}s and the status codes 429, 502, 503 and 504,
+     * waiting between 0 and 100ms before the first retry, doubling up to 10s.
+     *
+     * @throws IllegalArgumentException if the attempts are not positive.
+     */
+    public static RetryPolicy maxAttempts(int maxAttempts) {
+        if (maxAttempts <= 0)
+            throw new IllegalArgumentException("Max attempts must be positive: " + maxAttempts);
+        return new RetryPolicy(
+                maxAttempts, DEFAULT_BASE_DELAY.toNanos(), DEFAULT_MAX_DELAY.toNanos(),
+                DEFAULT_STATUS_CODES, List.of(IOException.class),
+                false, null
+        );
+    }
+
+    /**
+     * Sets the upper bound of the delay before the first retry, which doubles with every further retry up to {@code maxDelay}.
+     *
+     * @throws IllegalArgumentException if a delay is negative or the base delay exceeds the max delay.
+     */
+    public RetryPolicy withBackoff(Duration baseDelay, Duration maxDelay) {
+        if (baseDelay.isNegative() || maxDelay.compareTo(baseDelay) < 0)
+            throw new IllegalArgumentException("Delays must satisfy 0 <= baseDelay <= maxDelay");
+        return new RetryPolicy(maxAttempts, baseDelay.toNanos(), maxDelay.toNanos(), statusCodes, exceptionTypes, nonIdempotent, budget);
+    }
+
+    /** Replaces the status codes to retry on. */
+    public RetryPolicy retryOnStatus(int... codes) {
+        var set = new HashSet<Integer>();
+        for (var code : codes)
+            set.add(code);
+        return new RetryPolicy(maxAttempts, baseDelayNanos, maxDelayNanos, Set.copyOf(set), exceptionTypes, nonIdempotent, budget);
+    }
+
+    /** Replaces the exceptions to retry on, e.g. {@code Set.of(IOException.class)}. Subclasses are retried as well. */
+    public RetryPolicy retryOn(Collection<? extends Class<? extends Exception>> types) {
+        return new RetryPolicy(maxAttempts, baseDelayNanos, maxDelayNanos, statusCodes, List.copyOf(types), nonIdempotent, budget);
+    }
+
+    /** Also retries requests with non-idempotent methods like POST, which may then be processed several times. */
+    public RetryPolicy retryNonIdempotent() {
+        return new RetryPolicy(maxAttempts, baseDelayNanos, maxDelayNanos, statusCodes, exceptionTypes, true, budget);
+    }
+
+    /**
+     * Limits the retries by the budget, which may be shared by many policies.
+     *
+     * @see Budget
+     */
+    public RetryPolicy withBudget(Budget retryBudget) {
+        Objects.requireNonNull(retryBudget, "Budget must not be null");
+        return new RetryPolicy(maxAttempts, baseDelayNanos, maxDelayNanos, statusCodes, exceptionTypes, nonIdempotent, retryBudget);
+    }
+
+    /** The max number of times a request is sent. */
+    public int maxAttempts() {
+        return maxAttempts;
+    }
+
+    /** Called once per request before its first attempt. */
+    void onRequest() {
+        if (budget != null)
+            budget.deposit();
+    }
+
+    /**
+     * Whether the attempt with the passed number (starting at 1) should be followed by another one.
+     * Either the response or the failure is null. Withdraws from the budget if it returns true.
+     */
+    boolean shouldRetry(HttpRequest request, int attempt, HttpResponse<?> response, Throwable failure) {
+        if (attempt >= maxAttempts)
+            return false;
+        if (!nonIdempotent && !HttpMethod.isIdempotent(request.method()))
+            return false;
+        var retryable = response != null
+                        ? statusCodes.contains(response.statusCode())
+                        : exceptionTypes.stream().anyMatch(type -> type.isInstance(failure));
+        return retryable && (budget == null || budget.tryWithdraw());
+    }
+
+    /**
+     * The delay before the attempt following the passed one.
+     * Uses the {@code Retry-After} header of the response if there is one, capped at the max delay.
+     */
+    Duration delayAfter(int attempt, HttpResponse<?> response) {
+        if (response != null) {
+            var retryAfter = response.headers().firstValue(HttpResponseHeaderField.RETRY_AFTER.getFieldName()).map(RetryPolicy::parseRetryAfter);
+            if (retryAfter.isPresent() && !retryAfter.get().isNegative())
+                return Duration.ofNanos(Math.min(retryAfter.get().toNanos(), maxDelayNanos));
+        }
+        var shift = Math.min(attempt - 1, Long.SIZE - 2);
+        var cap = baseDelayNanos > maxDelayNanos >> shift ? maxDelayNanos : baseDelayNanos << shift;
+        return Duration.ofNanos(cap == 0 ? 0 : ThreadLocalRandom.current().nextLong(cap + 1));
+    }
+
+    /**
+     * Parses the {@code Retry-After} header, which is either a number of seconds or an HTTP date.
+     * Returns a negative duration if the value can't be parsed.
+     */
+    static Duration parseRetryAfter(String value) {
+        var trimmed = value.trim();
+        try {
+            return Duration.ofSeconds(Long.parseLong(trimmed));
+        } catch (NumberFormatException ignored) {
+            try {
+                return Duration.between(ZonedDateTime.now(), ZonedDateTime.parse(trimmed, DateTimeFormatter.RFC_1123_DATE_TIME));
+            } catch (DateTimeParseException e) {
+                return Duration.ofSeconds(-1);
+            }
+        }
+    }
+
+    /**
+     * Limits retries to a fraction of all requests, so retries can't multiply the load of a struggling server.
+     * Every request deposits {@code ratio} tokens and every retry withdraws one,
+     * with at most {@code maxTokens} saved up for bursts of failures.
+     * It's lock-free and meant to be shared by all policies for the same server.
+     */
+    public static final class Budget {
+
+        /** Tokens are stored in thousandths. */
+        private static final long SCALE = 1000;
+
+        private final long deposit;
+        private final long capacity;
+        private final AtomicLong tokens;
+
+        private Budget(long deposit, long capacity) {
+            this.deposit = deposit;
+            this.capacity = capacity;
+            tokens = new AtomicLong(capacity);
+        }
+
+        /**
+         * Creates a budget that allows retrying about {@code ratio} of the requests, e.g. {@code 0.1} for 10%.
+         *
+         * @throws IllegalArgumentException if the ratio is not in (0, 1] or the max tokens are not positive.
+         */
+        public static Budget of(double ratio, int maxTokens) {
+            if (!(ratio > 0 && ratio <= 1))
+                throw new IllegalArgumentException("Ratio must be in (0, 1]: " + ratio);
+            if (maxTokens <= 0)
+                throw new IllegalArgumentException("Max tokens must be positive: " + maxTokens);
+            return new Budget(Math.round(ratio * SCALE), maxTokens * SCALE);
+        }
+
+        void deposit() {
+            tokens.accumulateAndGet(deposit, (current, add) -> Math.min(capacity, current + add));
+        }
+
+        boolean tryWithdraw() {
+            long current;
+            do {
+                current = tokens.get();
+                if (current < SCALE)
+                    return false;
+            } while (!tokens.compareAndSet(current, current - SCALE));
+            return true;
+        }
+
+        /** The number of retries that are currently allowed. */
+        public long available() {
+            return tokens.get() / SCALE;
+        }
+
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,350 @@
+package de.trinext.framework.util.net;
+
+import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.BodySubscriber;
+import java.net.http.HttpResponse.BodySubscribers;
+import java.net.http.HttpResponse.ResponseInfo;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.Flow.Subscriber;
+import java.util.concurrent.Flow.Subscription;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Function;
+
+/**
+ * {@link BodyHandler}s that pass a body on line by line, as NDJSON records or as Server-Sent Events while it arrives,
+ * so a body of any size is processed with constant memory.
+ * <p>
+ * The items are delivered to a {@link Subscriber}, and the body is only read as fast as the subscriber requests items.
+ * The variants with a {@link Consumer} request the next item after the consumer returned.
+ * The body of the response is {@code null} and completes when the stream ended,
+ * or exceptionally if the parser or the consumer threw.
+ * <pre>{@code
+ * HttpBuilder.forUrl("https://api.example.com/export")
+ *     .withMethod(HttpMethod.GET)
+ *     .expectBody(StreamingBodyHandlers.ofNdjson(Order::parse, orders::add))
+ *     .sendAsync()
+ *     .join();
+ * }</pre>
+ * As the items are passed on immediately, these handlers must not be combined with retries or hedging,
+ * which would deliver the items of several exchanges.
+ * The charset is taken from the {@code Content-Type} of the response, UTF-8 by default.
+ *
+ * @author Dennis Woithe
+ */
+@SuppressWarnings({"unused", "WeakerAccess", "HardCodedStringLiteral"})
+public final class StreamingBodyHandlers {
+
+    private StreamingBodyHandlers() { }
+
+    // ==== LINES ============================================================ //
+
+    /** Passes each line of the body to the subscriber, without line terminator. */
+    public static BodyHandler<Void> ofLines(Subscriber<? super String> subscriber) {
+        Objects.requireNonNull(subscriber, "Subscriber must not be null");
+        return info -> streaming(info, Decoder.lines(), subscriber);
+    }
+
+    /** Passes each line of the body to the consumer, without line terminator. */
+    public static BodyHandler<Void> ofLines(Consumer<? super String> consumer) {
+        return ofLines(new ConsumingSubscriber<>(consumer));
+    }
+
+    // ==== NDJSON =========================================================== //
+
+    /**
+     * Parses each non-blank line of a newline-delimited JSON body with the parser and passes the record to the subscriber.
+     *
+     * @param parser parses one JSON document, e.g. {@code line -> mapper.readValue(line, Order.class)}
+     */
+    public static <R> BodyHandler<Void> ofNdjson(Function<? super String, ? extends R> parser, Subscriber<? super R> subscriber) {
+        Objects.requireNonNull(parser, "Parser must not be null");
+        Objects.requireNonNull(subscriber, "Subscriber must not be null");
+        return info -> streaming(info, Decoder.ndjson(parser), subscriber);
+    }
+
+    /**
+     * Parses each non-blank line of a newline-delimited JSON body with the parser and passes the record to the consumer.
+     *
+     * @see #ofNdjson(Function, Subscriber)
+     */
+    public static <R> BodyHandler<Void> ofNdjson(Function<? super String, ? extends R> parser, Consumer<? super R> consumer) {
+        return ofNdjson(parser, new ConsumingSubscriber<>(consumer));
+    }
+
+    // ==== SERVER-SENT EVENTS =============================================== //
+
+    /**
+     * Passes each event of a {@code text/event-stream} body to the subscriber.
+     * Comments and events without data are skipped, as specified by the HTML standard.
+     */
+    public static BodyHandler<Void> ofServerSentEvents(Subscriber<? super ServerSentEvent> subscriber) {
+        Objects.requireNonNull(subscriber, "Subscriber must not be null");
+        return info -> streaming(info, new EventDecoder(), subscriber);
+    }
+
+    /**
+     * Passes each event of a {@code text/event-stream} body to the consumer.
+     *
+     * @see #ofServerSentEvents(Subscriber)
+     */
+    public static BodyHandler<Void> ofServerSentEvents(Consumer<? super ServerSentEvent> consumer) {
+        return ofServerSentEvents(new ConsumingSubscriber<>(consumer));
+    }
+
+    /**
+     * One Server-Sent Event.
+     *
+     * @param id    the last event id of the stream, or an empty string
+     * @param event the event type, {@code "message"} by default
+     * @param data  the data lines joined by {@code \n}
+     * @param retry the reconnection time sent with the event, or null
+     */
+    public record ServerSentEvent(String id, String event, String data, Duration retry) { }
+
+    // ==== INTERNALS ======================================================== //
+
+    /** Turns lines into items, returning null while a line doesn't complete one. */
+    @FunctionalInterface
+    private interface Decoder<R> {
+
+        R decode(String line);
+
+        static Decoder<String> lines() {
+            return line -> line;
+        }
+
+        static <R> Decoder<R> ndjson(Function<? super String, ? extends R> parser) {
+            return line -> line.isBlank() ? null : parser.apply(line);
+        }
+
+    }
+
+    /** Collects the fields of an event until the blank line that dispatches it. */
+    private static final class EventDecoder implements Decoder<ServerSentEvent> {
+
+        private final StringBuilder data = new StringBuilder();
+        private String lastId = "";
+        private String event = "";
+        private Duration retry;
+
+        @Override
+        public ServerSentEvent decode(String line) {
+            if (line.isEmpty())
+                return dispatch();
+            if (line.charAt(0) == ':')
+                return null;
+            var colon = line.indexOf(':');
+            var field = colon < 0 ? line : line.substring(0, colon);
+            var value = colon < 0 ? "" : line.substring(line.startsWith(" ", colon + 1) ? colon + 2 : colon + 1);
+            switch (field) {
+                case "data" -> data.append(value).append('\n');
+                case "event" -> event = value;
+                case "id" -> {
+                    if (value.indexOf('\0') < 0)
+                        lastId = value;
+                }
+                case "retry" -> {
+                    if (!value.isEmpty() && value.length() < 19 && value.chars().allMatch(c -> c >= '0' && c <= '9'))
+                        retry = Duration.ofMillis(Long.parseLong(value));
+                }
+                default -> { }
+            }
+            return null;
+        }
+
+        private ServerSentEvent dispatch() {
+            ServerSentEvent dispatched = null;
+            if (!data.isEmpty())
+                dispatched = new ServerSentEvent(lastId, event.isEmpty() ? "message" : event, data.substring(0, data.length() - 1), retry);
+            data.setLength(0);
+            event = "";
+            retry = null;
+            return dispatched;
+        }
+
+    }
+
+    /** Splits the body into lines with {@link BodySubscribers#fromLineSubscriber} and decodes them with the decoder. */
+    private static <R> BodySubscriber<Void> streaming(ResponseInfo info, Decoder<? extends R> decoder, Subscriber<? super R> subscriber) {
+        var decoding = new DecodingSubscriber<>(decoder, subscriber);
+        return new StreamingSubscriber(BodySubscribers.fromLineSubscriber(decoding, ignored -> null, charsetOf(info), null), decoding.done);
+    }
+
+    /** Passes the body on to the line splitter and completes when the decoding ended. */
+    private record StreamingSubscriber(BodySubscriber<Void> lines, CompletableFuture<Void> done) implements BodySubscriber<Void> {
+
+        @Override
+        public CompletionStage<Void> getBody() {
+            return done;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            lines.onSubscribe(subscription);
+        }
+
+        @Override
+        public void onNext(List<ByteBuffer> buffers) {
+            lines.onNext(buffers);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            lines.onError(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            lines.onComplete();
+        }
+
+    }
+
+    /**
+     * Decodes lines into items and passes them on.
+     * Lines are requested one at a time and only while the downstream subscriber has demand,
+     * so at most the lines of one received buffer are held.
+     */
+    private static final class DecodingSubscriber<R> implements Subscriber<String> {
+
+        private final Decoder<? extends R> decoder;
+        private final Subscriber<? super R> downstream;
+        private final CompletableFuture<Void> done = new CompletableFuture<>();
+        private final AtomicLong demand = new AtomicLong();
+        /** Whether a line was requested from upstream and didn't arrive yet. */
+        private final AtomicBoolean lineRequested = new AtomicBoolean();
+        private Subscription upstream;
+
+        DecodingSubscriber(Decoder<? extends R> decoder, Subscriber<? super R> downstream) {
+            this.decoder = decoder;
+            this.downstream = downstream;
+        }
+
+        @Override
+        public void onSubscribe(Subscription subscription) {
+            upstream = subscription;
+            downstream.onSubscribe(new Subscription() {
+                @Override
+                public void request(long n) {
+                    if (n <= 0)
+                        fail(new IllegalArgumentException("Requested items must be positive: " + n));
+                    else {
+                        demand.accumulateAndGet(n, (current, added) -> current + added < 0 ? Long.MAX_VALUE : current + added);
+                        requestLine();
+                    }
+                }
+
+                @Override
+                public void cancel() {
+                    upstream.cancel();
+                    done.complete(null);
+                }
+            });
+        }
+
+        @Override
+        public void onNext(String line) {
+            if (done.isDone())
+                return;
+            // Cleared first, so a request of the downstream from within onNext may ask for the next line
+            lineRequested.set(false);
+            R item;
+            try {
+                item = decoder.decode(line);
+                if (item != null) {
+                    demand.decrementAndGet();
+                    downstream.onNext(item);
+                }
+            } catch (RuntimeException e) {
+                fail(e);
+                return;
+            }
+            // A line that didn't complete an item consumed no demand
+            requestLine();
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            if (!done.isDone())
+                downstream.onError(throwable);
+            done.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            if (!done.isDone())
+                downstream.onComplete();
+            done.complete(null);
+        }
+
+        /** Requests the next line while there is demand, but never more than one at a time. */
+        private void requestLine() {
+            if (demand.get() > 0 && !done.isDone() && lineRequested.compareAndSet(false, true))
+                upstream.request(1);
+        }
+
+        private void fail(Throwable failure) {
+            upstream.cancel();
+            if (!done.isDone())
+                downstream.onError(failure);
+            done.completeExceptionally(failure);
+        }
+
+    }
+
+    /** Passes the items to a consumer, requesting the next one after the consumer returned. */
+    private static final class ConsumingSubscriber<R> implements Subscriber<R> {
+
+        private final Consumer<? super R> consumer;
+        private Subscription subscription;
+
+        ConsumingSubscriber(Consumer<? super R> consumer) {
+            this.consumer = Objects.requireNonNull(consumer, "Consumer must not be null");
+        }
+
+        @Override
+        public void onSubscribe(Subscription itemSubscription) {
+            subscription = itemSubscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(R item) {
+            consumer.accept(item);
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable throwable) { }
+
+        @Override
+        public void onComplete() { }
+
+    }
+
+    /** The charset of the {@code Content-Type}, UTF-8 if it names none or an unknown one. */
+    private static Charset charsetOf(ResponseInfo info) {
+        var contentType = info.headers().firstValue(HttpResponseHeaderField.CONTENT_TYPE.getFieldName()).orElse("");
+        for (var parameter : contentType.split(";")) {
+            var trimmed = parameter.trim();
+            if (trimmed.toLowerCase(Locale.ROOT).startsWith("charset="))
+                try {
+                    return Charset.forName(trimmed.substring("charset=".length()).replace("\"", ""));
+                } catch (IllegalArgumentException e) {
+                    return StandardCharsets.UTF_8;
+                }
+        }
+        return StandardCharsets.UTF_8;
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,67 @@
+package de.trinext.framework.util.random;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Weighted choice between n indices in constant time, using Vose's alias method.
+ * Building the table takes O(n) time and memory.
+ *
+ * @author Dennis Woithe
+ * @see <a href="https://www.keithschwarz.com/darts-dice-coins/">Darts, Dice, and Coins: Sampling from a Discrete Distribution</a>
+ */
+final class AliasTable implements IntDistribution {
+
+    private final double[] probabilities;
+    private final int[] aliases;
+
+    AliasTable(double... weights) {
+        var n = weights.length;
+        if (n == 0)
+            throw new IllegalArgumentException("Weights must not be empty");
+        var sum = 0.0;
+        for (var weight : weights) {
+            if (!(weight >= 0) || Double.isInfinite(weight))
+                throw new IllegalArgumentException("Weights must be finite and not negative");
+            sum += weight;
+        }
+        if (!(sum > 0))
+            throw new IllegalArgumentException("At least one weight must be positive");
+
+        probabilities = new double[n];
+        aliases = new int[n];
+        var scaled = new double[n];
+        // Both worklists are stacks of indices, small ones grow from the start, large ones from the end
+        var worklist = new int[n];
+        var small = 0;
+        var large = n;
+        for (var i = 0; i < n; i++) {
+            scaled[i] = weights[i] * n / sum;
+            if (scaled[i] < 1)
+                worklist[small++] = i;
+            else
+                worklist[--large] = i;
+        }
+        while (small > 0 && large < n) {
+            var less = worklist[--small];
+            var more = worklist[large++];
+            probabilities[less] = scaled[less];
+            aliases[less] = more;
+            scaled[more] = scaled[more] + scaled[less] - 1;
+            if (scaled[more] < 1)
+                worklist[small++] = more;
+            else
+                worklist[--large] = more;
+        }
+        // Leftovers are only caused by rounding errors and are (almost) 1
+        while (large < n)
+            probabilities[worklist[large++]] = 1;
+        while (small > 0)
+            probabilities[worklist[--small]] = 1;
+    }
+
+    @Override public int sample(RandomGenerator rng) {
+        var i = rng.nextInt(probabilities.length);
+        return rng.nextDouble() < probabilities[i] ? i : aliases[i];
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,76 @@
+package de.trinext.framework.util.random;
+
+import java.util.Objects;
+import java.util.random.RandomGenerator;
+import java.util.stream.DoubleStream;
+
+/**
+ * A continuous probability distribution, for example of latencies or inter-arrival times in a load test.
+ * Implementations are immutable and thread-safe, the passed {@link RandomGenerator} of course not necessarily.
+ *
+ * @author Dennis Woithe
+ * @see IntDistribution
+ */
+@SuppressWarnings({"unused", "InterfaceNeverImplemented"})
+@FunctionalInterface
+public interface DoubleDistribution {
+
+    /** Draws one value. */
+    double sample(RandomGenerator rng);
+
+    /**
+     * Writes {@code length} samples into the array starting at {@code offset}.
+     *
+     * @throws IndexOutOfBoundsException if the range is out of the array bounds.
+     */
+    default void fill(RandomGenerator rng, double[] values, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, values.length);
+        for (var i = offset; i < offset + length; i++)
+            values[i] = sample(rng);
+    }
+
+    /** Draws n values. */
+    default DoubleStream samples(RandomGenerator rng, long amount) {
+        return DoubleStream.generate(() -> sample(rng)).limit(amount);
+    }
+
+    // ==== FACTORIES ======================================================== //
+
+    /**
+     * Uniformly distributed doubles between min (inclusive) and max (exclusive).
+     *
+     * @throws IllegalArgumentException if min is not smaller than max.
+     */
+    static DoubleDistribution uniform(double min, double max) {
+        if (!(min < max))
+            throw new IllegalArgumentException("min must be smaller than max");
+        return rng -> rng.nextDouble(min, max);
+    }
+
+    /**
+     * Normal (Gaussian) distributed doubles.
+     *
+     * @throws IllegalArgumentException if the standard deviation is negative.
+     * @see RandomGenerator#nextGaussian(double, double)
+     */
+    static DoubleDistribution normal(double mean, double standardDeviation) {
+        if (standardDeviation < 0)
+            throw new IllegalArgumentException("Standard deviation must not be negative");
+        return rng -> mean + standardDeviation * rng.nextGaussian();
+    }
+
+    /**
+     * Exponentially distributed doubles, e.g. the time between two events of a Poisson process.
+     *
+     * @param mean The mean value, which is the inverse of the rate.
+     *
+     * @throws IllegalArgumentException if the mean is not positive.
+     * @see RandomGenerator#nextExponential()
+     */
+    static DoubleDistribution exponential(double mean) {
+        if (!(mean > 0))
+            throw new IllegalArgumentException("Mean must be positive");
+        return rng -> mean * rng.nextExponential();
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,78 @@
+package de.trinext.framework.util.random;
+
+import java.util.Objects;
+import java.util.random.RandomGenerator;
+import java.util.stream.IntStream;
+
+/**
+ * A probability distribution over ints, for example the popularity of keys in a load test.
+ * All samplers need constant expected time per sample.
+ * <pre>{@code
+ * var hotKeys = IntDistribution.zipf(1_000_000, 1.1);
+ * var keys = new int[10_000_000];
+ * hotKeys.fill(RandomSource.threadLocal().generator(), keys, 0, keys.length);
+ * }</pre>
+ * Implementations are immutable and thread-safe, the passed {@link RandomGenerator} of course not necessarily.
+ *
+ * @author Dennis Woithe
+ * @see DoubleDistribution
+ */
+@SuppressWarnings({"unused", "InterfaceNeverImplemented"})
+@FunctionalInterface
+public interface IntDistribution {
+
+    /** Draws one value. */
+    int sample(RandomGenerator rng);
+
+    /**
+     * Writes {@code length} samples into the array starting at {@code offset}.
+     *
+     * @throws IndexOutOfBoundsException if the range is out of the array bounds.
+     */
+    default void fill(RandomGenerator rng, int[] values, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, values.length);
+        for (var i = offset; i < offset + length; i++)
+            values[i] = sample(rng);
+    }
+
+    /** Draws n values. */
+    default IntStream samples(RandomGenerator rng, long amount) {
+        return IntStream.generate(() -> sample(rng)).limit(amount);
+    }
+
+    // ==== FACTORIES ======================================================== //
+
+    /**
+     * Uniformly distributed ints between min (inclusive) and max (exclusive).
+     *
+     * @throws IllegalArgumentException if min is not smaller than max.
+     */
+    static IntDistribution uniform(int min, int max) {
+        if (min >= max)
+            throw new IllegalArgumentException("min must be smaller than max");
+        return rng -> rng.nextInt(min, max);
+    }
+
+    /**
+     * Zipf (power-law) distributed ints between 0 (inclusive) and n (exclusive),
+     * where 0 is the most and n - 1 the least frequent value.
+     * The probability of value k is proportional to {@code 1 / (k + 1)^exponent}.
+     *
+     * @throws IllegalArgumentException if n or the exponent are not positive.
+     */
+    static IntDistribution zipf(int n, double exponent) {
+        return new ZipfDistribution(n, exponent);
+    }
+
+    /**
+     * Ints between 0 (inclusive) and {@code weights.length} (exclusive),
+     * where the probability of value i is proportional to {@code weights[i]}.
+     *
+     * @throws IllegalArgumentException if a weight is negative, not finite or all weights are 0.
+     * @see WeightedChoice
+     */
+    static IntDistribution weighted(double... weights) {
+        return new AliasTable(weights);
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,47 @@
+package de.trinext.framework.util.random;
+
+import java.io.Serial;
+
+/**
+ * Thrown by the parallel runners of {@link RandomSource} when the test fails for one of the random inputs.
+ * Carries everything needed to replay the failing input:
+ * <pre>{@code
+ * var input = RandomSource.reproduce(failure.runSeed(), failure.index(), RandomGenerator::nextInt);
+ * }</pre>
+ * The original failure is the {@link #getCause() cause}.
+ *
+ * @author Dennis Woithe
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class PropertyFailure extends AssertionError {
+
+    @Serial
+    private static final long serialVersionUID = 1L;
+
+    private final long runSeed;
+    private final long index;
+    private final transient Object input;
+
+    PropertyFailure(long runSeed, long index, Object input, Throwable cause) {
+        super("Test failed for input " + input + " at index " + index + " of run seed " + runSeed + ": " + cause, cause);
+        this.runSeed = runSeed;
+        this.index = index;
+        this.input = input;
+    }
+
+    /** The seed all inputs of the run were derived from. */
+    public long runSeed() {
+        return runSeed;
+    }
+
+    /** The index of the failing input within the run. */
+    public long index() {
+        return index;
+    }
+
+    /** The failing input, or null if creating it failed. */
+    public Object input() {
+        return input;
+    }
+
+}
\ No newline at end of file
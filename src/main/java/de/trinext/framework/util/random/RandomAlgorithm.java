@@ -0,0 +1,43 @@
+package de.trinext.framework.util.random;
+
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGeneratorFactory;
+
+/**
+ * Pseudo-random algorithms shipped with the JDK that can back a {@link RandomSource}.
+ * None of them is suitable for cryptographic purposes.
+ *
+ * @author Dennis Woithe
+ * @see <a href="https://docs.oracle.com/en/java/javase/21/docs/api/java.base/java/util/random/package-summary.html">java.util.random</a>
+ */
+@SuppressWarnings({"unused", "SpellCheckingInspection"})
+public enum RandomAlgorithm {
+
+    /** Splittable, good all-round choice. */
+    L64X128_MIX_RANDOM("L64X128MixRandom"),
+    /** Splittable, larger state and period than {@link #L64X128_MIX_RANDOM}. */
+    L64X256_MIX_RANDOM("L64X256MixRandom"),
+    /** Splittable, the algorithm of {@link java.util.SplittableRandom}. */
+    SPLITTABLE_RANDOM("SplittableRandom"),
+    /** Jumpable, the fastest algorithm for bulk data. */
+    XOROSHIRO_128_PLUS_PLUS("Xoroshiro128PlusPlus"),
+    /** Jumpable, larger state and period than {@link #XOROSHIRO_128_PLUS_PLUS}. */
+    XOSHIRO_256_PLUS_PLUS("Xoshiro256PlusPlus");
+
+    private final String algorithmName;
+
+    RandomAlgorithm(String algorithmName) {
+        this.algorithmName = algorithmName;
+    }
+
+    /** The name used by {@link RandomGeneratorFactory#of(String)}. */
+    public String getAlgorithmName() {
+        return algorithmName;
+    }
+
+    /** Returns the {@link RandomGeneratorFactory} for this algorithm. */
+    public RandomGeneratorFactory<RandomGenerator> factory() {
+        return RandomGeneratorFactory.of(algorithmName);
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,170 @@
+package de.trinext.framework.util.random;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Objects;
+import java.util.random.RandomGenerator;
+
+/**
+ * A set of Latin-1 characters to generate random {@link String}s from.
+ * Every character is drawn with the same probability.
+ * <p>
+ * Each character only needs as many bits as the alphabet size requires,
+ * so a single random long yields several characters ({@link #HEX}: 16, {@link #LETTERS}: 10).
+ * For alphabets whose size is not a power of two, out of range bit groups are skipped.
+ * <pre>{@code
+ * var key = RandomAlphabet.ALPHANUMERIC.randomString(RandomSource.threadLocal().generator(), 32);
+ * }</pre>
+ *
+ * @author Dennis Woithe
+ */
+@SuppressWarnings({"unused", "WeakerAccess", "HardCodedStringLiteral", "SpellCheckingInspection"})
+public final class RandomAlphabet {
+
+    /** [a-z] */
+    public static final RandomAlphabet LOWERCASE = of("abcdefghijklmnopqrstuvwxyz");
+    /** [A-Z] */
+    public static final RandomAlphabet UPPERCASE = of("ABCDEFGHIJKLMNOPQRSTUVWXYZ");
+    /** [A-Za-z] */
+    public static final RandomAlphabet LETTERS = of("ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz");
+    /** [0-9] */
+    public static final RandomAlphabet DIGITS = of("0123456789");
+    /** [A-Za-z0-9] */
+    public static final RandomAlphabet ALPHANUMERIC = of("ABCDEFGHIJKLMNOPQRSTUVWXYZabcdefghijklmnopqrstuvwxyz0123456789");
+    /** [0-9a-f] */
+    public static final RandomAlphabet HEX = of("0123456789abcdef");
+
+    private static final int MAX_SIZE = 256;
+
+    private final byte[] symbols;
+    private final int bitsPerSymbol;
+    private final int mask;
+    private final int symbolsPerDraw;
+
+    private RandomAlphabet(byte[] symbols) {
+        this.symbols = symbols;
+        bitsPerSymbol = Math.max(1, Integer.SIZE - Integer.numberOfLeadingZeros(symbols.length - 1));
+        mask = (1 << bitsPerSymbol) - 1;
+        symbolsPerDraw = Long.SIZE / bitsPerSymbol;
+    }
+
+    /**
+     * Creates an alphabet of the passed characters.
+     *
+     * @throws IllegalArgumentException if the characters are empty, contain duplicates or non Latin-1 characters.
+     */
+    public static RandomAlphabet of(String characters) {
+        if (characters == null || characters.isEmpty())
+            throw new IllegalArgumentException("Alphabet must not be null or empty");
+        var seen = new boolean[MAX_SIZE];
+        var symbols = new byte[characters.length()];
+        for (var i = 0; i < symbols.length; i++) {
+            var c = characters.charAt(i);
+            if (c >= MAX_SIZE)
+                throw new IllegalArgumentException("Alphabet character '" + c + "' is not in Latin-1");
+            if (seen[c])
+                throw new IllegalArgumentException("Alphabet character '" + c + "' is duplicated");
+            seen[c] = true;
+            //noinspection NumericCastThatLosesPrecision
+            symbols[i] = (byte) c;
+        }
+        return new RandomAlphabet(symbols);
+    }
+
+    /** The number of characters in this alphabet. */
+    public int size() {
+        return symbols.length;
+    }
+
+    /** Returns one random character of this alphabet. */
+    public char randomChar(RandomGenerator rng) {
+        return (char) (symbols[rng.nextInt(symbols.length)] & 0xFF);
+    }
+
+    /** Returns a random {@link String} with exactly {@code length} characters of this alphabet. */
+    public String randomString(RandomGenerator rng, int length) {
+        var bytes = new byte[length];
+        fill(rng, bytes, 0, length);
+        return new String(bytes, StandardCharsets.ISO_8859_1);
+    }
+
+    /**
+     * Writes {@code length} random characters of this alphabet as Latin-1 bytes into the array starting at {@code offset}.
+     *
+     * @throws IndexOutOfBoundsException if the range is out of the array bounds.
+     */
+    public void fill(RandomGenerator rng, byte[] bytes, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+        var end = offset + length;
+        for (var i = offset; i < end; ) {
+            var bits = rng.nextLong();
+            for (var k = symbolsPerDraw; k > 0 && i < end; k--, bits >>>= bitsPerSymbol) {
+                var index = (int) bits & mask;
+                if (index < symbols.length)
+                    bytes[i++] = symbols[index];
+            }
+        }
+    }
+
+    /**
+     * Writes {@code length} random characters of this alphabet into the array starting at {@code offset}.
+     * Lets you reuse one buffer for many random words.
+     *
+     * @throws IndexOutOfBoundsException if the range is out of the array bounds.
+     */
+    public void fill(RandomGenerator rng, char[] chars, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, chars.length);
+        var end = offset + length;
+        for (var i = offset; i < end; ) {
+            var bits = rng.nextLong();
+            for (var k = symbolsPerDraw; k > 0 && i < end; k--, bits >>>= bitsPerSymbol) {
+                var index = (int) bits & mask;
+                if (index < symbols.length)
+                    chars[i++] = (char) (symbols[index] & 0xFF);
+            }
+        }
+    }
+
+    /**
+     * Writes {@code length} random characters of this alphabet as Latin-1 bytes into the buffer
+     * and advances its position by {@code length}.
+     *
+     * @throws BufferOverflowException if the buffer has less than {@code length} bytes remaining.
+     */
+    public void fill(RandomGenerator rng, ByteBuffer buffer, int length) {
+        if (buffer.remaining() < length)
+            throw new BufferOverflowException();
+        for (var i = 0; i < length; ) {
+            var bits = rng.nextLong();
+            for (var k = symbolsPerDraw; k > 0 && i < length; k--, bits >>>= bitsPerSymbol) {
+                var index = (int) bits & mask;
+                if (index < symbols.length) {
+                    buffer.put(symbols[index]);
+                    i++;
+                }
+            }
+        }
+    }
+
+    /** Appends {@code length} random characters of this alphabet to the {@link StringBuilder}. */
+    public StringBuilder append(RandomGenerator rng, StringBuilder builder, int length) {
+        builder.ensureCapacity(builder.length() + length);
+        for (var i = 0; i < length; ) {
+            var bits = rng.nextLong();
+            for (var k = symbolsPerDraw; k > 0 && i < length; k--, bits >>>= bitsPerSymbol) {
+                var index = (int) bits & mask;
+                if (index < symbols.length) {
+                    builder.append((char) (symbols[index] & 0xFF));
+                    i++;
+                }
+            }
+        }
+        return builder;
+    }
+
+    @Override public String toString() {
+        return new String(symbols, StandardCharsets.ISO_8859_1);
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,472 @@
+package de.trinext.framework.util.random;
+
+import java.lang.reflect.*;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.IntFunction;
+import java.util.random.RandomGenerator;
+import java.util.stream.LongStream;
+import java.util.stream.Stream;
+
+import de.trinext.framework.util.internal.annotations.EvilShitFuckery;
+import de.trinext.framework.util.lang.ClassHelper;
+import de.trinext.framework.util.lang.ReflectionHelper;
+import de.trinext.framework.util.lang.UnsafeHelper;
+import sun.misc.Unsafe;
+
+import static de.trinext.framework.util.internal.annotations.EvilShitFuckery.BlackMagic.IGNORES_CONSTRUCTOR;
+import static de.trinext.framework.util.internal.annotations.EvilShitFuckery.BlackMagic.MODIFIES_FINAL_FIELD;
+import static de.trinext.framework.util.internal.annotations.EvilShitFuckery.BlackMagic.MODIFIES_PRIVATE_FIELD;
+
+/**
+ * Generates fully populated random instances of records and classes, for example as fixtures for load tests.
+ * <pre>{@code
+ * record Address(String street, int number) { }
+ * record Customer(UUID id, String name, List<Address> addresses, Map<String, BigDecimal> balances) { }
+ *
+ * RandomObjectGenerator.DEFAULT.randomObjects(Customer.class, 1_000_000).forEach(repository::save);
+ * }</pre>
+ * Supported are primitives and their wrappers, {@link String}, {@link BigInteger}, {@link BigDecimal}, {@link UUID},
+ * enums, arrays, {@link Optional}, {@link Collection}s, {@link Map}s, records and classes.
+ * Collections and maps are instances of the declared type, if it's a concrete class with a public no-arg constructor.
+ * Declared interfaces and abstract classes are implemented by {@link ArrayList}, {@link HashSet}, {@link ArrayDeque},
+ * {@link TreeSet}, {@link HashMap} or {@link TreeMap}, whichever fits first.
+ * Sorted collections are only generated for {@link Comparable} elements, and no collection contains {@code null}.
+ * Records are created by their canonical constructor,
+ * classes are created without any constructor and have all their fields written directly
+ * (see {@link ReflectionHelper#createInstanceWithoutConstructor(Class)}).
+ * Other types, like interfaces or abstract classes, are set to {@code null}.
+ * <p>
+ * The reflection needed to generate a type is done once per generator and type and then cached,
+ * so reuse generators instead of creating new ones.
+ * Records and classes nested deeper than {@link #withMaxDepth(int)} are set to {@code null} to stop recursive types.
+ * Record classes have to be accessible, meaning their package has to be opened to this module.
+ *
+ * @author Dennis Woithe
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class RandomObjectGenerator {
+
+    /** Generates collections with 0 to 8 elements, strings with 0 to 16 letters and up to 4 nested objects. */
+    public static final RandomObjectGenerator DEFAULT = new RandomObjectGenerator(0, 8, 0, 16, 4);
+
+    private static final Unsafe UNSAFE = UnsafeHelper.getUnsafe();
+
+    private final int minCollectionSize;
+    private final int maxCollectionSize;
+    private final int minStringLength;
+    private final int maxStringLength;
+    private final int maxDepth;
+
+    private final Map<Type, ValueGenerator> plans = new ConcurrentHashMap<>();
+
+    private RandomObjectGenerator(int minCollectionSize, int maxCollectionSize, int minStringLength, int maxStringLength, int maxDepth) {
+        this.minCollectionSize = minCollectionSize;
+        this.maxCollectionSize = maxCollectionSize;
+        this.minStringLength = minStringLength;
+        this.maxStringLength = maxStringLength;
+        this.maxDepth = maxDepth;
+    }
+
+    /**
+     * Returns a generator for collections, maps and arrays with {@code min} to {@code max} (both inclusive) elements.
+     *
+     * @throws IllegalArgumentException if min is negative or bigger than max.
+     */
+    public RandomObjectGenerator withCollectionSize(int min, int max) {
+        checkRange(min, max);
+        return new RandomObjectGenerator(min, max, minStringLength, maxStringLength, maxDepth);
+    }
+
+    /**
+     * Returns a generator for strings with {@code min} to {@code max} (both inclusive) characters.
+     *
+     * @throws IllegalArgumentException if min is negative or bigger than max.
+     */
+    public RandomObjectGenerator withStringLength(int min, int max) {
+        checkRange(min, max);
+        return new RandomObjectGenerator(minCollectionSize, maxCollectionSize, min, max, maxDepth);
+    }
+
+    /**
+     * Returns a generator that sets records and classes nested deeper than {@code maxDepth} to {@code null}.
+     *
+     * @throws IllegalArgumentException if maxDepth is negative.
+     */
+    public RandomObjectGenerator withMaxDepth(int maxDepth) {
+        if (maxDepth < 0)
+            throw new IllegalArgumentException("Max depth must not be negative");
+        return new RandomObjectGenerator(minCollectionSize, maxCollectionSize, minStringLength, maxStringLength, maxDepth);
+    }
+
+    /** Generates one random instance of the type using the calling thread's {@link ThreadLocalRandom}. */
+    public <T> T randomObject(Class<T> cls) {
+        return randomObject(cls, ThreadLocalRandom.current());
+    }
+
+    /** Generates one random instance of the type. */
+    @SuppressWarnings("unchecked") // The plan of a class only generates instances of its wrapper type, which is T
+    public <T> T randomObject(Class<T> cls, RandomGenerator rng) {
+        return (T) planFor(ClassHelper.forceWrapperType(cls)).generate(rng, 0);
+    }
+
+    /**
+     * Generates one random instance of a generic type, e.g. the type of a field.
+     * Use {@link #randomObject(Class, RandomGenerator)} for non-generic types.
+     */
+    public Object randomObject(Type type, RandomGenerator rng) {
+        return planFor(type).generate(rng, 0);
+    }
+
+    /** Generates n random instances of the type using the calling thread's {@link ThreadLocalRandom}. */
+    @SuppressWarnings("unchecked") // The plan of a class only generates instances of its wrapper type, which is T
+    public <T> Stream<T> randomObjects(Class<T> cls, long amount) {
+        var plan = planFor(ClassHelper.forceWrapperType(cls));
+        return LongStream.range(0, amount).mapToObj(ignored -> (T) plan.generate(ThreadLocalRandom.current(), 0));
+    }
+
+    /** Generates n random instances of the type. */
+    @SuppressWarnings("unchecked") // The plan of a class only generates instances of its wrapper type, which is T
+    public <T> Stream<T> randomObjects(Class<T> cls, long amount, RandomGenerator rng) {
+        var plan = planFor(ClassHelper.forceWrapperType(cls));
+        return LongStream.range(0, amount).mapToObj(ignored -> (T) plan.generate(rng, 0));
+    }
+
+    // ==== PLANS ============================================================ //
+
+    /** Generates a value of a certain type. */
+    @FunctionalInterface
+    private interface ValueGenerator {
+
+        Object generate(RandomGenerator rng, int depth);
+
+    }
+
+    /** Returns the cached plan of the type or creates it. */
+    private ValueGenerator planFor(Type type) {
+        var plan = plans.get(type);
+        if (plan == null) {
+            // Not computeIfAbsent, as plans of recursive types would update the map recursively
+            plan = createPlan(type);
+            var existing = plans.putIfAbsent(type, plan);
+            if (existing != null)
+                plan = existing;
+        }
+        return plan;
+    }
+
+    /** A plan that is looked up on first use, so that plans of recursive types don't recurse endlessly. */
+    private ValueGenerator lazyPlanFor(Type type) {
+        return new ValueGenerator() {
+            private ValueGenerator plan;
+
+            @Override public Object generate(RandomGenerator rng, int depth) {
+                var p = plan;
+                if (p == null)
+                    plan = p = planFor(type);
+                return p.generate(rng, depth);
+            }
+        };
+    }
+
+    @SuppressWarnings({"OverlyComplexMethod", "IfStatementWithTooManyBranches", "OverlyLongMethod"})
+    private ValueGenerator createPlan(Type type) {
+        if (type instanceof WildcardType wildcard)
+            return planFor(wildcard.getUpperBounds()[0]);
+        if (type instanceof TypeVariable<?> variable)
+            return planFor(variable.getBounds()[0]);
+        if (type instanceof GenericArrayType arrayType)
+            return arrayPlan(erasure(arrayType.getGenericComponentType()), lazyPlanFor(arrayType.getGenericComponentType()));
+        if (type instanceof ParameterizedType parameterized)
+            return parameterizedPlan((Class<?>) parameterized.getRawType(), parameterized.getActualTypeArguments());
+        var cls = (Class<?>) type;
+        if (cls == boolean.class || cls == Boolean.class)
+            return (rng, depth) -> rng.nextBoolean();
+        if (cls == byte.class || cls == Byte.class)
+            //noinspection NumericCastThatLosesPrecision
+            return (rng, depth) -> (byte) rng.nextInt();
+        if (cls == short.class || cls == Short.class)
+            //noinspection NumericCastThatLosesPrecision
+            return (rng, depth) -> (short) rng.nextInt();
+        if (cls == char.class || cls == Character.class)
+            return (rng, depth) -> RandomAlphabet.LETTERS.randomChar(rng);
+        if (cls == int.class || cls == Integer.class)
+            return (rng, depth) -> rng.nextInt();
+        if (cls == long.class || cls == Long.class)
+            return (rng, depth) -> rng.nextLong();
+        if (cls == float.class || cls == Float.class)
+            return (rng, depth) -> rng.nextFloat();
+        if (cls == double.class || cls == Double.class)
+            return (rng, depth) -> rng.nextDouble();
+        if (cls == String.class || cls == CharSequence.class)
+            return (rng, depth) -> RandomAlphabet.ALPHANUMERIC.randomString(rng, rng.nextInt(minStringLength, maxStringLength + 1));
+        if (cls == BigInteger.class)
+            return (rng, depth) -> BigInteger.valueOf(rng.nextLong());
+        if (cls == BigDecimal.class)
+            return (rng, depth) -> BigDecimal.valueOf(rng.nextLong(), 2);
+        if (cls == UUID.class)
+            return (rng, depth) -> new UUID(rng.nextLong(), rng.nextLong());
+        if (cls.isEnum()) {
+            var constants = cls.getEnumConstants();
+            return constants.length == 0 ? (rng, depth) -> null : (rng, depth) -> constants[rng.nextInt(constants.length)];
+        }
+        if (cls.isArray())
+            return arrayPlan(cls.getComponentType(), lazyPlanFor(cls.getComponentType()));
+        if (Optional.class == cls || isCollection(cls) || Map.class.isAssignableFrom(cls))
+            return parameterizedPlan(cls, cls.getTypeParameters());
+        if (cls.isRecord())
+            return recordPlan(cls);
+        if (cls.isInterface() || Modifier.isAbstract(cls.getModifiers()) || cls.isPrimitive() || cls == Object.class)
+            return (rng, depth) -> null;
+        return classPlan(cls);
+    }
+
+    private ValueGenerator arrayPlan(Class<?> componentType, ValueGenerator componentPlan) {
+        return (rng, depth) -> {
+            var array = Array.newInstance(componentType, collectionSize(rng));
+            for (var i = 0; i < Array.getLength(array); i++)
+                Array.set(array, i, componentPlan.generate(rng, depth));
+            return array;
+        };
+    }
+
+    /** Plans for {@link Optional}, {@link Collection}s and {@link Map}s. */
+    private ValueGenerator parameterizedPlan(Class<?> rawType, Type[] typeArguments) {
+        if (Optional.class == rawType) {
+            var valuePlan = lazyPlanFor(typeArguments[0]);
+            return (rng, depth) -> rng.nextBoolean() ? Optional.ofNullable(valuePlan.generate(rng, depth)) : Optional.empty();
+        }
+        if (Map.class.isAssignableFrom(rawType)) {
+            var keyType = typeArguments.length == 2 ? typeArguments[0] : Object.class;
+            var factory = mapFactory(rawType, keyType);
+            if (factory == null)
+                return (rng, depth) -> null;
+            var keyPlan = lazyPlanFor(keyType);
+            var valuePlan = lazyPlanFor(typeArguments.length == 2 ? typeArguments[1] : Object.class);
+            return (rng, depth) -> {
+                var size = collectionSize(rng);
+                var map = factory.apply(size);
+                for (var i = 0; i < size; i++) {
+                    var key = keyPlan.generate(rng, depth);
+                    var value = valuePlan.generate(rng, depth);
+                    if (key != null && value != null)
+                        map.put(key, value);
+                }
+                return map;
+            };
+        }
+        if (isCollection(rawType)) {
+            var elementType = typeArguments.length == 1 ? typeArguments[0] : Object.class;
+            var factory = collectionFactory(rawType, elementType);
+            if (factory == null)
+                return (rng, depth) -> null;
+            var elementPlan = lazyPlanFor(elementType);
+            return (rng, depth) -> {
+                var size = collectionSize(rng);
+                var collection = factory.apply(size);
+                for (var i = 0; i < size; i++) {
+                    var element = elementPlan.generate(rng, depth);
+                    if (element != null)
+                        collection.add(element);
+                }
+                return collection;
+            };
+        }
+        return createPlan(rawType);
+    }
+
+    /** Whether the type is generated as collection, unlike other {@link Iterable}s such as {@link java.nio.file.Path}. */
+    private static boolean isCollection(Class<?> type) {
+        return type == Iterable.class || Collection.class.isAssignableFrom(type);
+    }
+
+    /**
+     * Creates collections of the declared type, or {@code null} if there is no fitting implementation
+     * or the elements of a sorted collection are not {@link Comparable}.
+     */
+    @SuppressWarnings("unchecked")
+    private static IntFunction<Collection<Object>> collectionFactory(Class<?> type, Type elementType) {
+        IntFunction<Collection<Object>> factory;
+        if (type.isAssignableFrom(ArrayList.class))
+            factory = ArrayList::new;
+        else if (type.isAssignableFrom(HashSet.class))
+            factory = HashSet::newHashSet;
+        else if (type.isAssignableFrom(ArrayDeque.class))
+            factory = ArrayDeque::new;
+        else if (type.isAssignableFrom(TreeSet.class))
+            factory = ignored -> new TreeSet<>();
+        else {
+            var constructor = publicConstructor(type);
+            if (constructor == null)
+                return null;
+            factory = ignored -> (Collection<Object>) newInstance(constructor);
+        }
+        var sorted = SortedSet.class.isAssignableFrom(type) || PriorityQueue.class.isAssignableFrom(type)
+                     || PriorityBlockingQueue.class.isAssignableFrom(type);
+        return sorted && !Comparable.class.isAssignableFrom(erasure(elementType)) ? null : factory;
+    }
+
+    /**
+     * Creates maps of the declared type, or {@code null} if there is no fitting implementation
+     * or the keys of a sorted map are not {@link Comparable}.
+     */
+    @SuppressWarnings("unchecked")
+    private static IntFunction<Map<Object, Object>> mapFactory(Class<?> type, Type keyType) {
+        IntFunction<Map<Object, Object>> factory;
+        if (type.isAssignableFrom(HashMap.class))
+            factory = HashMap::newHashMap;
+        else if (type.isAssignableFrom(TreeMap.class))
+            factory = ignored -> new TreeMap<>();
+        else {
+            var constructor = publicConstructor(type);
+            if (constructor == null)
+                return null;
+            factory = ignored -> (Map<Object, Object>) newInstance(constructor);
+        }
+        return SortedMap.class.isAssignableFrom(type) && !Comparable.class.isAssignableFrom(erasure(keyType)) ? null : factory;
+    }
+
+    /** The public no-arg constructor of a concrete class, or {@code null} if it has none. */
+    private static Constructor<?> publicConstructor(Class<?> type) {
+        if (type.isInterface() || Modifier.isAbstract(type.getModifiers()))
+            return null;
+        try {
+            var constructor = type.getConstructor();
+            return constructor.canAccess(null) ? constructor : null;
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static Object newInstance(Constructor<?> constructor) {
+        try {
+            return constructor.newInstance();
+        } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+            throw new IllegalStateException("Can't construct " + constructor.getDeclaringClass().getName(), e);
+        }
+    }
+
+    private ValueGenerator recordPlan(Class<?> cls) {
+        var components = cls.getRecordComponents();
+        var componentPlans = Arrays.stream(components)
+                .map(component -> lazyPlanFor(component.getGenericType()))
+                .toArray(ValueGenerator[]::new);
+        Constructor<?> constructor;
+        try {
+            constructor = cls.getDeclaredConstructor(Arrays.stream(components)
+                    .map(RecordComponent::getType)
+                    .toArray(Class<?>[]::new));
+            constructor.setAccessible(true);
+        } catch (NoSuchMethodException | InaccessibleObjectException e) {
+            throw new IllegalArgumentException("Can't access the canonical constructor of " + cls.getName(), e);
+        }
+        return (rng, depth) -> {
+            if (depth >= maxDepth)
+                return null;
+            var args = new Object[componentPlans.length];
+            for (var i = 0; i < args.length; i++)
+                args[i] = checkType(components[i].getType(), componentPlans[i].generate(rng, depth + 1), components[i].getName());
+            try {
+                return constructor.newInstance(args);
+            } catch (InstantiationException | IllegalAccessException | InvocationTargetException e) {
+                throw new IllegalStateException("Can't construct " + cls.getName(), e);
+            }
+        };
+    }
+
+    private ValueGenerator classPlan(Class<?> cls) {
+        // Fails early for classes that can't be instantiated
+        ReflectionHelper.createInstanceWithoutConstructor(cls);
+        var fields = ClassHelper.allFieldsOf(cls)
+                .filter(field -> !Modifier.isStatic(field.getModifiers()))
+                .toArray(Field[]::new);
+        var offsets = new long[fields.length];
+        var fieldPlans = new ValueGenerator[fields.length];
+        for (var i = 0; i < fields.length; i++) {
+            offsets[i] = UnsafeHelper.objectFieldOffset(fields[i]);
+            fieldPlans[i] = lazyPlanFor(fields[i].getGenericType());
+        }
+        var types = Arrays.stream(fields).map(Field::getType).toArray(Class<?>[]::new);
+        return (rng, depth) -> {
+            if (depth >= maxDepth)
+                return null;
+            var instance = allocateInstance(cls);
+            for (var i = 0; i < fieldPlans.length; i++)
+                putField(instance, offsets[i], types[i], checkType(types[i], fieldPlans[i].generate(rng, depth + 1), fields[i].getName()));
+            return instance;
+        };
+    }
+
+    /** Creates an instance without calling any constructor. */
+    @EvilShitFuckery(blackMagic = IGNORES_CONSTRUCTOR)
+    private static Object allocateInstance(Class<?> cls) {
+        try {
+            return UNSAFE.allocateInstance(cls);
+        } catch (InstantiationException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /**
+     * Returns the value if it can be assigned to the type, so a bug in a plan can't corrupt the heap through {@link Unsafe}.
+     *
+     * @throws IllegalStateException if it can't be assigned.
+     */
+    private static Object checkType(Class<?> type, Object value, String name) {
+        if (value == null ? type.isPrimitive() : !ClassHelper.forceWrapperType(type).isInstance(value))
+            throw new IllegalStateException("Generated " + (value == null ? "null" : value.getClass().getName()) + " for " + name + " of type " + type.getName());
+        return value;
+    }
+
+    /**
+     * Writes the value directly at the memory-address of the field.
+     * Primitive values are unboxed and written with their actual size.
+     * The value must have been checked with {@link #checkType(Class, Object, String)}.
+     */
+    @EvilShitFuckery(blackMagic = {MODIFIES_PRIVATE_FIELD, MODIFIES_FINAL_FIELD})
+    @SuppressWarnings({"OverlyComplexMethod", "IfStatementWithTooManyBranches"})
+    private static void putField(Object instance, long offset, Class<?> type, Object value) {
+        if (!type.isPrimitive())
+            UNSAFE.putObject(instance, offset, value);
+        else if (type == int.class)
+            UNSAFE.putInt(instance, offset, (Integer) value);
+        else if (type == long.class)
+            UNSAFE.putLong(instance, offset, (Long) value);
+        else if (type == double.class)
+            UNSAFE.putDouble(instance, offset, (Double) value);
+        else if (type == float.class)
+            UNSAFE.putFloat(instance, offset, (Float) value);
+        else if (type == boolean.class)
+            UNSAFE.putBoolean(instance, offset, (Boolean) value);
+        else if (type == byte.class)
+            UNSAFE.putByte(instance, offset, (Byte) value);
+        else if (type == short.class)
+            UNSAFE.putShort(instance, offset, (Short) value);
+        else
+            UNSAFE.putChar(instance, offset, (Character) value);
+    }
+
+    private int collectionSize(RandomGenerator rng) {
+        return rng.nextInt(minCollectionSize, maxCollectionSize + 1);
+    }
+
+    private static Class<?> erasure(Type type) {
+        if (type instanceof Class<?> cls)
+            return cls;
+        if (type instanceof ParameterizedType parameterized)
+            return (Class<?>) parameterized.getRawType();
+        if (type instanceof GenericArrayType arrayType)
+            return erasure(arrayType.getGenericComponentType()).arrayType();
+        return Object.class;
+    }
+
+    private static void checkRange(int min, int max) {
+        if (min < 0 || min > max)
+            throw new IllegalArgumentException("Range [" + min + ", " + max + "] is invalid");
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,94 @@
+package de.trinext.framework.util.random;
+
+import java.util.Objects;
+import java.util.random.RandomGenerator;
+import java.util.stream.LongStream;
+
+/**
+ * A random permutation of {@code [0, n)} that is evaluated lazily, so it needs constant memory for any {@code n}.
+ * Useful to visit a huge index space in random order without materializing and shuffling it:
+ * <pre>{@code
+ * var order = RandomPermutation.of(1L << 40, RandomSource.seeded(42L).generator());
+ * for (var i = 0L; i < 1_000; i++)
+ *     read(order.get(i));
+ * }</pre>
+ * The permutation is a small Feistel network over the next power of four with cycle walking for indices out of range.
+ * It's a bijection, but not a uniformly chosen one, and must not be used for cryptographic purposes.
+ * Instances are immutable and thread-safe.
+ *
+ * @author Dennis Woithe
+ * @see RandomSource#shuffledIndices(int)
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class RandomPermutation {
+
+    private static final int ROUNDS = 4;
+
+    private final long size;
+    private final int halfBits;
+    private final long halfMask;
+    private final long[] keys = new long[ROUNDS];
+
+    private RandomPermutation(long size, RandomGenerator rng) {
+        this.size = size;
+        var bits = Long.SIZE - Long.numberOfLeadingZeros(Math.max(1, size - 1));
+        halfBits = Math.ceilDiv(bits, 2);
+        halfMask = (1L << halfBits) - 1;
+        for (var i = 0; i < ROUNDS; i++)
+            keys[i] = rng.nextLong();
+    }
+
+    /**
+     * Creates a random permutation of {@code [0, size)} with round keys from the generator.
+     *
+     * @throws IllegalArgumentException if the size is not positive.
+     */
+    public static RandomPermutation of(long size, RandomGenerator rng) {
+        if (size <= 0)
+            throw new IllegalArgumentException("Size must be positive: " + size);
+        return new RandomPermutation(size, rng);
+    }
+
+    /** The number of indices n of the permutation. */
+    public long size() {
+        return size;
+    }
+
+    /**
+     * Returns the index at the passed position of the permutation.
+     * Every index in {@code [0, n)} is returned for exactly one position.
+     *
+     * @throws IndexOutOfBoundsException if the position is not in {@code [0, n)}.
+     */
+    public long get(long position) {
+        var index = encrypt(Objects.checkIndex(position, size));
+        // The network permutes [0, 4^halfBits), which is less than 4n, so this loop runs less than 4 times on average
+        while (Long.compareUnsigned(index, size) >= 0)
+            index = encrypt(index);
+        return index;
+    }
+
+    /** All indices in the order of the permutation. */
+    public LongStream stream() {
+        return LongStream.range(0, size).map(this::get);
+    }
+
+    private long encrypt(long value) {
+        var left = value >>> halfBits;
+        var right = value & halfMask;
+        for (var key : keys) {
+            var next = left ^ (mix(right ^ key) & halfMask);
+            left = right;
+            right = next;
+        }
+        return left << halfBits | right;
+    }
+
+    /** The finalizer of SplitMix64, a cheap and well distributed round function. */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,1093 @@
+package de.trinext.framework.util.random;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.math.RoundingMode;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+import java.util.OptionalLong;
+import java.util.UUID;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.*;
+import java.util.random.RandomGenerator;
+import java.util.random.RandomGenerator.JumpableGenerator;
+import java.util.random.RandomGenerator.SplittableGenerator;
+import java.util.random.RandomGeneratorFactory;
+import java.util.stream.*;
+
+import de.trinext.framework.util.function.*;
+
+/**
+ * Generates random values from a {@link RandomGenerator}.
+ * Offers the same functions as {@link de.trinext.framework.util.RandomHelper},
+ * but lets you choose the algorithm and the seed, so a randomized run can be replayed exactly:
+ * <pre>{@code
+ * var random = RandomSource.seeded(42L, RandomAlgorithm.XOROSHIRO_128_PLUS_PLUS);
+ * random.runForRandomInts(1_000_000, i -> assertTrue(isValid(i)));
+ * }</pre>
+ * A seeded instance is not thread-safe. Use {@link #independentGenerators(long)} to hand generators to other threads.
+ * None of the algorithms is suitable for cryptographic purposes.
+ *
+ * @author Dennis Woithe
+ */
+@SuppressWarnings({"unused", "WeakerAccess", "HardCodedStringLiteral", "ConstantExpression", "MagicCharacter", "BoundedWildcard"})
+public final class RandomSource {
+
+    /** Algorithm used by {@link #seeded(long)}. */
+    public static final RandomAlgorithm DEFAULT_ALGORITHM = RandomAlgorithm.L64X128_MIX_RANDOM;
+
+    /**
+     * Algorithm of the generators behind the parallel streams and of {@link #independentGenerators(long)},
+     * if the own generator can neither be split nor jumped.
+     */
+    private static final RandomGeneratorFactory<SplittableGenerator> SPLITTABLE_FACTORY = RandomGeneratorFactory.of("L64X128MixRandom");
+
+    private static final RandomSource THREAD_LOCAL = new RandomSource(null, OptionalLong.empty());
+
+    /** Writes a long into a byte[] at any offset. The byte order is irrelevant for random bits. */
+    private static final VarHandle LONG_VIEW = MethodHandles.byteArrayViewVarHandle(long[].class, ByteOrder.nativeOrder());
+
+    /** Number of random bits a float is built from. Same as {@link RandomGenerator#nextFloat()}. */
+    private static final int FLOAT_BITS = 24;
+    private static final float FLOAT_UNIT = 0x1.0p-24f;
+    private static final int FLOAT_MASK = (1 << FLOAT_BITS) - 1;
+
+    /** 10<sup>0</sup> to 10<sup>18</sup>, all powers of ten that fit into a long. */
+    private static final long[] POWERS_OF_TEN = LongStream.iterate(1, p -> p * 10).limit(19).toArray();
+
+    /** Values per chunk of the parallel streams. */
+    private static final long STREAM_CHUNK_SIZE = 1L << 16;
+    /** Inputs per chunk of the parallel runners. Smaller than the stream chunks, as every input runs a whole test. */
+    private static final long RUN_CHUNK_SIZE = 1L << 10;
+    /** Ranges with at most this many values per drawn value are sampled by shuffling the whole range. */
+    private static final int DENSE_SAMPLING_FACTOR = 4;
+    /** Most values drawn from a sparse range, so the hash table of Floyd's algorithm stays at most half full. */
+    private static final int MAX_SPARSE_SAMPLES = 1 << 29;
+    /** Bytes per task of {@link #fillParallel(ByteBuffer)}. */
+    private static final int PARALLEL_CHUNK_SIZE = 1 << 22;
+    /** Bytes per mapped region of {@link #writeRandomFile(Path, long)}. */
+    private static final long FILE_CHUNK_SIZE = 1L << 26;
+
+    /** {@code null} means the {@link ThreadLocalRandom} of the calling thread. */
+    private final RandomGenerator generator;
+    private final OptionalLong seed;
+
+    private RandomSource(RandomGenerator generator, OptionalLong seed) {
+        this.generator = generator;
+        this.seed = seed;
+    }
+
+    // ==== FACTORIES ======================================================== //
+
+    /**
+     * Returns the source backed by the {@link ThreadLocalRandom} of the calling thread.
+     * Unlike the other sources it is thread-safe, but not reproducible.
+     */
+    public static RandomSource threadLocal() {
+        return THREAD_LOCAL;
+    }
+
+    /** Creates a reproducible source using the {@link #DEFAULT_ALGORITHM}. */
+    public static RandomSource seeded(long seed) {
+        return seeded(seed, DEFAULT_ALGORITHM);
+    }
+
+    /** Creates a reproducible source using the passed algorithm. */
+    public static RandomSource seeded(long seed, RandomAlgorithm algorithm) {
+        Objects.requireNonNull(algorithm, "Algorithm must not be null");
+        return new RandomSource(algorithm.factory().create(seed), OptionalLong.of(seed));
+    }
+
+    /**
+     * Creates a reproducible source using the algorithm with the passed name.
+     *
+     * @throws IllegalArgumentException if the JDK doesn't know the algorithm.
+     * @see RandomGeneratorFactory#of(String)
+     */
+    public static RandomSource seeded(long seed, String algorithmName) {
+        Objects.requireNonNull(algorithmName, "Algorithm name must not be null");
+        return new RandomSource(RandomGeneratorFactory.of(algorithmName).create(seed), OptionalLong.of(seed));
+    }
+
+    /** Creates a source that draws from the passed generator. */
+    public static RandomSource of(RandomGenerator generator) {
+        return new RandomSource(Objects.requireNonNull(generator, "Generator must not be null"), OptionalLong.empty());
+    }
+
+    /** The seed this source was created with, if it was created by one of the {@code seeded} factories. */
+    public OptionalLong seed() {
+        return seed;
+    }
+
+    /** The generator all values are drawn from. For {@link #threadLocal()} this is the calling thread's one. */
+    public RandomGenerator generator() {
+        return generator == null ? ThreadLocalRandom.current() : generator;
+    }
+
+    // ==== STREAMS ========================================================== //
+
+    /** Generates n random bytes */
+    public Stream<Byte> randomBytes(long amount) {
+        return randomInts(amount).mapToObj(i -> ((Integer) i).byteValue());
+    }
+
+    /** Generates n random shorts */
+    public Stream<Short> randomShorts(long amount) {
+        return randomInts(amount).mapToObj(i -> ((Integer) i).shortValue());
+    }
+
+    /** Generates n random ints */
+    public IntStream randomInts(long amount) {
+        return generator().ints(amount);
+    }
+
+    /** Generates n random doubles */
+    public DoubleStream randomDoubles(long amount) {
+        return generator().doubles(amount);
+    }
+
+    /**
+     * Generates n random ints following the distribution.
+     *
+     * @see IntDistribution
+     */
+    public IntStream randomInts(IntDistribution distribution, long amount) {
+        return distribution.samples(generator(), amount);
+    }
+
+    /**
+     * Generates n random doubles following the distribution.
+     *
+     * @see DoubleDistribution
+     */
+    public DoubleStream randomDoubles(DoubleDistribution distribution, long amount) {
+        return distribution.samples(generator(), amount);
+    }
+
+    /** Generates n random floats */
+    public Stream<Float> randomFloats(long amount) {
+        return randomDoubles(amount).mapToObj(d -> ((Double) d).floatValue());
+    }
+
+    /** Generates n random longs */
+    public LongStream randomLongs(long amount) {
+        return generator().longs(amount);
+    }
+
+    /**
+     * Generates n random ints as a parallel stream.
+     * The stream is cut into chunks of {@value #STREAM_CHUNK_SIZE} values, each drawn from its own generator,
+     * so the workers don't contend on a shared generator and a seeded source yields the same values
+     * no matter how the work is split between the threads.
+     */
+    public IntStream parallelRandomInts(long amount) {
+        var seed = generator().nextLong();
+        return chunks(amount, STREAM_CHUNK_SIZE).mapToObj(chunk -> chunkGenerator(seed, chunk).ints(chunkSize(amount, chunk, STREAM_CHUNK_SIZE))).flatMapToInt(Function.identity());
+    }
+
+    /**
+     * Generates n random longs as a parallel stream.
+     *
+     * @see #parallelRandomInts(long)
+     */
+    public LongStream parallelRandomLongs(long amount) {
+        var seed = generator().nextLong();
+        return chunks(amount, STREAM_CHUNK_SIZE).flatMap(chunk -> chunkGenerator(seed, chunk).longs(chunkSize(amount, chunk, STREAM_CHUNK_SIZE)));
+    }
+
+    /**
+     * Generates n random doubles as a parallel stream.
+     *
+     * @see #parallelRandomInts(long)
+     */
+    public DoubleStream parallelRandomDoubles(long amount) {
+        var seed = generator().nextLong();
+        return chunks(amount, STREAM_CHUNK_SIZE).mapToObj(chunk -> chunkGenerator(seed, chunk).doubles(chunkSize(amount, chunk, STREAM_CHUNK_SIZE))).flatMapToDouble(Function.identity());
+    }
+
+    /**
+     * Generates n statistically independent generators, e.g. one per worker thread.
+     * Splittable generators are split, jumpable generators are copied and jumped ahead.
+     * Each of the generators may be handed to another thread, as long as it is only used by one thread at a time.
+     * For a seeded source the generators are reproducible as well.
+     */
+    public Stream<RandomGenerator> independentGenerators(long amount) {
+        var rng = generator();
+        if (rng instanceof SplittableGenerator splittable)
+            return splittable.splits(amount).map(RandomGenerator.class::cast);
+        if (rng instanceof JumpableGenerator jumpable)
+            return jumpable.jumps(amount).map(RandomGenerator.class::cast);
+        return SPLITTABLE_FACTORY.create(rng.nextLong()).splits(amount).map(RandomGenerator.class::cast);
+    }
+
+    /** Generates n random {@link BigDecimal}s. */
+    public Stream<BigDecimal> randomBigDecs(long amount) {
+        return LongStream.range(0, amount).mapToObj(ignored -> randomBigDec());
+    }
+
+    /**
+     * Generates n random {@link BigDecimal}s with at most {@code precision} digits and the passed scale.
+     *
+     * @see #randomBigDec(int, int)
+     */
+    public Stream<BigDecimal> randomBigDecs(long amount, int precision, int scale) {
+        checkPrecision(precision);
+        return LongStream.range(0, amount).mapToObj(ignored -> randomBigDec(precision, scale));
+    }
+
+    /**
+     * Generates n random non-negative {@link BigInteger}s with at most {@code bitLength} bits.
+     *
+     * @see #randomBigInt(int)
+     */
+    public Stream<BigInteger> randomBigInts(long amount, int bitLength) {
+        checkBitLength(bitLength);
+        return LongStream.range(0, amount).mapToObj(ignored -> randomBigInt(bitLength));
+    }
+
+    /** Generates n random {@link String}s with the passed max length. */
+    public Stream<String> randomStrings(int maxWordLength, long amount) {
+        return generator()
+                .ints(amount, 0, maxWordLength + 1)
+                .mapToObj(byte[]::new)
+                .peek(bytes -> generator().nextBytes(bytes))
+                .map(String::new);
+    }
+
+    /** Generates n random {@link String}s with exactly {@code wordLength} characters of the alphabet. */
+    public Stream<String> randomStrings(RandomAlphabet alphabet, int wordLength, long amount) {
+        Objects.requireNonNull(alphabet, "Alphabet must not be null");
+        return LongStream.range(0, amount).mapToObj(ignored -> alphabet.randomString(generator(), wordLength));
+    }
+
+    /**
+     * Generates n random instances of the record or class.
+     *
+     * @see RandomObjectGenerator
+     */
+    public <T> Stream<T> randomObjects(Class<T> cls, long amount) {
+        var rng = generator();
+        return RandomObjectGenerator.DEFAULT.randomObjects(cls, amount, rng);
+    }
+
+    /**
+     * Generates n random version 4 {@link UUID}s.
+     *
+     * @see UuidGenerator#random(RandomGenerator)
+     */
+    public Stream<UUID> randomUuids(long amount) {
+        var rng = generator();
+        return LongStream.range(0, amount).mapToObj(ignored -> UuidGenerator.random(rng));
+    }
+
+    // ==== CONSUMERS ======================================================== //
+
+    /** Executes the consumer for the passed amount of random floats. */
+    public void runForRandomFloats(long amount, Consumer<Float> consumer) {
+        randomFloats(amount).forEach(consumer);
+    }
+
+    /** Executes the consumer for the passed amount of random doubles. */
+    public void runForRandomDoubles(long amount, DoubleConsumer consumer) {
+        randomDoubles(amount).forEach(consumer);
+    }
+
+    /** Executes the consumer for the passed amount of random {@link BigInteger}s. */
+    public void runForRandomBigInts(long amount, Consumer<BigInteger> consumer) {
+        randomInts(amount).mapToObj(BigInteger::valueOf).forEach(consumer);
+    }
+
+    /** Executes the consumer for the passed amount of random non-negative {@link BigInteger}s with at most {@code bitLength} bits. */
+    public void runForRandomBigInts(long amount, int bitLength, Consumer<BigInteger> consumer) {
+        randomBigInts(amount, bitLength).forEach(consumer);
+    }
+
+    /** Executes the consumer for the passed amount of random bytes. */
+    public void runForRandomBytes(long amount, Consumer<Byte> consumer) {
+        randomBytes(amount).forEach(consumer);
+    }
+
+    /** Executes the consumer for the passed amount of random shorts. */
+    public void runForRandomShorts(long amount, Consumer<Short> consumer) {
+        randomShorts(amount).forEach(consumer);
+    }
+
+    /** Executes the consumer for the passed amount of random ints. */
+    public void runForRandomInts(long amount, IntConsumer consumer) {
+        randomInts(amount).forEach(consumer);
+    }
+
+    /** Executes the consumer for the passed amount of random longs. */
+    public void runForRandomLongs(long amount, LongConsumer consumer) {
+        randomLongs(amount).forEach(consumer);
+    }
+
+    /** Executes the consumer for the passed amount of random {@link BigDecimal}s. */
+    public void runForRandomBigDecs(long amount, Consumer<BigDecimal> consumer) {
+        randomBigDecs(amount).forEach(consumer);
+    }
+
+    /** Executes the consumer for the passed amount of random {@link BigDecimal}s with at most {@code precision} digits and the passed scale. */
+    public void runForRandomBigDecs(long amount, int precision, int scale, Consumer<BigDecimal> consumer) {
+        randomBigDecs(amount, precision, scale).forEach(consumer);
+    }
+
+    /**
+     * Executes the test for the passed amount of random {@link String}s.
+     *
+     * @param maxWordLength The max length of each {@link String}
+     */
+    public void runForRandomStrings(int maxWordLength, long wordAmount, Consumer<String> test) {
+        randomStrings(maxWordLength, wordAmount).forEach(test);
+    }
+
+    /**
+     * Executes the test for the passed amount of random words with exactly {@code wordLength} characters of the alphabet.
+     * All words are written into the same buffer, so the test must not keep a reference to the {@link CharSequence}.
+     */
+    public void runForRandomCharSequences(RandomAlphabet alphabet, int wordLength, long wordAmount, Consumer<? super CharSequence> test) {
+        Objects.requireNonNull(alphabet, "Alphabet must not be null");
+        var rng = generator();
+        var word = new StringBuilder(wordLength);
+        for (var i = 0L; i < wordAmount; i++) {
+            word.setLength(0);
+            test.accept(alphabet.append(rng, word, wordLength));
+        }
+    }
+
+    /** Executes the consumer for the passed amount of random bytes without boxing them. */
+    public void runForRandomPrimitiveBytes(long amount, ByteConsumer consumer) {
+        var rng = generator();
+        for (var remaining = amount; remaining > 0; ) {
+            var bits = rng.nextLong();
+            for (var i = 0; i < Long.BYTES && remaining > 0; i++, remaining--, bits >>>= Byte.SIZE)
+                //noinspection NumericCastThatLosesPrecision
+                consumer.accept((byte) bits);
+        }
+    }
+
+    /** Executes the consumer for the passed amount of random shorts without boxing them. */
+    public void runForRandomPrimitiveShorts(long amount, ShortConsumer consumer) {
+        var rng = generator();
+        for (var remaining = amount; remaining > 0; ) {
+            var bits = rng.nextLong();
+            for (var i = 0; i < Long.BYTES / Short.BYTES && remaining > 0; i++, remaining--, bits >>>= Short.SIZE)
+                //noinspection NumericCastThatLosesPrecision
+                consumer.accept((short) bits);
+        }
+    }
+
+    /** Executes the consumer for the passed amount of random floats without boxing them. */
+    public void runForRandomPrimitiveFloats(long amount, FloatConsumer consumer) {
+        var rng = generator();
+        for (var remaining = amount; remaining > 0; ) {
+            var bits = rng.nextLong();
+            consumer.accept(highFloat(bits));
+            if (--remaining > 0) {
+                consumer.accept(lowFloat(bits));
+                remaining--;
+            }
+        }
+    }
+
+    // ==== PARALLEL CONSUMERS =============================================== //
+
+    /**
+     * Executes the test for the passed amount of random inputs in parallel on the common {@link ForkJoinPool}.
+     * The inputs are cut into chunks of {@value #RUN_CHUNK_SIZE}, each drawn from its own generator derived from one run seed.
+     * As soon as the test throws for one input, all workers stop
+     * and a {@link PropertyFailure} with the run seed, the index and the input is thrown.
+     * If several inputs fail at the same time, the one with the lowest index is reported.
+     * <pre>{@code
+     * RandomSource.seeded(42L).runParallel(10_000_000, rng -> rng.nextLong(), l -> assertEquals(l, decode(encode(l))));
+     * }</pre>
+     *
+     * @param input creates one input from the passed generator, must not use any other source of randomness
+     * @throws PropertyFailure if the input or the test throws a {@link RuntimeException} or an {@link AssertionError} for one of the inputs,
+     *                         the input is null if it couldn't be created.
+     * @see #reproduce(long, long, Function)
+     */
+    public <T> void runParallel(long amount, Function<? super RandomGenerator, ? extends T> input, Consumer<? super T> test) {
+        var runSeed = generator().nextLong();
+        var failure = new AtomicReference<PropertyFailure>();
+        chunks(amount, RUN_CHUNK_SIZE).forEach(chunk -> {
+            var rng = chunkGenerator(runSeed, chunk);
+            var end = chunk * RUN_CHUNK_SIZE + chunkSize(amount, chunk, RUN_CHUNK_SIZE);
+            for (var index = chunk * RUN_CHUNK_SIZE; index < end && failure.get() == null; index++) {
+                // Stays null if the input itself can't be generated
+                T value = null;
+                try {
+                    value = input.apply(rng);
+                    test.accept(value);
+                } catch (RuntimeException | AssertionError e) {
+                    failure.accumulateAndGet(
+                            new PropertyFailure(runSeed, index, value, e),
+                            (current, next) -> current == null || next.index() < current.index() ? next : current
+                    );
+                }
+            }
+        });
+        var result = failure.get();
+        if (result != null)
+            throw result;
+    }
+
+    /**
+     * Recreates the input with the passed index of a parallel run, e.g. the one of a {@link PropertyFailure}.
+     * The input function must be the same as the one of the run.
+     *
+     * @throws IllegalArgumentException if the index is negative.
+     */
+    public static <T> T reproduce(long runSeed, long index, Function<? super RandomGenerator, ? extends T> input) {
+        if (index < 0)
+            throw new IllegalArgumentException("Index must not be negative: " + index);
+        var rng = chunkGenerator(runSeed, index / RUN_CHUNK_SIZE);
+        for (var skipped = index % RUN_CHUNK_SIZE; skipped > 0; skipped--)
+            input.apply(rng);
+        return input.apply(rng);
+    }
+
+    /**
+     * Executes the test for the passed amount of random ints in parallel.
+     *
+     * @see #runParallel(long, Function, Consumer)
+     */
+    public void runForRandomIntsParallel(long amount, IntConsumer test) {
+        runParallel(amount, RandomGenerator::nextInt, test::accept);
+    }
+
+    /**
+     * Executes the test for the passed amount of random longs in parallel.
+     *
+     * @see #runParallel(long, Function, Consumer)
+     */
+    public void runForRandomLongsParallel(long amount, LongConsumer test) {
+        runParallel(amount, RandomGenerator::nextLong, test::accept);
+    }
+
+    /**
+     * Executes the test for the passed amount of random doubles in parallel.
+     *
+     * @see #runParallel(long, Function, Consumer)
+     */
+    public void runForRandomDoublesParallel(long amount, DoubleConsumer test) {
+        runParallel(amount, RandomGenerator::nextDouble, test::accept);
+    }
+
+    /**
+     * Executes the test for the passed amount of random {@link String}s in parallel.
+     *
+     * @param maxWordLength The max length of each {@link String}
+     * @see #runParallel(long, Function, Consumer)
+     */
+    public void runForRandomStringsParallel(int maxWordLength, long wordAmount, Consumer<String> test) {
+        runParallel(wordAmount, rng -> {
+            var bytes = new byte[rng.nextInt(maxWordLength + 1)];
+            rng.nextBytes(bytes);
+            return new String(bytes);
+        }, test);
+    }
+
+    /**
+     * Executes the test for the passed amount of random words with exactly {@code wordLength} characters of the alphabet in parallel.
+     *
+     * @see #runParallel(long, Function, Consumer)
+     */
+    public void runForRandomStringsParallel(RandomAlphabet alphabet, int wordLength, long wordAmount, Consumer<String> test) {
+        Objects.requireNonNull(alphabet, "Alphabet must not be null");
+        runParallel(wordAmount, rng -> alphabet.randomString(rng, wordLength), test);
+    }
+
+    // ==== SINGLE VALUES ==================================================== //
+
+    /** Generates one random byte */
+    public byte randomByte() {
+        //noinspection NumericCastThatLosesPrecision
+        return (byte) randomInt();
+    }
+
+    /** Generates one random short */
+    public short randomShort() {
+        //noinspection NumericCastThatLosesPrecision
+        return (short) randomInt();
+    }
+
+    /** Generates one random int */
+    public int randomInt() {
+        return generator().nextInt();
+    }
+
+    /** Generates one random int between 0 (inclusive) and max (exclusive) */
+    public int randomInt(int max) {
+        return generator().nextInt(max);
+    }
+
+    /** Generates one random int between min (inclusive) and max (exclusive) */
+    public int randomInt(int min, int max) {
+        return generator().nextInt(min, max);
+    }
+
+    /** Generates one random long */
+    public long randomLong() {
+        return generator().nextLong();
+    }
+
+    /** Generates one random float */
+    public float randomFloat() {
+        return generator().nextFloat();
+    }
+
+    /** Generates one random double */
+    public double randomDouble() {
+        return generator().nextDouble();
+    }
+
+    /** Generates one random {@link BigDecimal}. */
+    public BigDecimal randomBigDec() {
+        return new BigDecimal(randomLong()).multiply(BigDecimal.valueOf(randomDouble()));
+    }
+
+    /** Generates one random {@link BigDecimal} bigger or equals to specified minimum. */
+    public BigDecimal randomBigDecBiggerThan(BigDecimal min) {
+        return min.add(randomBigDec().abs());
+    }
+
+    /** Generates one random {@link BigDecimal} smaller or equals to specified maximum. */
+    public BigDecimal randomBigDecSmallerThan(BigDecimal max) {
+        return max.subtract(randomBigDec().abs());
+    }
+
+    /**
+     * Generates one random {@link BigDecimal} with at most {@code precision} digits and the passed scale,
+     * e.g. {@code randomBigDec(10, 2)} for amounts between -99999999.99 and 99999999.99.
+     * The unscaled values are uniformly distributed. Up to 18 digits no arbitrary-precision arithmetic is needed.
+     *
+     * @throws IllegalArgumentException if the precision is not positive.
+     */
+    public BigDecimal randomBigDec(int precision, int scale) {
+        checkPrecision(precision);
+        var rng = generator();
+        if (precision < POWERS_OF_TEN.length) {
+            var bound = POWERS_OF_TEN[precision];
+            return BigDecimal.valueOf(rng.nextLong(1 - bound, bound), scale);
+        }
+        var unscaled = randomBigIntBelow(rng, BigInteger.TEN.pow(precision));
+        return new BigDecimal(rng.nextBoolean() ? unscaled : unscaled.negate(), scale);
+    }
+
+    /**
+     * Generates one random {@link BigDecimal} with the passed scale between min and max (both inclusive).
+     * The unscaled values are uniformly distributed.
+     *
+     * @throws IllegalArgumentException if min is bigger than max or no value with the scale lies between them.
+     */
+    public BigDecimal randomBigDec(BigDecimal min, BigDecimal max, int scale) {
+        var lower = min.setScale(scale, RoundingMode.CEILING).unscaledValue();
+        var upper = max.setScale(scale, RoundingMode.FLOOR).unscaledValue();
+        if (lower.compareTo(upper) > 0)
+            throw new IllegalArgumentException("No value with scale " + scale + " between " + min + " and " + max);
+        var rng = generator();
+        if (lower.bitLength() < Long.SIZE - 1 && upper.bitLength() < Long.SIZE - 1)
+            return BigDecimal.valueOf(rng.nextLong(lower.longValue(), upper.longValue() + 1), scale);
+        return new BigDecimal(lower.add(randomBigIntBelow(rng, upper.subtract(lower).add(BigInteger.ONE))), scale);
+    }
+
+    /**
+     * Generates one random non-negative {@link BigInteger} with at most {@code bitLength} bits,
+     * meaning uniformly distributed between 0 (inclusive) and 2<sup>bitLength</sup> (exclusive).
+     * It's built directly from random bits.
+     *
+     * @throws IllegalArgumentException if the bit length is negative.
+     */
+    public BigInteger randomBigInt(int bitLength) {
+        checkBitLength(bitLength);
+        return randomBigInt(generator(), bitLength);
+    }
+
+    /** Generates one random boolean */
+    public boolean randomBool() {
+        return generator().nextBoolean();
+    }
+
+    /** Generates one random character */
+    public char randomChar() {
+        return (char) randomShort();
+    }
+
+    /** Generates one random {@link String} with the passed max length. */
+    public String randomString(int maxWordLength, Charset charset) {
+        var bytes = new byte[maxWordLength];
+        generator().nextBytes(bytes);
+        return new String(bytes, charset);
+    }
+
+    /** Generates one random {@link String} with the passed max length. */
+    public String randomString(int maxWordLength) {
+        return randomString(maxWordLength, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Generates one random instance of the record or class with all its fields populated.
+     *
+     * @see RandomObjectGenerator
+     */
+    public <T> T randomObject(Class<T> cls) {
+        return RandomObjectGenerator.DEFAULT.randomObject(cls, generator());
+    }
+
+    /** Generates one random {@link String} with exactly {@code wordLength} characters of the alphabet. */
+    public String randomString(RandomAlphabet alphabet, int wordLength) {
+        return alphabet.randomString(generator(), wordLength);
+    }
+
+    /** Creates a random {@link String} with the passed max length that matches [A-Za-z]. */
+    public String randomWord(int maxWordLength) {
+        return RandomAlphabet.LETTERS.randomString(generator(), maxWordLength);
+    }
+
+    /** Creates a random char that matches [A-Za-z]. */
+    public char randomLetter() {
+        return RandomAlphabet.LETTERS.randomChar(generator());
+    }
+
+    // ==== SAMPLING ========================================================= //
+
+    /**
+     * Generates n distinct random ints between origin (inclusive) and bound (exclusive) in random order.
+     *
+     * @throws IllegalArgumentException if the amount is negative, origin is not smaller than bound
+     *                                  or the range has less than {@code amount} values.
+     * @see #randomDistinctLongs(int, long, long)
+     */
+    public int[] randomDistinctInts(int amount, int origin, int bound) {
+        if (origin >= bound)
+            throw new IllegalArgumentException("Origin must be smaller than bound: " + origin + " >= " + bound);
+        var offsets = distinctOffsets(generator(), amount, (long) bound - origin);
+        var ints = new int[amount];
+        for (var i = 0; i < amount; i++)
+            //noinspection NumericCastThatLosesPrecision
+            ints[i] = (int) (origin + offsets[i]);
+        return ints;
+    }
+
+    /**
+     * Generates n distinct random longs between origin (inclusive) and bound (exclusive) in random order.
+     * Dense ranges are sampled by a partial shuffle of the whole range,
+     * sparse ranges by Floyd's algorithm, which only needs memory for the drawn values.
+     *
+     * @throws IllegalArgumentException if the amount is negative, origin is not smaller than bound,
+     *                                  the range has less than {@code amount} values or more than {@link Long#MAX_VALUE},
+     *                                  or more than 2<sup>29</sup> values are drawn from a sparse range.
+     */
+    public long[] randomDistinctLongs(int amount, long origin, long bound) {
+        if (origin >= bound)
+            throw new IllegalArgumentException("Origin must be smaller than bound: " + origin + " >= " + bound);
+        var range = bound - origin;
+        // Overflowed
+        if (range <= 0)
+            throw new IllegalArgumentException("Range must not have more than Long.MAX_VALUE values");
+        var longs = distinctOffsets(generator(), amount, range);
+        for (var i = 0; i < amount; i++)
+            longs[i] += origin;
+        return longs;
+    }
+
+    /**
+     * Creates a lazily evaluated random permutation of {@code [0, size)}.
+     *
+     * @throws IllegalArgumentException if the size is not positive.
+     * @see RandomPermutation
+     */
+    public RandomPermutation randomPermutation(long size) {
+        return RandomPermutation.of(size, generator());
+    }
+
+    /**
+     * Returns {@code [0, size)} in random order, e.g. as access pattern for a benchmark.
+     *
+     * @throws NegativeArraySizeException if the size is negative.
+     */
+    public int[] shuffledIndices(int size) {
+        var rng = generator();
+        var indices = new int[size];
+        // Inside-out Fisher-Yates, fills and shuffles in one pass
+        for (var i = 1; i < size; i++) {
+            var j = rng.nextInt(i + 1);
+            indices[i] = indices[j];
+            indices[j] = i;
+        }
+        return indices;
+    }
+
+    /** Shuffles the whole array in place. */
+    public void shuffle(int[] array) {
+        shuffle(array, 0, array.length);
+    }
+
+    /**
+     * Shuffles {@code length} elements of the array starting at {@code offset} in place.
+     *
+     * @throws IndexOutOfBoundsException if the range is out of the array bounds.
+     */
+    public void shuffle(int[] array, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, array.length);
+        var rng = generator();
+        for (var i = length - 1; i > 0; i--) {
+            var j = offset + rng.nextInt(i + 1);
+            var tmp = array[offset + i];
+            array[offset + i] = array[j];
+            array[j] = tmp;
+        }
+    }
+
+    /** Shuffles the whole array in place. */
+    public void shuffle(long[] array) {
+        shuffle(array, 0, array.length);
+    }
+
+    /**
+     * Shuffles {@code length} elements of the array starting at {@code offset} in place.
+     *
+     * @throws IndexOutOfBoundsException if the range is out of the array bounds.
+     */
+    public void shuffle(long[] array, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, array.length);
+        var rng = generator();
+        for (var i = length - 1; i > 0; i--) {
+            var j = offset + rng.nextInt(i + 1);
+            var tmp = array[offset + i];
+            array[offset + i] = array[j];
+            array[j] = tmp;
+        }
+    }
+
+    /**
+     * Generates one random version 4 {@link UUID} without going through a {@link java.security.SecureRandom}.
+     *
+     * @see UuidGenerator#random(RandomGenerator)
+     */
+    public UUID randomUuid() {
+        return UuidGenerator.random(generator());
+    }
+
+    /**
+     * Generates one time-ordered version 7 {@link UUID} that is greater than all previous ones in this JVM.
+     *
+     * @see UuidGenerator#timeOrdered(RandomGenerator)
+     */
+    public UUID timeOrderedUuid() {
+        return UuidGenerator.DEFAULT.timeOrdered(generator());
+    }
+
+    // ==== BULK FUNCTIONS =================================================== //
+
+    /**
+     * Fills the array with random version 4 UUIDs, each as a pair of its most and least significant bits.
+     *
+     * @throws IllegalArgumentException if the array length is odd.
+     */
+    public void fillUuids(long[] pairs) {
+        UuidGenerator.random(generator(), pairs, 0, pairCount(pairs));
+    }
+
+    /**
+     * Fills the array with ascending version 7 UUIDs, each as a pair of its most and least significant bits.
+     * They are greater than all previous time-ordered UUIDs in this JVM.
+     *
+     * @throws IllegalArgumentException if the array length is odd.
+     */
+    public void fillTimeOrderedUuids(long[] pairs) {
+        UuidGenerator.DEFAULT.timeOrdered(generator(), pairs, 0, pairCount(pairs));
+    }
+
+    /** Fills the whole array with random bytes. */
+    public void fill(byte[] bytes) {
+        fill(bytes, 0, bytes.length);
+    }
+
+    /**
+     * Fills {@code length} elements of the array starting at {@code offset} with random bytes.
+     * Eight bytes are taken from each random long.
+     *
+     * @throws IndexOutOfBoundsException if the range is out of the array bounds.
+     */
+    public void fill(byte[] bytes, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, bytes.length);
+        var rng = generator();
+        var end = offset + length;
+        var i = offset;
+        for (; i <= end - Long.BYTES; i += Long.BYTES)
+            LONG_VIEW.set(bytes, i, rng.nextLong());
+        if (i < end)
+            for (var bits = rng.nextLong(); i < end; i++, bits >>>= Byte.SIZE)
+                //noinspection NumericCastThatLosesPrecision
+                bytes[i] = (byte) bits;
+    }
+
+    /** Fills the whole array with random shorts. */
+    public void fill(short[] shorts) {
+        fill(shorts, 0, shorts.length);
+    }
+
+    /**
+     * Fills {@code length} elements of the array starting at {@code offset} with random shorts.
+     * Four shorts are taken from each random long.
+     *
+     * @throws IndexOutOfBoundsException if the range is out of the array bounds.
+     */
+    public void fill(short[] shorts, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, shorts.length);
+        var rng = generator();
+        var end = offset + length;
+        for (var i = offset; i < end; ) {
+            var bits = rng.nextLong();
+            for (var j = 0; j < Long.BYTES / Short.BYTES && i < end; j++, i++, bits >>>= Short.SIZE)
+                //noinspection NumericCastThatLosesPrecision
+                shorts[i] = (short) bits;
+        }
+    }
+
+    /** Fills the whole array with random floats between 0 (inclusive) and 1 (exclusive). */
+    public void fill(float[] floats) {
+        fill(floats, 0, floats.length);
+    }
+
+    /**
+     * Fills {@code length} elements of the array starting at {@code offset}
+     * with random floats between 0 (inclusive) and 1 (exclusive).
+     * Two floats are taken from each random long.
+     *
+     * @throws IndexOutOfBoundsException if the range is out of the array bounds.
+     */
+    public void fill(float[] floats, int offset, int length) {
+        Objects.checkFromIndexSize(offset, length, floats.length);
+        var rng = generator();
+        var end = offset + length;
+        var i = offset;
+        for (; i < end - 1; i += 2) {
+            var bits = rng.nextLong();
+            floats[i] = highFloat(bits);
+            floats[i + 1] = lowFloat(bits);
+        }
+        if (i < end)
+            floats[i] = rng.nextFloat();
+    }
+
+    /**
+     * Fills the remaining bytes of the buffer with random bytes and advances its position to its limit.
+     * Works for heap and direct buffers alike.
+     *
+     * @throws java.nio.ReadOnlyBufferException if the buffer is read-only.
+     */
+    public void fill(ByteBuffer buffer) {
+        fill(generator(), buffer);
+    }
+
+    /**
+     * Fills the remaining bytes of the buffer with random bytes in parallel and advances its position to its limit.
+     * The buffer is split into chunks of {@value #PARALLEL_CHUNK_SIZE} bytes, each filled by its own independent generator.
+     * Meant for large direct buffers, for small buffers use {@link #fill(ByteBuffer)}.
+     *
+     * @throws java.nio.ReadOnlyBufferException if the buffer is read-only.
+     */
+    public void fillParallel(ByteBuffer buffer) {
+        var start = buffer.position();
+        var size = buffer.remaining();
+        var chunks = Math.ceilDiv(size, PARALLEL_CHUNK_SIZE);
+        var generators = independentGenerators(chunks).toList();
+        IntStream.range(0, chunks).parallel().forEach(chunk -> {
+            var offset = chunk * PARALLEL_CHUNK_SIZE;
+            fill(generators.get(chunk), buffer.slice(start + offset, Math.min(PARALLEL_CHUNK_SIZE, size - offset)));
+        });
+        buffer.position(buffer.limit());
+    }
+
+    /**
+     * Creates or overwrites the file with {@code size} random bytes.
+     * The file is memory-mapped in regions of {@value #FILE_CHUNK_SIZE} bytes that are filled in parallel,
+     * each by its own independent generator. No data is copied through the heap.
+     * For a seeded source the file content is reproducible.
+     *
+     * @throws IOException if the file can't be created or written.
+     */
+    public void writeRandomFile(Path file, long size) throws IOException {
+        if (size < 0)
+            throw new IllegalArgumentException("Size must not be negative");
+        try (var channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            if (size == 0)
+                return;
+            // Grow the file once up front instead of letting every mapping extend it concurrently
+            channel.write(ByteBuffer.allocate(1), size - 1);
+            var chunks = Math.ceilDiv(size, FILE_CHUNK_SIZE);
+            var generators = independentGenerators(chunks).toList();
+            LongStream.range(0, chunks).parallel().forEach(chunk -> {
+                var offset = chunk * FILE_CHUNK_SIZE;
+                try {
+                    fill(generators.get((int) chunk), channel.map(MapMode.READ_WRITE, offset, Math.min(FILE_CHUNK_SIZE, size - offset)));
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } catch (UncheckedIOException e) {
+            throw e.getCause();
+        }
+    }
+
+    // ==== INTERNALS ======================================================== //
+
+    private static BigInteger randomBigInt(RandomGenerator rng, int bitLength) {
+        if (bitLength < Long.SIZE)
+            return BigInteger.valueOf(bitLength == 0 ? 0 : rng.nextLong() >>> (Long.SIZE - bitLength));
+        var bytes = new byte[Math.ceilDiv(bitLength, Byte.SIZE)];
+        rng.nextBytes(bytes);
+        // The first byte is the most significant one
+        bytes[0] &= (byte) (0xFF >>> (bytes.length * Byte.SIZE - bitLength));
+        return new BigInteger(1, bytes);
+    }
+
+    /** Uniformly distributed between 0 (inclusive) and bound (exclusive) by rejecting values that are too big. */
+    private static BigInteger randomBigIntBelow(RandomGenerator rng, BigInteger bound) {
+        var bitLength = bound.subtract(BigInteger.ONE).bitLength();
+        BigInteger value;
+        do
+            value = randomBigInt(rng, bitLength);
+        while (value.compareTo(bound) >= 0);
+        return value;
+    }
+
+    private static int pairCount(long[] pairs) {
+        if ((pairs.length & 1) != 0)
+            throw new IllegalArgumentException("Array length must be even, but was " + pairs.length);
+        return pairs.length / 2;
+    }
+
+    private static void checkPrecision(int precision) {
+        if (precision <= 0)
+            throw new IllegalArgumentException("Precision must be positive");
+    }
+
+    private static void checkBitLength(int bitLength) {
+        if (bitLength < 0)
+            throw new IllegalArgumentException("Bit length must not be negative");
+    }
+
+    /** Fills the remaining bytes of the buffer from the generator. */
+    private static void fill(RandomGenerator rng, ByteBuffer buffer) {
+        while (buffer.remaining() >= Long.BYTES)
+            buffer.putLong(rng.nextLong());
+        if (buffer.hasRemaining())
+            for (var bits = rng.nextLong(); buffer.hasRemaining(); bits >>>= Byte.SIZE)
+                //noinspection NumericCastThatLosesPrecision
+                buffer.put((byte) bits);
+    }
+
+    /** Parallel stream of the chunk indices for {@code amount} values. */
+    private static LongStream chunks(long amount, long chunkSize) {
+        if (amount < 0)
+            throw new IllegalArgumentException("Amount must not be negative: " + amount);
+        return LongStream.range(0, Math.ceilDiv(amount, chunkSize)).parallel();
+    }
+
+    /** Number of values in the chunk, only the last one may be smaller than {@code chunkSize}. */
+    private static long chunkSize(long amount, long chunk, long chunkSize) {
+        return Math.min(chunkSize, amount - chunk * chunkSize);
+    }
+
+    /**
+     * Creates the generator of one chunk of a parallel stream or run.
+     * It only depends on the seed and the chunk index, so the chunks can be generated lazily in any order.
+     * The factory scrambles the seed, so neighboring chunk indices still yield independent sequences.
+     */
+    private static RandomGenerator chunkGenerator(long seed, long chunk) {
+        return SPLITTABLE_FACTORY.create(seed + chunk * 0x9E3779B97F4A7C15L);
+    }
+
+    /**
+     * Draws n distinct offsets in {@code [0, range)} in random order.
+     * If the drawn values cover a big part of the range, the start of a shuffled copy of the range is returned.
+     * Otherwise Floyd's algorithm draws exactly n values and remembers them in an open addressing hash set.
+     */
+    private static long[] distinctOffsets(RandomGenerator rng, int amount, long range) {
+        if (amount < 0)
+            throw new IllegalArgumentException("Amount must not be negative: " + amount);
+        if (range < amount)
+            throw new IllegalArgumentException("Range of " + range + " values is too small for " + amount + " distinct values");
+        var dense = range <= Math.min((long) DENSE_SAMPLING_FACTOR * amount, Integer.MAX_VALUE - 8);
+        if (!dense && amount > MAX_SPARSE_SAMPLES)
+            throw new IllegalArgumentException("Can't draw more than " + MAX_SPARSE_SAMPLES + " distinct values from a range of " + range + " values: " + amount);
+        var offsets = new long[amount];
+        if (dense) {
+            //noinspection NumericCastThatLosesPrecision
+            var all = new int[(int) range];
+            for (var i = 0; i < all.length; i++)
+                all[i] = i;
+            for (var i = 0; i < amount; i++) {
+                var j = i + rng.nextInt(all.length - i);
+                offsets[i] = all[j];
+                all[j] = all[i];
+            }
+            return offsets;
+        }
+        // Stores offset + 1, so 0 marks an empty slot, and has at least twice as many slots as values
+        var table = new long[Math.min(Integer.highestOneBit(Math.max(1, amount)), MAX_SPARSE_SAMPLES >> 1) << 2];
+        var mask = table.length - 1;
+        var count = 0;
+        for (var j = range - amount; j < range; j++) {
+            var offset = rng.nextLong(j + 1);
+            if (!insert(table, mask, offset))
+                insert(table, mask, offset = j);
+            offsets[count++] = offset;
+        }
+        // Floyd's algorithm draws a uniform set, but not a uniform order
+        for (var i = amount - 1; i > 0; i--) {
+            var j = rng.nextInt(i + 1);
+            var tmp = offsets[i];
+            offsets[i] = offsets[j];
+            offsets[j] = tmp;
+        }
+        return offsets;
+    }
+
+    /** Inserts the value into the table with linear probing and returns false if it was already present. */
+    private static boolean insert(long[] table, int mask, long value) {
+        for (var slot = (int) mix(value) & mask; ; slot = (slot + 1) & mask) {
+            if (table[slot] == 0) {
+                table[slot] = value + 1;
+                return true;
+            }
+            if (table[slot] == value + 1)
+                return false;
+        }
+    }
+
+    /** The finalizer of SplitMix64, spreads neighboring values over the whole hash table. */
+    private static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+
+    /** Builds a float in [0, 1) from the upper 24 bits. */
+    private static float highFloat(long bits) {
+        return (bits >>> (Long.SIZE - FLOAT_BITS)) * FLOAT_UNIT;
+    }
+
+    /** Builds a float in [0, 1) from the lower 24 bits. */
+    private static float lowFloat(long bits) {
+        return ((int) bits & FLOAT_MASK) * FLOAT_UNIT;
+    }
+
+}
\ No newline at end of file
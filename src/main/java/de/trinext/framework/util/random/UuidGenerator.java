@@ -0,0 +1,127 @@
+package de.trinext.framework.util.random;
+
+import java.util.Objects;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.random.RandomGenerator;
+
+/**
+ * Generates random (version 4) and time-ordered (version 7) {@link UUID}s from a fast {@link RandomGenerator}.
+ * Unlike {@link UUID#randomUUID()} it doesn't go through a shared {@link java.security.SecureRandom},
+ * so the UUIDs must not be used where they have to be unguessable.
+ * <p>
+ * Version 7 UUIDs start with the Unix time in milliseconds followed by a 12 bit counter,
+ * so they sort by creation time and fill database indices in order.
+ * All UUIDs of one generator are strictly increasing, even if many are created in the same millisecond
+ * or the clock goes backwards. If the counter overflows, the timestamp is advanced by one millisecond.
+ * The bulk functions write the most and least significant bits of each UUID as a pair of longs,
+ * reserving the whole block with a single atomic update:
+ * <pre>{@code
+ * var ids = new long[2 * 1_000];
+ * UuidGenerator.DEFAULT.timeOrdered(ThreadLocalRandom.current(), ids, 0, 1_000);
+ * }</pre>
+ * Instances are thread-safe.
+ *
+ * @author Dennis Woithe
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class UuidGenerator {
+
+    /** The generator shared by {@link RandomSource}, so all its time-ordered UUIDs are strictly increasing. */
+    public static final UuidGenerator DEFAULT = new UuidGenerator(System::currentTimeMillis);
+
+    private static final int COUNTER_BITS = 12;
+    private static final long VERSION_4 = 0x4000L;
+    private static final long VERSION_7 = 0x7000L;
+    private static final long VERSION_MASK = 0xF000L;
+    private static final long VARIANT = 0x8000000000000000L;
+    private static final long VARIANT_MASK = 0xC000000000000000L;
+
+    private final LongSupplier clock;
+    /** Timestamp and counter of the last UUID: {@code millis << 12 | counter} */
+    private final AtomicLong sequence = new AtomicLong();
+
+    private UuidGenerator(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    /**
+     * Creates a generator whose time-ordered UUIDs are only ordered among themselves.
+     *
+     * @param millisClock the current Unix time in milliseconds, e.g. a fixed clock for tests
+     */
+    public static UuidGenerator create(LongSupplier millisClock) {
+        return new UuidGenerator(Objects.requireNonNull(millisClock, "Clock must not be null"));
+    }
+
+    // ==== VERSION 4 ======================================================== //
+
+    /** Creates a random version 4 {@link UUID}. */
+    public static UUID random(RandomGenerator rng) {
+        return new UUID(randomMsb(rng.nextLong()), randomLsb(rng.nextLong()));
+    }
+
+    /**
+     * Writes {@code count} random version 4 UUIDs as pairs of most and least significant bits into the array,
+     * starting at {@code offset}.
+     *
+     * @throws IndexOutOfBoundsException if the {@code 2 * count} longs are out of the array bounds.
+     */
+    public static void random(RandomGenerator rng, long[] pairs, int offset, int count) {
+        Objects.checkFromIndexSize(offset, 2 * count, pairs.length);
+        for (int i = offset, end = offset + 2 * count; i < end; i += 2) {
+            pairs[i] = randomMsb(rng.nextLong());
+            pairs[i + 1] = randomLsb(rng.nextLong());
+        }
+    }
+
+    // ==== VERSION 7 ======================================================== //
+
+    /** Creates a version 7 {@link UUID} that is greater than all previous ones of this generator. */
+    public UUID timeOrdered(RandomGenerator rng) {
+        return new UUID(timeOrderedMsb(reserve(1)), randomLsb(rng.nextLong()));
+    }
+
+    /**
+     * Writes {@code count} ascending version 7 UUIDs as pairs of most and least significant bits into the array,
+     * starting at {@code offset}.
+     *
+     * @throws IndexOutOfBoundsException if the {@code 2 * count} longs are out of the array bounds.
+     */
+    public void timeOrdered(RandomGenerator rng, long[] pairs, int offset, int count) {
+        Objects.checkFromIndexSize(offset, 2 * count, pairs.length);
+        if (count == 0)
+            return;
+        var next = reserve(count);
+        for (int i = offset, end = offset + 2 * count; i < end; i += 2) {
+            pairs[i] = timeOrderedMsb(next++);
+            pairs[i + 1] = randomLsb(rng.nextLong());
+        }
+    }
+
+    /** Reserves {@code count} consecutive sequence values and returns the first one. */
+    private long reserve(int count) {
+        var now = clock.getAsLong() << COUNTER_BITS;
+        long last, first;
+        do {
+            last = sequence.get();
+            first = Math.max(last + 1, now);
+        } while (!sequence.compareAndSet(last, first + count - 1));
+        return first;
+    }
+
+    private static long timeOrderedMsb(long sequence) {
+        // 48 bit timestamp, 4 bit version, 12 bit counter
+        return (sequence >>> COUNTER_BITS) << 16 | VERSION_7 | sequence & ((1L << COUNTER_BITS) - 1);
+    }
+
+    private static long randomMsb(long bits) {
+        return bits & ~VERSION_MASK | VERSION_4;
+    }
+
+    private static long randomLsb(long bits) {
+        return bits & ~VARIANT_MASK | VARIANT;
+    }
+
+}
\ No newline at end of file
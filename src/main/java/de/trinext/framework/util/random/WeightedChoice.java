@@ -0,0 +1,61 @@
+package de.trinext.framework.util.random;
+
+import java.util.*;
+import java.util.random.RandomGenerator;
+
+/**
+ * Chooses elements randomly with fixed weights in constant time, e.g. the mix of operations in a load test:
+ * <pre>{@code
+ * var operations = WeightedChoice.of(Map.of(Operation.READ, 90, Operation.WRITE, 9, Operation.DELETE, 1));
+ * var next = operations.sample(RandomSource.threadLocal().generator());
+ * }</pre>
+ * Instances are immutable and thread-safe.
+ *
+ * @param <T> The type of the elements.
+ *
+ * @author Dennis Woithe
+ * @see IntDistribution#weighted(double...)
+ */
+@SuppressWarnings({"unused", "WeakerAccess"})
+public final class WeightedChoice<T> {
+
+    private final List<T> elements;
+    private final IntDistribution indices;
+
+    private WeightedChoice(List<T> elements, double[] weights) {
+        this.elements = elements;
+        indices = new AliasTable(weights);
+    }
+
+    /**
+     * Creates a choice between the keys of the map, weighted by their values.
+     *
+     * @throws IllegalArgumentException if a weight is negative, not finite or all weights are 0.
+     */
+    public static <T> WeightedChoice<T> of(Map<T, ? extends Number> weightedElements) {
+        Objects.requireNonNull(weightedElements, "Weighted elements must not be null");
+        var elements = new ArrayList<T>(weightedElements.size());
+        var weights = new double[weightedElements.size()];
+        for (var entry : weightedElements.entrySet()) {
+            weights[elements.size()] = entry.getValue().doubleValue();
+            elements.add(entry.getKey());
+        }
+        return new WeightedChoice<>(Collections.unmodifiableList(elements), weights);
+    }
+
+    /** Chooses one element. */
+    public T sample(RandomGenerator rng) {
+        return elements.get(indices.sample(rng));
+    }
+
+    /** The index of one element in {@link #elements()}, without looking up the element. */
+    public int sampleIndex(RandomGenerator rng) {
+        return indices.sample(rng);
+    }
+
+    /** All elements in the order of {@link #sampleIndex(RandomGenerator)}. */
+    public List<T> elements() {
+        return elements;
+    }
+
+}
\ No newline at end of file
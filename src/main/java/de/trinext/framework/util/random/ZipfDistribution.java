@@ -0,0 +1,75 @@
+package de.trinext.framework.util.random;
+
+import java.util.random.RandomGenerator;
+
+/**
+ * Zipf distribution sampled by rejection-inversion, which needs constant expected time and no tables.
+ *
+ * @author Dennis Woithe
+ * @see <a href="https://doi.org/10.1145/235025.235029">Hörmann, Derflinger: Rejection-inversion to generate variates from monotone discrete distributions</a>
+ */
+@SuppressWarnings("SpellCheckingInspection")
+final class ZipfDistribution implements IntDistribution {
+
+    private static final double TAYLOR_THRESHOLD = 1e-8;
+
+    private final int n;
+    private final double exponent;
+    private final double hIntegralX1;
+    private final double hIntegralN;
+    private final double s;
+
+    ZipfDistribution(int n, double exponent) {
+        if (n <= 0)
+            throw new IllegalArgumentException("n must be positive");
+        if (!(exponent > 0) || Double.isInfinite(exponent))
+            throw new IllegalArgumentException("Exponent must be positive");
+        this.n = n;
+        this.exponent = exponent;
+        hIntegralX1 = hIntegral(1.5) - 1;
+        hIntegralN = hIntegral(n + 0.5);
+        s = 2 - hIntegralInverse(hIntegral(2.5) - h(2));
+    }
+
+    @Override public int sample(RandomGenerator rng) {
+        while (true) {
+            var u = hIntegralN + rng.nextDouble() * (hIntegralX1 - hIntegralN);
+            var x = hIntegralInverse(u);
+            //noinspection NumericCastThatLosesPrecision
+            var k = Math.clamp((long) (x + 0.5), 1, n);
+            if (k - x <= s || u >= hIntegral(k + 0.5) - h(k))
+                return k - 1;
+        }
+    }
+
+    /** {@code H(x)}, the integral of {@link #h(double)}. */
+    private double hIntegral(double x) {
+        var logX = Math.log(x);
+        return helper2((1 - exponent) * logX) * logX;
+    }
+
+    /** {@code h(x) = 1 / x^exponent} */
+    private double h(double x) {
+        return Math.exp(-exponent * Math.log(x));
+    }
+
+    private double hIntegralInverse(double x) {
+        var t = Math.max(-1, x * (1 - exponent));
+        return Math.exp(helper1(t) * x);
+    }
+
+    /** {@code log(1 + x) / x}, stable for x close to 0. */
+    private static double helper1(double x) {
+        return Math.abs(x) > TAYLOR_THRESHOLD
+               ? Math.log1p(x) / x
+               : 1 - x * (0.5 - x * (1.0 / 3 - 0.25 * x));
+    }
+
+    /** {@code (exp(x) - 1) / x}, stable for x close to 0. */
+    private static double helper2(double x) {
+        return Math.abs(x) > TAYLOR_THRESHOLD
+               ? Math.expm1(x) / x
+               : 1 + x * 0.5 * (1 + x / 3 * (1 + 0.25 * x));
+    }
+
+}
\ No newline at end of file
@@ -9,6 +9,8 @@ module de.trinext.framework.util {
     exports de.trinext.framework.util.net;
     exports de.trinext.framework.util.encryption;
     exports de.trinext.framework.util.env;
+    exports de.trinext.framework.util.function;
+    exports de.trinext.framework.util.random;
     requires jdk.unsupported;
     requires java.net.http;
 }
\ No newline at end of file
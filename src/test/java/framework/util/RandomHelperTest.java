@@ -0,0 +1,99 @@
+package framework.util;
+
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import de.trinext.framework.util.RandomHelper;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Dennis Woithe
+ */
+final class RandomHelperTest {
+
+    @Test
+    void test_fill_arrays_within_range() {
+        var bytes = new byte[1003];
+        RandomHelper.fill(bytes, 5, 990);
+        assertArrayEquals(new byte[5], Arrays.copyOfRange(bytes, 0, 5));
+        assertArrayEquals(new byte[8], Arrays.copyOfRange(bytes, 995, 1003));
+        assertFalse(Arrays.equals(new byte[990], Arrays.copyOfRange(bytes, 5, 995)));
+        assertThrows(IndexOutOfBoundsException.class, () -> RandomHelper.fill(bytes, 1000, 4));
+
+        var shorts = new short[1001];
+        RandomHelper.fill(shorts, 1, 999);
+        assertEquals(0, shorts[0]);
+        assertEquals(0, shorts[1000]);
+        assertThrows(IndexOutOfBoundsException.class, () -> RandomHelper.fill(shorts, -1, 2));
+
+        var floats = new float[1001];
+        Arrays.fill(floats, -1);
+        RandomHelper.fill(floats);
+        for (var f : floats)
+            assertTrue(f >= 0 && f < 1, f + " is not in [0, 1)");
+    }
+
+    @Test
+    void test_fill_heap_and_direct_buffers() {
+        for (var buffer : new ByteBuffer[]{ByteBuffer.allocate(103), ByteBuffer.allocateDirect(103)}) {
+            buffer.position(3).limit(100);
+            RandomHelper.fill(buffer);
+            assertEquals(100, buffer.position());
+            buffer.clear();
+            assertEquals(0, buffer.get(0));
+            assertEquals(0, buffer.get(102));
+        }
+    }
+
+    @Test
+    void test_primitive_consumers_run_exact_amount() {
+        var count = new int[1];
+        RandomHelper.runForRandomPrimitiveBytes(13, b -> count[0]++);
+        assertEquals(13, count[0]);
+        count[0] = 0;
+        RandomHelper.runForRandomPrimitiveShorts(9, s -> count[0]++);
+        assertEquals(9, count[0]);
+        count[0] = 0;
+        RandomHelper.runForRandomPrimitiveFloats(3, f -> {
+            assertTrue(f >= 0 && f < 1);
+            count[0]++;
+        });
+        assertEquals(3, count[0]);
+    }
+
+    @Test
+    void test_threads_draw_different_sequences() throws InterruptedException, ExecutionException {
+        try (var executor = Executors.newFixedThreadPool(4)) {
+            var draws = executor.invokeAll(List.<Callable<List<Long>>>of(
+                    () -> RandomHelper.randomLongs(8).boxed().toList(),
+                    () -> RandomHelper.randomLongs(8).boxed().toList(),
+                    () -> RandomHelper.randomLongs(8).boxed().toList(),
+                    () -> RandomHelper.randomLongs(8).boxed().toList()
+            ));
+            var sequences = new HashSet<List<Long>>();
+            for (Future<List<Long>> draw : draws)
+                sequences.add(draw.get());
+            assertEquals(4, sequences.size());
+        }
+    }
+
+    @Test
+    void test_parallel_streams() {
+        var ints = RandomHelper.parallelRandomInts(200_001);
+        assertTrue(ints.isParallel());
+        assertEquals(200_001, ints.count());
+        assertEquals(0, RandomHelper.parallelRandomLongs(0).count());
+        assertTrue(RandomHelper.parallelRandomDoubles(100_000).allMatch(d -> d >= 0 && d < 1));
+        assertEquals(100_000, RandomHelper.parallelRandomLongs(100_000).distinct().count());
+        assertThrows(IllegalArgumentException.class, () -> RandomHelper.parallelRandomLongs(-1));
+    }
+
+}
\ No newline at end of file
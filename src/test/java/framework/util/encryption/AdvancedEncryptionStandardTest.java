@@ -38,6 +38,15 @@ class AdvancedEncryptionStandardTest {
         Assertions.assertEquals(PLAINTEXT, decryptedText);
     }
 
+    @Test
+    void test_encrypt_and_decrypt_with_random_key() throws InvalidKeyException {
+        var aes = new AdvancedEncryptionStandard(StandardCharsets.UTF_8);
+        var key = aes.generateRandomKey();
+        Assertions.assertEquals(32, key.getEncoded().length);
+        Assertions.assertNotEquals(key, aes.generateRandomKey());
+        Assertions.assertEquals(PLAINTEXT, aes.decrypt(aes.encrypt(PLAINTEXT, key), key));
+    }
+
     @Test
     void test_encrypt_with_null_plaintext() {
         var aes = new AdvancedEncryptionStandard(StandardCharsets.UTF_8);
@@ -0,0 +1,74 @@
+package framework.util.encryption;
+
+import java.security.DrbgParameters;
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.stream.IntStream;
+
+import de.trinext.framework.util.encryption.SecureRandomSource;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Dennis Woithe
+ */
+final class SecureRandomSourceTest {
+
+    @Test
+    void test_bytes_span_several_blocks() {
+        try (var source = SecureRandomSource.create(3, 64, Duration.ofMinutes(1))) {
+            var bytes = new byte[1_000];
+            source.nextBytes(bytes, 10, 980);
+            assertEquals(0, bytes[0]);
+            assertEquals(0, bytes[999]);
+            assertTrue(IntStream.range(10, 990).anyMatch(i -> bytes[i] != 0));
+            assertThrows(IndexOutOfBoundsException.class, () -> source.nextBytes(bytes, 500, 501));
+        }
+    }
+
+    @Test
+    void test_nonces_and_keys_are_distinct() {
+        var source = SecureRandomSource.DEFAULT;
+        var nonces = source.nonces(1_000, SecureRandomSource.NONCE_LENGTH);
+        var distinct = new HashSet<String>();
+        for (var nonce : nonces) {
+            assertEquals(SecureRandomSource.NONCE_LENGTH, nonce.length);
+            distinct.add(Arrays.toString(nonce));
+        }
+        assertEquals(1_000, distinct.size());
+        assertEquals(SecureRandomSource.IV_LENGTH, source.iv().length);
+        assertEquals(SecureRandomSource.AES_KEY_LENGTH, source.aesKey().getEncoded().length);
+        assertEquals(5, source.secretKeys("HmacSHA256", 5, 32).length);
+        assertThrows(UnsupportedOperationException.class, source::close);
+    }
+
+    @Test
+    void test_concurrent_use_and_reseed() {
+        try (var source = SecureRandomSource.create(4, 256, Duration.ofMillis(1))) {
+            var seen = ConcurrentHashMap.<String>newKeySet();
+            IntStream.range(0, 10_000).parallel().forEach(ignored -> seen.add(Arrays.toString(source.nonce())));
+            source.reseed();
+            assertEquals(10_000, seen.size());
+            assertNotEquals(0, source.asSecureRandom().nextLong());
+            assertEquals("DRBG", source.asSecureRandom().getAlgorithm());
+        }
+    }
+
+    @Test
+    void test_secure_random_view_accepts_parameters() {
+        try (var source = SecureRandomSource.create(2, 64, Duration.ofMinutes(1))) {
+            var random = source.asSecureRandom();
+            assertNotNull(random.getProvider());
+            assertInstanceOf(DrbgParameters.Instantiation.class, random.getParameters());
+            var bytes = new byte[100];
+            random.nextBytes(bytes, DrbgParameters.nextBytes(256, false, new byte[]{1, 2, 3}));
+            assertTrue(IntStream.range(0, 100).anyMatch(i -> bytes[i] != 0));
+            random.reseed(DrbgParameters.reseed(false, new byte[]{4, 5}));
+            assertThrows(NullPointerException.class, () -> random.nextBytes(bytes, null));
+        }
+    }
+
+}
\ No newline at end of file
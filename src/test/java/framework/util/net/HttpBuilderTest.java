@@ -1,9 +1,750 @@
 package framework.util.net;
 
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.URI;
+import java.net.http.HttpResponse.BodyHandler;
+import java.net.http.HttpResponse.BodyHandlers;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.time.Duration;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.GZIPOutputStream;
+
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
+import de.trinext.framework.util.net.ConcurrencyLimiter;
+import de.trinext.framework.util.net.HedgingPolicy;
+import de.trinext.framework.util.net.HttpBatch;
+import de.trinext.framework.util.net.HttpBuilder;
+import de.trinext.framework.util.net.HttpClientRegistry;
+import de.trinext.framework.util.net.HttpDownload;
+import de.trinext.framework.util.net.HttpMethod;
+import de.trinext.framework.util.net.HttpMetrics;
+import de.trinext.framework.util.net.HttpResponseCache;
+import de.trinext.framework.util.net.RateLimiter;
+import de.trinext.framework.util.net.RequestCoalescer;
+import de.trinext.framework.util.net.RetryPolicy;
+import de.trinext.framework.util.net.StreamingBodyHandlers;
+import de.trinext.framework.util.net.StreamingBodyHandlers.ServerSentEvent;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
 /**
+ * Tests {@link HttpBuilder} against a local {@link HttpServer}.
+ *
  * @author Dennis Woithe
  */
 final class HttpBuilderTest {
-    // TODO: Implement me!
-    // https://github.com/TriNext/framework-util/issues/13
+
+    private static final AtomicInteger CONCURRENT = new AtomicInteger();
+    private static final AtomicInteger MAX_CONCURRENT = new AtomicInteger();
+    private static final AtomicInteger FLAKY_CALLS = new AtomicInteger();
+    private static final AtomicInteger SLOW_CALLS = new AtomicInteger();
+    private static final AtomicInteger FRESH_CALLS = new AtomicInteger();
+    private static final AtomicInteger NOT_MODIFIED_CALLS = new AtomicInteger();
+    private static final AtomicInteger HERD_CALLS = new AtomicInteger();
+    private static final AtomicInteger RANGE_CALLS = new AtomicInteger();
+    private static final AtomicInteger FAILING_RANGES = new AtomicInteger();
+    private static final AtomicInteger QUOTA_CALLS = new AtomicInteger();
+    private static final byte[] ARTIFACT = new byte[300_000];
+
+    private static final String LARGE_TEXT = "All work and no play makes Jack a dull boy.\n".repeat(10_000);
+
+    private static HttpServer server;
+    private static URI baseUri;
+
+    @BeforeAll
+    static void start_server() throws IOException {
+        server = HttpServer.create(new InetSocketAddress("localhost", 0), 0);
+        server.createContext("/hello", exchange -> respond(exchange, 200, "Hello World!"));
+        server.createContext("/missing", exchange -> respond(exchange, 404, "Not Found"));
+        server.createContext("/slow", exchange -> {
+            MAX_CONCURRENT.accumulateAndGet(CONCURRENT.incrementAndGet(), Math::max);
+            sleep(20);
+            CONCURRENT.decrementAndGet();
+            respond(exchange, 200, exchange.getRequestURI().getQuery());
+        });
+        server.createContext("/flaky", exchange -> {
+            if (FLAKY_CALLS.incrementAndGet() % 3 != 0) {
+                exchange.getResponseHeaders().add("Retry-After", "0");
+                respond(exchange, 503, "Unavailable");
+            } else respond(exchange, 200, "Finally");
+        });
+        server.createContext("/first-is-slow", exchange -> {
+            if (SLOW_CALLS.getAndIncrement() % 2 == 0)
+                sleep(2_000);
+            respond(exchange, 200, "Fast");
+        });
+        server.createContext("/fresh", exchange -> {
+            FRESH_CALLS.incrementAndGet();
+            exchange.getResponseHeaders().add("Cache-Control", "max-age=60");
+            respond(exchange, 200, "Fresh");
+        });
+        server.createContext("/private", exchange -> {
+            exchange.getResponseHeaders().add("Cache-Control", "private, max-age=60");
+            respond(exchange, 200, exchange.getRequestHeaders().getFirst("Authorization"));
+        });
+        server.createContext("/public", exchange -> {
+            exchange.getResponseHeaders().add("Cache-Control", "public, max-age=60");
+            respond(exchange, 200, "Public");
+        });
+        server.createContext("/etag", exchange -> {
+            exchange.getResponseHeaders().add("Cache-Control", "no-cache");
+            exchange.getResponseHeaders().add("ETag", "\"v1\"");
+            if ("\"v1\"".equals(exchange.getRequestHeaders().getFirst("If-None-Match"))) {
+                NOT_MODIFIED_CALLS.incrementAndGet();
+                exchange.sendResponseHeaders(304, -1);
+                exchange.close();
+            } else respond(exchange, 200, "Tagged");
+        });
+        server.createContext("/herd", exchange -> {
+            HERD_CALLS.incrementAndGet();
+            sleep(200);
+            respond(exchange, 200, "Shared");
+        });
+        server.createContext("/held", exchange -> {
+            sleep(200);
+            respond(exchange, 200, "Held");
+        });
+        server.createContext("/compressed", exchange -> {
+            var accepted = String.valueOf(exchange.getRequestHeaders().getFirst("Accept-Encoding"));
+            var encoding = exchange.getRequestURI().getQuery();
+            if (!accepted.contains(encoding)) {
+                respond(exchange, 200, LARGE_TEXT);
+                return;
+            }
+            var bytes = new ByteArrayOutputStream();
+            try (var out = "gzip".equals(encoding) ? new GZIPOutputStream(bytes) : new DeflaterOutputStream(bytes)) {
+                out.write(LARGE_TEXT.getBytes(StandardCharsets.UTF_8));
+            }
+            exchange.getResponseHeaders().add("Content-Encoding", encoding);
+            exchange.sendResponseHeaders(200, bytes.size());
+            try (var out = exchange.getResponseBody()) {
+                bytes.writeTo(out);
+            }
+        });
+        server.createContext("/ndjson", exchange -> respond(exchange, 200, "{\"id\":1}\n\n{\"id\":2}\r\n{\"id\":3}"));
+        server.createContext("/events", exchange -> {
+            exchange.getResponseHeaders().add("Content-Type", "text/event-stream; charset=utf-8");
+            respond(exchange, 200, ": comment\nid: 7\ndata: first\ndata: second\n\nevent: update\ndata:third\nretry: 250\n\nevent: empty\n\n");
+        });
+        new Random(42).nextBytes(ARTIFACT);
+        server.createContext("/artifact", exchange -> {
+            exchange.getResponseHeaders().add("Accept-Ranges", "bytes");
+            exchange.getResponseHeaders().add("ETag", "\"a1\"");
+            if ("HEAD".equals(exchange.getRequestMethod())) {
+                exchange.getResponseHeaders().add("Content-Length", String.valueOf(ARTIFACT.length));
+                exchange.sendResponseHeaders(200, -1);
+                exchange.close();
+                return;
+            }
+            var range = exchange.getRequestHeaders().getFirst("Range").substring("bytes=".length()).split("-");
+            var from = Integer.parseInt(range[0]);
+            var to = Integer.parseInt(range[1]) + 1;
+            RANGE_CALLS.incrementAndGet();
+            if (from > 0 && FAILING_RANGES.getAndDecrement() > 0) {
+                respond(exchange, 500, "Failed");
+                return;
+            }
+            exchange.getResponseHeaders().add("Content-Range", "bytes " + from + "-" + (to - 1) + "/" + ARTIFACT.length);
+            exchange.sendResponseHeaders(206, to - from);
+            try (var out = exchange.getResponseBody()) {
+                out.write(ARTIFACT, from, to - from);
+            }
+        });
+        // Answers with the whole resource if it changed and with the wrong bytes if it's misranged
+        for (var path : List.of("/changed", "/misranged"))
+            server.createContext(path, exchange -> {
+                exchange.getResponseHeaders().add("Accept-Ranges", "bytes");
+                exchange.getResponseHeaders().add("ETag", "\"a1\"");
+                if ("HEAD".equals(exchange.getRequestMethod())) {
+                    exchange.getResponseHeaders().add("Content-Length", String.valueOf(ARTIFACT.length));
+                    exchange.sendResponseHeaders(200, -1);
+                    exchange.close();
+                } else if ("/changed".equals(exchange.getRequestURI().getPath())) {
+                    exchange.sendResponseHeaders(200, ARTIFACT.length);
+                    try (var out = exchange.getResponseBody()) {
+                        out.write(ARTIFACT);
+                    }
+                } else {
+                    exchange.getResponseHeaders().add("Content-Range", "bytes 0-99/" + ARTIFACT.length);
+                    exchange.sendResponseHeaders(206, 100);
+                    try (var out = exchange.getResponseBody()) {
+                        out.write(ARTIFACT, 0, 100);
+                    }
+                }
+            });
+        server.createContext("/quota", exchange -> {
+            QUOTA_CALLS.incrementAndGet();
+            exchange.getResponseHeaders().add("Retry-After", "1");
+            respond(exchange, 429, "Too Many Requests");
+        });
+        server.createContext("/unavailable", exchange -> respond(exchange, 503, "Unavailable"));
+        server.createContext("/api/token", exchange -> respond(exchange, 200, exchange.getRequestHeaders().getFirst("X-Token")));
+        server.setExecutor(Executors.newVirtualThreadPerTaskExecutor());
+        server.start();
+        baseUri = URI.create("http://localhost:" + server.getAddress().getPort());
+    }
+
+    @AfterAll
+    static void stop_server() {
+        server.stop(0);
+    }
+
+    @BeforeEach
+    void reset_counters() {
+        for (var counter : List.of(MAX_CONCURRENT, FLAKY_CALLS, SLOW_CALLS, FRESH_CALLS, NOT_MODIFIED_CALLS,
+                HERD_CALLS, RANGE_CALLS, FAILING_RANGES, QUOTA_CALLS))
+            counter.set(0);
+    }
+
+    private static void respond(HttpExchange exchange, int code, String body) throws IOException {
+        var bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(code, bytes.length);
+        try (var out = exchange.getResponseBody()) {
+            out.write(bytes);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Test
+    void test_send() {
+        var body = HttpBuilder.forUrl(baseUri.resolve("/hello"))
+                .withMethod(HttpMethod.GET)
+                .expectBody(BodyHandlers.ofString())
+                .send();
+        assertEquals("Hello World!", body.orElseThrow());
+    }
+
+    @Test
+    void test_send_async() {
+        var body = HttpBuilder.forUrl(baseUri.resolve("/hello"))
+                .withMethod(HttpMethod.GET)
+                .expectBody(BodyHandlers.ofString())
+                .sendAsync()
+                .join();
+        assertEquals("Hello World!", body);
+    }
+
+    @Test
+    void test_send_async_throws_for_code() {
+        var future = HttpBuilder.forUrl(baseUri.resolve("/missing"))
+                .withMethod(HttpMethod.GET)
+                .expectBody(BodyHandlers.ofString())
+                .throwIfCode(404, () -> new IllegalStateException("missing"))
+                .sendAsync();
+        var exception = assertThrows(CompletionException.class, future::join);
+        assertInstanceOf(IllegalStateException.class, exception.getCause());
+    }
+
+    @Test
+    void test_batch_limits_in_flight_requests_per_host() {
+        var requests = IntStream.range(0, 20)
+                .mapToObj(i -> HttpBuilder.forUrl(baseUri.resolve("/slow?" + i))
+                        .withMethod(HttpMethod.GET)
+                        .expectBody(BodyHandlers.ofString()))
+                .toList();
+        var bodies = HttpBatch.withMaxInFlightPerHost(3)
+                .execute(requests)
+                .peek(result -> assertTrue(result.isSuccess()))
+                .map(HttpBatch.Result::body)
+                .collect(Collectors.toSet());
+        assertEquals(20, bodies.size());
+        assertTrue(MAX_CONCURRENT.get() <= 3);
+    }
+
+    @Test
+    void test_batch_reports_errors_as_results() {
+        var failing = HttpBuilder.forUrl(baseUri.resolve("/hello"))
+                .withMethod(HttpMethod.GET)
+                .expectBody(BodyHandlers.ofString())
+                .throwIfCode(200, response -> {
+                    throw new AssertionError("Broken mapping");
+                });
+        var results = HttpBatch.withMaxInFlightPerHost(3)
+                .execute(List.of(failing))
+                .toList();
+        assertEquals(1, results.size());
+        assertFalse(results.get(0).isSuccess());
+        assertInstanceOf(AssertionError.class, results.get(0).failure());
+    }
+
+    @Test
+    void test_retry_until_success() {
+        var request = HttpBuilder.forUrl(baseUri.resolve("/flaky"))
+                .withMethod(HttpMethod.GET)
+                .expectBody(BodyHandlers.ofString())
+                .throwIfCode(503, () -> new IllegalStateException("unavailable"));
+        assertThrows(IllegalStateException.class, request::send);
+        FLAKY_CALLS.set(0);
+        var body = request.withRetry(RetryPolicy.maxAttempts(3).withBackoff(Duration.ofMillis(1), Duration.ofMillis(5))).send();
+        assertEquals("Finally", body.orElseThrow());
+        assertEquals(3, FLAKY_CALLS.get());
+    }
+
+    @Test
+    void test_retry_drops_streamed_bodies() throws IOException {
+        var body = HttpBuilder.forUrl(baseUri.resolve("/flaky"))
+                .withMethod(HttpMethod.GET)
+                .expectBody(BodyHandlers.ofInputStream())
+                .withRetry(RetryPolicy.maxAttempts(3).withBackoff(Duration.ofMillis(1), Duration.ofMillis(5)))
+                .send()
+                .orElseThrow();
+        try (body) {
+            assertEquals("Finally", new String(body.readAllBytes(), StandardCharsets.UTF_8));
+        }
+        assertEquals(3, FLAKY_CALLS.get());
+    }
+
+    @Test
+    void test_interrupt_cancels_scheduled_retry() throws InterruptedException {
+        var request = HttpBuilder.forUrl(baseUri.resolve("/quota"))
+                .withMethod(HttpMethod.GET)
+                .expectBody(BodyHandlers.ofString())
+                .withRetry(RetryPolicy.maxAttempts(3));
+        var sender = Thread.ofVirtual().start(request::send);
+        // The first response asks to retry after one second
+        while (QUOTA_CALLS.get() == 0)
+            sleep(5);
+        sender.interrupt();
+        sender.join();
+        sleep(1_500);
+        assertEquals(1, QUOTA_CALLS.get());
+    }
+
+    @Test
+    void test_retry_is_limited_by_budget() {
+        var budget = RetryPolicy.Budget.of(0.1, 1);
+        var policy = RetryPolicy.maxAttempts(3).withBackoff(Duration.ZERO, Duration.ZERO).withBudget(budget);
+        var future = HttpBuilder.forUrl(baseUri.resolve("/flaky"))
+                .withMethod(HttpMethod.GET)
+                .expectBody(BodyHandlers.ofString())
+                .throwIfCode(503, () -> new IllegalStateException("unavailable"))
+                .withRetry(policy)
+                .sendAsync();
+        assertThrows(CompletionException.class, future::join);
+        assertEquals(2, FLAKY_CALLS.get());
+        assertEquals(0, budget.available());
+    }
+
+    @Test
+    void test_hedging_takes_first_response() {
+        var start = System.nanoTime();
+        var body = HttpBuilder.forUrl(baseUri.resolve("/first-is-slow"))
+                .withMethod(HttpMethod.GET)
+                .expectBody(BodyHandlers.ofString())
+                .withHedging(HedgingPolicy.after(Duration.ofMillis(50)))
+                .sendAsync()
+                .join();
+        assertEquals("Fast", body);
+        assertTrue(Duration.ofNanos(System.nanoTime() - start).compareTo(Duration.ofSeconds(1)) < 0);
+    }
+
+    @Test
+    void test_cache_serves_fresh_response() {
+        var cache = HttpResponseCache.withMaxBytes(1 << 20);
+        for (var i = 0; i < 3; i++) {
+            var body = HttpBuilder.forUrl(baseUri.resolve("/fresh"))
+                    .withMethod(HttpMethod.GET)
+                    .expectBody(BodyHandlers.ofString())
+                    .withCache(cache)
+                    .send();
+            assertEquals("Fresh", body.orElseThrow());
+        }
+        assertEquals(1, FRESH_CALLS.get());
+        assertEquals(1, cache.size());
+        var bytes = HttpBuilder.forUrl(baseUri.resolve("/fresh"))
+                .withMethod(HttpMethod.GET)
+                .expectBody(BodyHandlers.ofByteArray())
+                .withCache(cache)
+                .sendAsync()
+                .join();
+        assertEquals("Fresh", new String(bytes, StandardCharsets.UTF_8));
+        assertEquals(1, FRESH_CALLS.get());
+    }
+
+    @Test
+    void test_cache_keeps_private_and_useless_responses_out() {
+        var cache = HttpResponseCache.withMaxBytes(1 << 20);
+        for (var user : List.of("Alice", "Bob")) {
+            var body = HttpBuilder.forUrl(baseUri.resolve("/private"))
+                    .addHeader("Authorization", user)
+                    .withMethod(HttpMethod.GET)
+                    .expectBody(BodyHandlers.ofString())
+                    .withCache(cache)
+                    .send();
+            assertEquals(user, body.orElseThrow());
+        }
+        HttpBuilder.forUrl(baseUri.resolve("/fresh"))
+                .addHeader("Authorization", "Alice")
+                .withMethod(HttpMethod.GET)
+                .expectBody(BodyHandlers.ofString())
+                .withCache(cache)
+                .send();
+        // Neither fresh nor revalidatable
+        HttpBuilder.forUrl(baseUri.resolve("/hello"))
+                .withMethod(HttpMethod.GET)
+                .expectBody(BodyHandlers.ofString())
+                .withCache(cache)
+                .send();
+        assertEquals(0, cache.size());
+
+        HttpBuilder.forUrl(baseUri.resolve("/public"))
+                .addHeader("Authorization", "Alice")
+                .withMethod(HttpMethod.GET)
+                .expectBody(BodyHandlers.ofString())
+                .withCache(cache)
+                .send();
+        assertEquals(1, cache.size());
+    }
+
+    @Test
+    void test_cache_revalidates_with_etag() {
+        var cache = HttpResponseCache.withMaxBytes(1 << 20);
+        for (var i = 0; i < 3; i++) {
+            var body = HttpBuilder.forUrl(baseUri.resolve("/etag"))
+                    .withMethod(HttpMethod.GET)
+                    .expectBody(BodyHandlers.ofString())
+                    .withCache(cache)
+                    .send();
+            assertEquals("Tagged", body.orElseThrow());
+        }
+        assertEquals(2, NOT_MODIFIED_CALLS.get());
+        cache.clear();
+        assertEquals(0, cache.bytes());
+    }
+
+    @Test
+    void test_coalescing_shares_in_flight_request() {
+        var coalescer = new RequestCoalescer();
+        BodyHandler<String> handler = BodyHandlers.ofString();
+        var futures = IntStream.range(0, 10)
+                .mapToObj(i -> HttpBuilder.forUrl(baseUri.resolve("/herd"))
+                        .withMethod(HttpMethod.GET)
+                        .expectBody(handler)
+                        .withCoalescing(coalescer)
+                        .sendAsync())
+                .toList();
+        CompletableFuture.allOf(futures.toArray(CompletableFuture[]::new)).join();
+        futures.forEach(future -> assertEquals("Shared", future.join()));
+        assertEquals(1, HERD_CALLS.get());
+        assertEquals(0, coalescer.inFlight());
+    }
+
+    @Test
+    void test_registry_shares_client_per_profile() {
+        var profile = HttpClientRegistry.Profile.DEFAULT.withRequestTimeout(Duration.ofSeconds(5));
+        var registry = HttpClientRegistry.withDefaultProfile(HttpClientRegistry.Profile.DEFAULT)
+                .register("localhost", profile)
+                .register("127.0.0.1", profile);
+        var client = registry.clientFor(baseUri);
+        assertSame(client, registry.clientFor(URI.create("http://127.0.0.1/other")));
+        assertNotSame(client, registry.clientFor(URI.create("https://www.example.com")));
+        assertEquals(Duration.ofSeconds(5), registry.profileFor(baseUri).requestTimeout().orElseThrow());
+        assertSame(HttpBuilder.DEFAULT_CLIENT, HttpClientRegistry.DEFAULT.clientFor(URI.create("https://www.example.com")));
+        registry.prewarm(baseUri.resolve("/hello")).join();
+    }
+
+    @Test
+    void test_decompression() {
+        for (var encoding : new String[]{"gzip", "deflate"}) {
+            var body = HttpBuilder.forUrl(baseUri.resolve("/compressed?" + encoding))
+                    .withMethod(HttpMethod.GET)
+                    .expectBody(BodyHandlers.ofString())
+                    .withDecompression()
+                    .send();
+            assertEquals(LARGE_TEXT, body.orElseThrow());
+            var async = HttpBuilder.forUrl(baseUri.resolve("/compressed?" + encoding))
+                    .withMethod(HttpMethod.GET)
+                    .expectBody(BodyHandlers.ofString())
+                    .withDecompression()
+                    .sendAsync()
+                    .join();
+            assertEquals(LARGE_TEXT, async);
+        }
+    }
+
+    @Test
+    void test_streaming_ndjson() {
+        var ids = new CopyOnWriteArrayList<String>();
+        HttpBuilder.forUrl(baseUri.resolve("/ndjson"))
+                .withMethod(HttpMethod.GET)
+                .expectBody(StreamingBodyHandlers.ofNdjson(line -> line.replaceAll("\\D", ""), ids::add))
+                .sendAsync()
+                .join();
+        assertEquals(List.of("1", "2", "3"), ids);
+    }
+
+    @Test
+    void test_streaming_server_sent_events() {
+        var events = new CopyOnWriteArrayList<ServerSentEvent>();
+        HttpBuilder.forUrl(baseUri.resolve("/events"))
+                .withMethod(HttpMethod.GET)
+                .expectBody(StreamingBodyHandlers.ofServerSentEvents(events::add))
+                .sendAsync()
+                .join();
+        assertEquals(List.of(
+                new ServerSentEvent("7", "message", "first\nsecond", null),
+                new ServerSentEvent("7", "update", "third", Duration.ofMillis(250))
+        ), events);
+    }
+
+    @Test
+    void test_streaming_honors_bounded_demand() {
+        var lines = new CopyOnWriteArrayList<String>();
+        var subscription = new CompletableFuture<Flow.Subscription>();
+        // Requests one line at a time from within onNext, two in total
+        var future = HttpBuilder.forUrl(baseUri.resolve("/ndjson"))
+                .withMethod(HttpMethod.GET)
+                .expectBody(StreamingBodyHandlers.ofLines(new Flow.Subscriber<String>() {
+                    @Override
+                    public void onSubscribe(Flow.Subscription upstream) {
+                        subscription.complete(upstream);
+                        upstream.request(1);
+                    }
+
+                    @Override
+                    public void onNext(String line) {
+                        lines.add(line);
+                        if (lines.size() < 2)
+                            subscription.join().request(1);
+                    }
+
+                    @Override
+                    public void onError(Throwable throwable) { }
+
+                    @Override
+                    public void onComplete() { }
+                }))
+                .sendAsync();
+        while (lines.size() < 2)
+            sleep(5);
+        sleep(100);
+        assertEquals(List.of("{\"id\":1}", ""), lines);
+        assertFalse(future.isDone());
+        subscription.join().cancel();
+        future.join();
+    }
+
+    @Test
+    void test_streaming_fails_if_consumer_throws() {
+        var future = HttpBuilder.forUrl(baseUri.resolve("/ndjson"))
+                .withMethod(HttpMethod.GET)
+                .expectBody(StreamingBodyHandlers.ofLines(line -> {
+                    throw new IllegalStateException(line);
+                }))
+                .sendAsync();
+        var exception = assertThrows(CompletionException.class, future::join);
+        assertInstanceOf(IllegalStateException.class, exception.getCause());
+    }
+
+    @Test
+    void test_segmented_download_resumes() throws IOException {
+        var target = Files.createTempDirectory("download").resolve("artifact.bin");
+        var download = HttpDownload.of(baseUri.resolve("/artifact"), target)
+                .withSegments(4)
+                .withMinSegmentSize(50_000);
+        FAILING_RANGES.set(1);
+        assertThrows(CompletionException.class, () -> download.start().join());
+        assertEquals(4, RANGE_CALLS.get());
+        assertTrue(Files.exists(target.resolveSibling("artifact.bin.download")));
+        RANGE_CALLS.set(0);
+        assertEquals(target, download.start().join());
+        assertEquals(1, RANGE_CALLS.get());
+        assertArrayEquals(ARTIFACT, Files.readAllBytes(target));
+        assertFalse(Files.exists(target.resolveSibling("artifact.bin.download")));
+    }
+
+    @Test
+    void test_download_rejects_unexpected_responses() throws IOException {
+        var directory = Files.createTempDirectory("download");
+        var existing = Files.writeString(directory.resolve("existing.txt"), "Keep me");
+        assertThrows(CompletionException.class, () -> HttpDownload.of(baseUri.resolve("/missing"), existing).start().join());
+        assertEquals("Keep me", Files.readString(existing));
+
+        for (var path : List.of("/changed", "/misranged")) {
+            var download = HttpDownload.of(baseUri.resolve(path), directory.resolve(path.substring(1)))
+                    .withSegments(4)
+                    .withMinSegmentSize(50_000);
+            var exception = assertThrows(CompletionException.class, () -> download.start().join());
+            assertInstanceOf(IOException.class, exception.getCause());
+        }
+    }
+
+    @Test
+    void test_template_stamps_out_requests() {
+        var template = HttpBuilder.forUrl(baseUri.resolve("/api/"))
+                .addHeader("X-Token", "secret")
+                .withMethod(HttpMethod.GET)
+                .expectBody(BodyHandlers.ofString())
+                .throwIfCode(404, () -> new IllegalStateException("missing"))
+                .toTemplate();
+        assertEquals("secret", template.send("token").orElseThrow());
+        assertEquals("Hello World!", template.sendAsync("/hello").join());
+        var future = template.sendAsync("/missing");
+        var exception = assertThrows(CompletionException.class, future::join);
+        assertInstanceOf(IllegalStateException.class, exception.getCause());
+        var changed = template.newRequest(HttpMethod.GET, "token").throwIfCode(200, () -> new IllegalArgumentException("changed"));
+        assertThrows(IllegalArgumentException.class, changed::send);
+        assertEquals("secret", template.send("token").orElseThrow());
+    }
+
+    @Test
+    void test_metrics_record_outcomes() {
+        var metrics = HttpMetrics.byHost();
+        for (var path : new String[]{"/hello", "/hello", "/hello", "/missing"})
+            HttpBuilder.forUrl(baseUri.resolve(path))
+                    .withMethod(HttpMethod.GET)
+                    .expectBody(BodyHandlers.ofString())
+                    .withInstrumentation(metrics)
+                    .send();
+        var unreachable = HttpBuilder.forUrl("http://localhost:1/")
+                .withMethod(HttpMethod.GET)
+                .expectBody(BodyHandlers.ofString())
+                .withInstrumentation(metrics)
+                .send();
+        assertTrue(unreachable.isEmpty());
+        // The metrics may be notified after the caller
+        while (metrics.snapshot().get("localhost").count() < 5)
+            sleep(5);
+        var route = metrics.snapshot().get("localhost");
+        assertEquals(Map.of(200, 3L, 404, 1L), route.statusCodes());
+        assertEquals(Map.of("java.net.ConnectException", 1L), route.exceptions());
+        assertEquals(3 * "Hello World!".length() + "Not Found".length(), route.bytesReceived());
+        assertEquals(0, route.inFlight());
+        assertEquals(4, route.latency().count());
+        assertEquals(5, route.count());
+        assertEquals(0.2, route.errorRate(), 1e-9);
+
+        var held = HttpBuilder.forUrl(baseUri.resolve("/held"))
+                .withMethod(HttpMethod.GET)
+                .expectBody(BodyHandlers.ofString())
+                .withInstrumentation(metrics)
+                .sendAsync();
+        while (metrics.snapshot().get("localhost").inFlight() == 0)
+            sleep(5);
+        metrics.reset();
+        assertEquals(0, metrics.snapshot().get("localhost").count());
+        assertEquals(1, metrics.snapshot().get("localhost").inFlight());
+        held.join();
+        while (metrics.snapshot().get("localhost").inFlight() != 0)
+            sleep(5);
+        var afterReset = metrics.snapshot().get("localhost");
+        assertEquals(Map.of(200, 1L), afterReset.statusCodes());
+    }
+
+    @Test
+    void test_rate_limit_spaces_requests_and_honors_retry_after() {
+        var limiter = RateLimiter.perHost(20, 2);
+        var start = System.nanoTime();
+        for (var i = 0; i < 6; i++)
+            HttpBuilder.forUrl(baseUri.resolve("/hello"))
+                    .withMethod(HttpMethod.GET)
+                    .expectBody(BodyHandlers.ofString())
+                    .withRateLimit(limiter)
+                    .send()
+                    .orElseThrow();
+        // The burst of two is free, the other four wait 50ms each
+        assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(190));
+
+        var impatient = RateLimiter.perHost(100, 10).withMaxWait(Duration.ofMillis(500));
+        assertEquals("Too Many Requests", HttpBuilder.forUrl(baseUri.resolve("/quota"))
+                .withMethod(HttpMethod.GET)
+                .expectBody(BodyHandlers.ofString())
+                .withRateLimit(impatient)
+                .sendAsync()
+                .join());
+        var paused = HttpBuilder.forUrl(baseUri.resolve("/hello"))
+                .withMethod(HttpMethod.GET)
+                .expectBody(BodyHandlers.ofString())
+                .withRateLimit(impatient)
+                .sendAsync();
+        var exception = assertThrows(CompletionException.class, paused::join);
+        assertInstanceOf(RejectedExecutionException.class, exception.getCause());
+    }
+
+    @Test
+    void test_rate_limit_pauses_on_unavailable_without_retry_after() {
+        // One second between tokens, so the pause after the 503 exceeds the max wait despite the burst
+        var limiter = RateLimiter.perHost(1, 10).withMaxWait(Duration.ofMillis(500));
+        assertEquals("Unavailable", HttpBuilder.forUrl(baseUri.resolve("/unavailable"))
+                .withMethod(HttpMethod.GET)
+                .expectBody(BodyHandlers.ofString())
+                .withRateLimit(limiter)
+                .sendAsync()
+                .join());
+        var paused = HttpBuilder.forUrl(baseUri.resolve("/hello"))
+                .withMethod(HttpMethod.GET)
+                .expectBody(BodyHandlers.ofString())
+                .withRateLimit(limiter)
+                .sendAsync();
+        var exception = assertThrows(CompletionException.class, paused::join);
+        assertInstanceOf(RejectedExecutionException.class, exception.getCause());
+    }
+
+    @Test
+    void test_concurrency_limit_queues_rejects_and_adapts() {
+        var host = baseUri.getAuthority();
+        var limiter = ConcurrencyLimiter.perHost(2, 2).withQueue(20, Duration.ofSeconds(5));
+        var futures = IntStream.range(0, 10)
+                .mapToObj(i -> HttpBuilder.forUrl(baseUri.resolve("/slow?" + i))
+                        .withMethod(HttpMethod.GET)
+                        .expectBody(BodyHandlers.ofString())
+                        .withConcurrencyLimit(limiter)
+                        .sendAsync())
+                .toList();
+        assertEquals(List.of("0", "1", "2", "3", "4", "5", "6", "7", "8", "9"), futures.stream().map(CompletableFuture::join).toList());
+        assertTrue(MAX_CONCURRENT.get() <= 2);
+        assertEquals(0, limiter.inFlight(host));
+
+        var strict = ConcurrencyLimiter.perHost(1, 1);
+        var first = HttpBuilder.forUrl(baseUri.resolve("/held"))
+                .withMethod(HttpMethod.GET)
+                .expectBody(BodyHandlers.ofString())
+                .withConcurrencyLimit(strict)
+                .sendAsync();
+        var second = HttpBuilder.forUrl(baseUri.resolve("/hello"))
+                .withMethod(HttpMethod.GET)
+                .expectBody(BodyHandlers.ofString())
+                .withConcurrencyLimit(strict)
+                .sendAsync();
+        var exception = assertThrows(CompletionException.class, second::join);
+        assertInstanceOf(RejectedExecutionException.class, exception.getCause());
+        assertEquals("Held", first.join());
+
+        var adaptive = ConcurrencyLimiter.perHost(10, 100);
+        HttpBuilder.forUrl(baseUri.resolve("/quota"))
+                .withMethod(HttpMethod.GET)
+                .expectBody(BodyHandlers.ofString())
+                .withConcurrencyLimit(adaptive)
+                .send();
+        assertEquals(9, adaptive.limit(host));
+    }
+
 }
\ No newline at end of file
@@ -0,0 +1,46 @@
+package framework.util.net;
+
+import java.time.Duration;
+import java.util.stream.IntStream;
+
+import de.trinext.framework.util.net.LatencyHistogram;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Dennis Woithe
+ */
+final class LatencyHistogramTest {
+
+    @Test
+    void test_percentiles_are_within_precision() {
+        var histogram = new LatencyHistogram();
+        IntStream.rangeClosed(1, 10_000).parallel().forEach(millis -> histogram.record(Duration.ofMillis(millis).toNanos()));
+        var snapshot = histogram.snapshot();
+        assertEquals(10_000, snapshot.count());
+        assertEquals(Duration.ofSeconds(10), snapshot.max());
+        for (var percentile : new double[]{0.5, 0.9, 0.99, 0.999}) {
+            var expected = (double) Duration.ofMillis((long) (percentile * 10_000)).toNanos();
+            assertEquals(expected, snapshot.valueAtPercentile(percentile).toNanos(), expected * 0.016);
+        }
+        assertEquals(Duration.ofSeconds(10), snapshot.valueAtPercentile(1));
+        assertThrows(IllegalArgumentException.class, () -> snapshot.valueAtPercentile(0));
+    }
+
+    @Test
+    void test_small_and_extreme_values() {
+        var histogram = new LatencyHistogram();
+        histogram.record(-5);
+        histogram.record(100);
+        histogram.record(Long.MAX_VALUE);
+        var snapshot = histogram.snapshot();
+        assertEquals(Duration.ZERO, snapshot.valueAtPercentile(0.3));
+        assertEquals(Duration.ofNanos(100), snapshot.valueAtPercentile(0.6));
+        assertEquals(Duration.ofNanos(Long.MAX_VALUE), snapshot.valueAtPercentile(1));
+        histogram.reset();
+        assertEquals(0, histogram.snapshot().count());
+        assertEquals(Duration.ZERO, histogram.snapshot().valueAtPercentile(0.5));
+    }
+
+}
\ No newline at end of file
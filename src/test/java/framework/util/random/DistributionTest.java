@@ -0,0 +1,76 @@
+package framework.util.random;
+
+import java.util.Map;
+
+import de.trinext.framework.util.random.*;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Tests for {@link IntDistribution}, {@link DoubleDistribution} and {@link WeightedChoice}.
+ *
+ * @author Dennis Woithe
+ */
+final class DistributionTest {
+
+    private static final int SAMPLES = 1_000_000;
+
+    @Test
+    void test_zipf_matches_expected_frequencies() {
+        for (var exponent : new double[]{0.5, 1, 1.2})
+            assertZipfFrequencies(1000, exponent);
+    }
+
+    private static void assertZipfFrequencies(int n, double exponent) {
+        var harmonic = 0.0;
+        for (var k = 1; k <= n; k++)
+            harmonic += 1 / Math.pow(k, exponent);
+        var counts = new int[n];
+        var values = new int[SAMPLES];
+        IntDistribution.zipf(n, exponent).fill(RandomSource.seeded(1L).generator(), values, 0, SAMPLES);
+        for (var value : values)
+            counts[value]++;
+        for (var k = 0; k < 5; k++) {
+            var expected = SAMPLES / Math.pow(k + 1, exponent) / harmonic;
+            assertEquals(expected, counts[k], expected * 0.02, "Frequency of " + k);
+        }
+    }
+
+    @Test
+    void test_weighted_matches_expected_frequencies() {
+        var counts = new int[4];
+        IntDistribution.weighted(1, 0, 3, 6).samples(RandomSource.seeded(2L).generator(), SAMPLES).forEach(i -> counts[i]++);
+        assertEquals(SAMPLES * 0.1, counts[0], SAMPLES * 0.005);
+        assertEquals(0, counts[1]);
+        assertEquals(SAMPLES * 0.3, counts[2], SAMPLES * 0.005);
+        assertEquals(SAMPLES * 0.6, counts[3], SAMPLES * 0.005);
+
+        var choice = WeightedChoice.of(Map.of("read", 9, "write", 1));
+        var rng = RandomSource.seeded(3L).generator();
+        var reads = 0;
+        for (var i = 0; i < SAMPLES; i++)
+            if ("read".equals(choice.sample(rng)))
+                reads++;
+        assertEquals(SAMPLES * 0.9, reads, SAMPLES * 0.005);
+    }
+
+    @Test
+    void test_continuous_distributions_have_expected_mean() {
+        var rng = RandomSource.seeded(4L).generator();
+        assertEquals(20, DoubleDistribution.exponential(20).samples(rng, SAMPLES).average().orElseThrow(), 0.2);
+        assertEquals(-5, DoubleDistribution.normal(-5, 3).samples(rng, SAMPLES).average().orElseThrow(), 0.05);
+        assertEquals(9, DoubleDistribution.normal(-5, 3).samples(rng, SAMPLES).map(d -> (d + 5) * (d + 5)).average().orElseThrow(), 0.1);
+    }
+
+    @Test
+    void test_invalid_parameters() {
+        assertThrows(IllegalArgumentException.class, () -> IntDistribution.zipf(0, 1));
+        assertThrows(IllegalArgumentException.class, () -> IntDistribution.zipf(10, 0));
+        assertThrows(IllegalArgumentException.class, () -> IntDistribution.weighted());
+        assertThrows(IllegalArgumentException.class, () -> IntDistribution.weighted(0, 0));
+        assertThrows(IllegalArgumentException.class, () -> IntDistribution.weighted(1, -1));
+        assertThrows(IllegalArgumentException.class, () -> DoubleDistribution.exponential(0));
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,66 @@
+package framework.util.random;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+import de.trinext.framework.util.random.RandomAlphabet;
+import de.trinext.framework.util.random.RandomSource;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Dennis Woithe
+ */
+final class RandomAlphabetTest {
+
+    @Test
+    void test_random_string_matches_alphabet() {
+        var rng = RandomSource.seeded(7L).generator();
+        assertTrue(RandomAlphabet.LETTERS.randomString(rng, 1000).matches("[A-Za-z]{1000}"));
+        assertTrue(RandomAlphabet.ALPHANUMERIC.randomString(rng, 1000).matches("[A-Za-z0-9]{1000}"));
+        assertTrue(RandomAlphabet.HEX.randomString(rng, 1000).matches("[0-9a-f]{1000}"));
+        assertTrue(RandomAlphabet.DIGITS.randomString(rng, 1000).matches("[0-9]{1000}"));
+        assertEquals("xxx", RandomAlphabet.of("x").randomString(rng, 3));
+    }
+
+    @Test
+    void test_every_character_is_drawn() {
+        var rng = RandomSource.seeded(7L).generator();
+        var counts = new int[RandomAlphabet.ALPHANUMERIC.size()];
+        var alphabet = RandomAlphabet.ALPHANUMERIC.toString();
+        for (var c : RandomAlphabet.ALPHANUMERIC.randomString(rng, 62_000).toCharArray())
+            counts[alphabet.indexOf(c)]++;
+        for (var count : counts)
+            assertTrue(count > 800 && count < 1200, "Count " + count + " is not roughly uniform");
+    }
+
+    @Test
+    void test_fill_reusable_buffers() {
+        var rng = RandomSource.seeded(7L).generator();
+        var chars = new char[12];
+        RandomAlphabet.UPPERCASE.fill(rng, chars, 2, 8);
+        assertEquals('\u0000', chars[1]);
+        assertTrue(new String(chars, 2, 8).matches("[A-Z]{8}"));
+        assertEquals('\u0000', chars[10]);
+
+        var buffer = ByteBuffer.allocateDirect(16);
+        RandomAlphabet.LOWERCASE.fill(rng, buffer, 10);
+        assertEquals(10, buffer.position());
+        var bytes = new byte[10];
+        buffer.flip().get(bytes);
+        assertTrue(new String(bytes, StandardCharsets.ISO_8859_1).matches("[a-z]{10}"));
+
+        var builder = new StringBuilder("id-");
+        assertTrue(RandomAlphabet.HEX.append(rng, builder, 8).toString().matches("id-[0-9a-f]{8}"));
+    }
+
+    @Test
+    void test_invalid_alphabets() {
+        assertThrows(IllegalArgumentException.class, () -> RandomAlphabet.of(""));
+        assertThrows(IllegalArgumentException.class, () -> RandomAlphabet.of(null));
+        assertThrows(IllegalArgumentException.class, () -> RandomAlphabet.of("abca"));
+        assertThrows(IllegalArgumentException.class, () -> RandomAlphabet.of("a€"));
+    }
+
+}
\ No newline at end of file
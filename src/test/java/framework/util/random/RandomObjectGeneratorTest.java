@@ -0,0 +1,128 @@
+package framework.util.random;
+
+import java.math.BigDecimal;
+import java.nio.file.Path;
+import java.util.*;
+
+import de.trinext.framework.util.random.RandomObjectGenerator;
+import de.trinext.framework.util.random.RandomSource;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Dennis Woithe
+ */
+final class RandomObjectGeneratorTest {
+
+    enum Status { ACTIVE, BLOCKED }
+
+    record Address(String street, int number, Status status) { }
+
+    record Customer(UUID id, String name, List<Address> addresses, Map<String, BigDecimal> balances, long[] scores, Optional<Address> billing) { }
+
+    record Node(int value, Node next) { }
+
+    record Queues(Deque<String> deque, Queue<Integer> queue, SortedSet<String> sorted, SortedSet<Address> unsortable) { }
+
+    static final class Words implements Iterable<String> {
+
+        private List<String> words;
+
+        @Override
+        public Iterator<String> iterator() {
+            return words.iterator();
+        }
+
+    }
+
+    @SuppressWarnings("InstanceVariableMayNotBeInitialized")
+    static class Containers {
+
+        private ArrayDeque<String> arrayDeque;
+        private LinkedList<Integer> linkedList;
+        private LinkedHashMap<String, Long> linkedMap;
+        private NavigableMap<Status, String> navigableMap;
+        private TreeMap<Address, String> unsortable;
+        private Path path;
+        private Words words;
+
+    }
+
+    @SuppressWarnings("InstanceVariableMayNotBeInitialized")
+    static class Account {
+
+        private final String owner = null;
+        private double balance;
+        private char currency;
+        private boolean active;
+        private Set<Status> flags;
+
+    }
+
+    @Test
+    void test_generate_records() {
+        var generator = RandomObjectGenerator.DEFAULT.withCollectionSize(2, 2).withStringLength(5, 5);
+        var customer = generator.randomObject(Customer.class, RandomSource.seeded(1L).generator());
+        assertNotNull(customer.id());
+        assertEquals(5, customer.name().length());
+        assertEquals(2, customer.addresses().size());
+        customer.addresses().forEach(address -> {
+            assertEquals(5, address.street().length());
+            assertNotNull(address.status());
+        });
+        assertEquals(2, customer.scores().length);
+        customer.balances().forEach((key, value) -> assertEquals(2, value.scale()));
+        assertNotNull(customer.billing());
+    }
+
+    @Test
+    void test_generate_classes() {
+        var accounts = RandomObjectGenerator.DEFAULT.withStringLength(3, 3).randomObjects(Account.class, 100).toList();
+        assertEquals(100, accounts.size());
+        accounts.forEach(account -> {
+            assertEquals(3, account.owner.length());
+            assertTrue(account.balance >= 0 && account.balance < 1);
+            assertTrue(Character.isLetter(account.currency));
+            assertNotNull(account.flags);
+        });
+        assertTrue(accounts.stream().anyMatch(account -> account.active));
+    }
+
+    @Test
+    void test_generation_is_reproducible() {
+        var first = RandomObjectGenerator.DEFAULT.randomObject(Address.class, RandomSource.seeded(3L).generator());
+        var second = RandomObjectGenerator.DEFAULT.randomObject(Address.class, RandomSource.seeded(3L).generator());
+        assertEquals(first, second);
+    }
+
+    @Test
+    void test_recursive_types_are_cut_at_max_depth() {
+        var node = RandomObjectGenerator.DEFAULT.withMaxDepth(3).randomObject(Node.class);
+        assertNotNull(node.next());
+        assertNotNull(node.next().next());
+        assertNull(node.next().next().next());
+    }
+
+    @Test
+    void test_collections_match_declared_type() {
+        var generator = RandomObjectGenerator.DEFAULT.withCollectionSize(3, 3);
+        var queues = generator.randomObject(Queues.class, RandomSource.seeded(5L).generator());
+        assertInstanceOf(ArrayDeque.class, queues.deque());
+        assertEquals(3, queues.deque().size());
+        assertEquals(3, queues.queue().size());
+        assertInstanceOf(TreeSet.class, queues.sorted());
+        assertNull(queues.unsortable());
+
+        var containers = generator.randomObject(Containers.class, RandomSource.seeded(5L).generator());
+        assertEquals(3, containers.arrayDeque.size());
+        assertEquals(3, containers.linkedList.size());
+        assertInstanceOf(LinkedHashMap.class, containers.linkedMap);
+        assertInstanceOf(TreeMap.class, containers.navigableMap);
+        assertNull(containers.unsortable);
+        assertNull(containers.path);
+        assertNotNull(containers.words);
+        assertEquals(3, containers.words.words.size());
+    }
+
+}
\ No newline at end of file
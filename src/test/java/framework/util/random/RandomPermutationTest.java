@@ -0,0 +1,47 @@
+package framework.util.random;
+
+import java.util.BitSet;
+
+import de.trinext.framework.util.random.RandomPermutation;
+import de.trinext.framework.util.random.RandomSource;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Dennis Woithe
+ */
+final class RandomPermutationTest {
+
+    @Test
+    void test_permutation_is_bijective() {
+        for (var size : new long[]{1, 2, 3, 17, 1_000, 65_536, 100_003}) {
+            var permutation = RandomSource.seeded(size).randomPermutation(size);
+            var seen = new BitSet();
+            permutation.stream().forEach(index -> {
+                assertTrue(index >= 0 && index < size);
+                assertFalse(seen.get((int) index));
+                seen.set((int) index);
+            });
+            assertEquals(size, seen.cardinality());
+        }
+    }
+
+    @Test
+    void test_huge_permutation() {
+        var permutation = RandomSource.seeded(1L).randomPermutation(Long.MAX_VALUE);
+        for (var i = 0L; i < 1_000; i++)
+            assertTrue(permutation.get(i) >= 0);
+        assertThrows(IndexOutOfBoundsException.class, () -> permutation.get(-1));
+        assertThrows(IllegalArgumentException.class, () -> RandomPermutation.of(0, RandomSource.seeded(1L).generator()));
+    }
+
+    @Test
+    void test_permutation_is_reproducible() {
+        assertArrayEquals(
+                RandomSource.seeded(7L).randomPermutation(1_000).stream().toArray(),
+                RandomSource.seeded(7L).randomPermutation(1_000).stream().toArray()
+        );
+    }
+
+}
\ No newline at end of file
@@ -0,0 +1,228 @@
+package framework.util.random;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+import java.util.random.RandomGenerator;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+import de.trinext.framework.util.random.PropertyFailure;
+import de.trinext.framework.util.random.RandomAlgorithm;
+import de.trinext.framework.util.random.RandomSource;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Dennis Woithe
+ */
+final class RandomSourceTest {
+
+    private static final long SEED = 0xC0FFEEL;
+
+    @Test
+    void test_seeded_sources_are_reproducible() {
+        for (var algorithm : RandomAlgorithm.values()) {
+            var first = RandomSource.seeded(SEED, algorithm);
+            var second = RandomSource.seeded(SEED, algorithm);
+            assertArrayEquals(first.randomLongs(100).toArray(), second.randomLongs(100).toArray());
+            assertEquals(first.randomWord(20), second.randomWord(20));
+            assertEquals(first.randomBigDec(), second.randomBigDec());
+        }
+        assertEquals(SEED, RandomSource.seeded(SEED).seed().orElseThrow());
+        assertTrue(RandomSource.threadLocal().seed().isEmpty());
+    }
+
+    @Test
+    void test_seeded_parallel_streams_are_reproducible() {
+        var parallel = RandomSource.seeded(SEED).parallelRandomLongs(300_000).toArray();
+        assertArrayEquals(parallel, RandomSource.seeded(SEED).parallelRandomLongs(300_000).toArray());
+        // A different split of the work, down to a single thread, must not change the values
+        assertArrayEquals(parallel, RandomSource.seeded(SEED).parallelRandomLongs(300_000).sequential().toArray());
+        assertArrayEquals(
+                RandomSource.seeded(SEED).parallelRandomInts(100_001).toArray(),
+                RandomSource.seeded(SEED).parallelRandomInts(100_001).sequential().toArray()
+        );
+        assertArrayEquals(
+                RandomSource.seeded(SEED, RandomAlgorithm.XOSHIRO_256_PLUS_PLUS).independentGenerators(4).mapToLong(RandomGenerator::nextLong).toArray(),
+                RandomSource.seeded(SEED, RandomAlgorithm.XOSHIRO_256_PLUS_PLUS).independentGenerators(4).mapToLong(RandomGenerator::nextLong).toArray()
+        );
+    }
+
+    @Test
+    void test_fill() {
+        var random = RandomSource.seeded(SEED);
+        var bytes = new byte[19];
+        random.fill(bytes, 3, 13);
+        assertEquals(0, bytes[0]);
+        assertEquals(0, bytes[18]);
+        assertThrows(IndexOutOfBoundsException.class, () -> random.fill(bytes, 10, 10));
+
+        var floats = new float[1001];
+        random.fill(floats);
+        for (var f : floats)
+            assertTrue(f >= 0 && f < 1);
+
+        var buffer = ByteBuffer.allocateDirect(21).position(2);
+        random.fill(buffer);
+        assertEquals(buffer.limit(), buffer.position());
+    }
+
+    @Test
+    void test_primitive_consumers_run_exact_amount() {
+        var random = RandomSource.seeded(SEED);
+        var count = new int[1];
+        random.runForRandomPrimitiveBytes(13, b -> count[0]++);
+        assertEquals(13, count[0]);
+        count[0] = 0;
+        random.runForRandomPrimitiveShorts(7, s -> count[0]++);
+        assertEquals(7, count[0]);
+        count[0] = 0;
+        random.runForRandomPrimitiveFloats(5, f -> count[0]++);
+        assertEquals(5, count[0]);
+    }
+
+    @Test
+    void test_bounded_big_numbers() {
+        var random = RandomSource.seeded(SEED);
+        random.runForRandomBigDecs(10_000, 10, 2, value -> {
+            assertEquals(2, value.scale());
+            assertTrue(value.precision() <= 10);
+        });
+        random.runForRandomBigDecs(1_000, 30, 5, value -> {
+            assertEquals(5, value.scale());
+            assertTrue(value.precision() <= 30);
+        });
+        random.runForRandomBigInts(10_000, 100, value -> {
+            assertTrue(value.signum() >= 0);
+            assertTrue(value.bitLength() <= 100);
+        });
+        assertTrue(random.randomBigInts(1_000, 100).anyMatch(value -> value.bitLength() == 100));
+        assertEquals(BigInteger.ZERO, random.randomBigInt(0));
+
+        var min = new BigDecimal("-0.015");
+        var max = new BigDecimal("0.02");
+        for (var i = 0; i < 1_000; i++) {
+            var value = random.randomBigDec(min, max, 2);
+            assertTrue(value.compareTo(new BigDecimal("-0.01")) >= 0 && value.compareTo(max) <= 0);
+        }
+        var huge = BigDecimal.TEN.pow(40);
+        assertTrue(random.randomBigDec(huge.negate(), huge, 0).abs().compareTo(huge) <= 0);
+        assertThrows(IllegalArgumentException.class, () -> random.randomBigDec(max, min, 2));
+        assertThrows(IllegalArgumentException.class, () -> random.randomBigDec(0, 2));
+    }
+
+    @Test
+    void test_parallel_runner_reports_failing_input() {
+        var count = new LongAdder();
+        RandomSource.seeded(SEED).runForRandomLongsParallel(100_000, l -> count.increment());
+        assertEquals(100_000, count.sum());
+
+        Function<RandomGenerator, Integer> input = rng -> rng.nextInt(1_000_000);
+        var failure = assertThrows(
+                PropertyFailure.class,
+                () -> RandomSource.seeded(SEED).runParallel(1_000_000, input, i -> assertNotEquals(0, i % 1_000))
+        );
+        assertEquals(0, (Integer) failure.input() % 1_000);
+        assertEquals(failure.input(), RandomSource.reproduce(failure.runSeed(), failure.index(), input));
+        assertInstanceOf(AssertionError.class, failure.getCause());
+
+        Function<RandomGenerator, Integer> broken = rng -> {
+            var i = rng.nextInt(1_000);
+            if (i == 0)
+                throw new IllegalStateException("Can't create input");
+            return i;
+        };
+        var inputFailure = assertThrows(PropertyFailure.class, () -> RandomSource.seeded(SEED).runParallel(1_000_000, broken, i -> { }));
+        assertNull(inputFailure.input());
+        assertInstanceOf(IllegalStateException.class, inputFailure.getCause());
+        assertThrows(IllegalStateException.class, () -> RandomSource.reproduce(inputFailure.runSeed(), inputFailure.index(), broken));
+    }
+
+    @Test
+    void test_distinct_sampling_and_shuffles() {
+        var random = RandomSource.seeded(SEED);
+        // dense and sparse range
+        for (var bound : new int[]{1_200, 1_000_000_000}) {
+            var ints = random.randomDistinctInts(1_000, -100, bound);
+            assertEquals(1_000, Arrays.stream(ints).distinct().count());
+            assertTrue(Arrays.stream(ints).allMatch(i -> i >= -100 && i < bound));
+        }
+        assertEquals(10, Arrays.stream(random.randomDistinctLongs(10, Long.MAX_VALUE - 10, Long.MAX_VALUE)).distinct().count());
+        assertThrows(IllegalArgumentException.class, () -> random.randomDistinctInts(11, 0, 10));
+        assertThrows(IllegalArgumentException.class, () -> random.randomDistinctLongs(1, Long.MIN_VALUE, Long.MAX_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> random.randomDistinctLongs(1, Long.MAX_VALUE, Long.MIN_VALUE));
+        assertThrows(IllegalArgumentException.class, () -> random.randomDistinctInts(0, 5, 5));
+        assertThrows(IllegalArgumentException.class, () -> random.randomDistinctLongs((1 << 29) + 1, 0, Long.MAX_VALUE));
+
+        var indices = random.shuffledIndices(1_000);
+        var sorted = indices.clone();
+        Arrays.sort(sorted);
+        assertArrayEquals(IntStream.range(0, 1_000).toArray(), sorted);
+
+        var longs = LongStream.range(0, 100).toArray();
+        random.shuffle(longs, 10, 80);
+        assertEquals(9, longs[9]);
+        assertEquals(90, longs[90]);
+        assertEquals(4950, LongStream.of(longs).sum());
+    }
+
+    @Test
+    void test_fill_parallel_heap_and_direct_buffers() {
+        // Several chunks of 4 MiB, the last one incomplete
+        var size = (9 << 20) + 13;
+        var heap = ByteBuffer.allocate(size).position(7).limit(size - 5);
+        var direct = ByteBuffer.allocateDirect(size).position(7).limit(size - 5);
+        RandomSource.seeded(SEED).fillParallel(heap);
+        RandomSource.seeded(SEED).fillParallel(direct);
+        assertEquals(size - 5, heap.position());
+        assertEquals(size - 5, direct.position());
+        heap.clear();
+        direct.clear();
+        assertEquals(heap, direct);
+        for (var buffer : new ByteBuffer[]{heap, direct}) {
+            assertEquals(0, buffer.get(0));
+            assertEquals(0, buffer.get(6));
+            assertEquals(0, buffer.get(size - 1));
+            assertNotEquals(0, buffer.getLong(size - 13));
+        }
+        var unseeded = ByteBuffer.allocate(size);
+        RandomSource.threadLocal().fillParallel(unseeded);
+        assertNotEquals(heap.clear(), unseeded.clear());
+    }
+
+    @Test
+    void test_write_random_file() throws IOException {
+        var directory = Files.createTempDirectory("random");
+        var first = directory.resolve("first.bin");
+        var second = directory.resolve("second.bin");
+        try {
+            // More than one mapped region of 64 MiB, the last one incomplete
+            var size = (64L << 20) + 4099;
+            RandomSource.seeded(SEED).writeRandomFile(first, size);
+            RandomSource.seeded(SEED).writeRandomFile(second, size);
+            assertEquals(size, Files.size(first));
+            assertEquals(-1, Files.mismatch(first, second));
+            try (var channel = FileChannel.open(first)) {
+                var tail = ByteBuffer.allocate(4099);
+                channel.read(tail, size - tail.capacity());
+                assertNotEquals(ByteBuffer.allocate(4099), tail.flip());
+            }
+            RandomSource.seeded(SEED + 1).writeRandomFile(second, 10);
+            assertEquals(10, Files.size(second));
+            assertThrows(IllegalArgumentException.class, () -> RandomSource.seeded(SEED).writeRandomFile(first, -1));
+        } finally {
+            Files.deleteIfExists(first);
+            Files.deleteIfExists(second);
+            Files.delete(directory);
+        }
+    }
+
+}
\ No newline at end of file
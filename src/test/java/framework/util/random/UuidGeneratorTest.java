@@ -0,0 +1,62 @@
+package framework.util.random;
+
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.random.RandomGenerator;
+
+import de.trinext.framework.util.random.RandomSource;
+import de.trinext.framework.util.random.UuidGenerator;
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * @author Dennis Woithe
+ */
+final class UuidGeneratorTest {
+
+    private static final RandomGenerator RNG = RandomSource.seeded(3L).generator();
+
+    @Test
+    void test_random_uuid_version_and_variant() {
+        var pairs = new long[2 * 100];
+        UuidGenerator.random(RNG, pairs, 0, 100);
+        for (var i = 0; i < pairs.length; i += 2) {
+            var uuid = new UUID(pairs[i], pairs[i + 1]);
+            assertEquals(4, uuid.version());
+            assertEquals(2, uuid.variant());
+        }
+        assertEquals(4, UuidGenerator.random(RNG).version());
+        assertThrows(IndexOutOfBoundsException.class, () -> UuidGenerator.random(RNG, pairs, 1, 100));
+    }
+
+    @Test
+    void test_time_ordered_uuids_are_monotonic() {
+        var millis = new AtomicLong(1_700_000_000_000L);
+        var generator = UuidGenerator.create(millis::get);
+        // more than the 4096 values of the counter within one millisecond
+        var pairs = new long[2 * 10_000];
+        generator.timeOrdered(RNG, pairs, 0, 10_000);
+        var previous = generator.timeOrdered(RNG);
+        assertEquals(7, previous.version());
+        assertEquals(2, previous.variant());
+        for (var i = 2; i < pairs.length; i += 2)
+            assertTrue(pairs[i - 2] < pairs[i]);
+        assertTrue(pairs[pairs.length - 2] < previous.getMostSignificantBits());
+        assertEquals(millis.get(), pairs[0] >>> 16);
+
+        // the clock going backwards must not break the order
+        millis.addAndGet(-1_000);
+        for (var i = 0; i < 1_000; i++) {
+            var next = generator.timeOrdered(RNG);
+            assertTrue(previous.compareTo(next) < 0);
+            previous = next;
+        }
+    }
+
+    @Test
+    void test_odd_pair_array_is_rejected() {
+        assertThrows(IllegalArgumentException.class, () -> RandomSource.seeded(3L).fillTimeOrderedUuids(new long[3]));
+    }
+
+}
\ No newline at end of file
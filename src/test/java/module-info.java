@@ -6,6 +6,11 @@
 module framework.util.test {
     requires de.trinext.framework.util;
     requires org.junit.jupiter.api;
+    requires java.net.http;
+    requires jdk.httpserver;
+    opens framework.util to org.junit.platform.commons;
     opens framework.util.env to org.junit.platform.commons;
     opens framework.util.lang to de.trinext.framework.util, org.junit.platform.commons;
+    opens framework.util.net to org.junit.platform.commons;
+    opens framework.util.random to de.trinext.framework.util, org.junit.platform.commons;
 }
\ No newline at end of file